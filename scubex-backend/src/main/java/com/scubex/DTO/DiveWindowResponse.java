@@ -0,0 +1,22 @@
+package com.scubex.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DiveWindowResponse {
+
+    // Local time at the location (ISO, e.g. 2026-07-01T09:00); end is exclusive
+    private String start;
+    private String end;
+    private Integer hours;
+
+    // Average diving score over the window (0 = bad … 2 = good)
+    private Double score;
+    private String divingCondition;
+}
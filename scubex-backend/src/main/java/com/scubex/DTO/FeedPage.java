@@ -0,0 +1,31 @@
+package com.scubex.DTO;
+
+import com.scubex.model.Publication;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+/** One page of a keyset-paginated feed; {@code nextCursor} is null on the last page. */
+public record FeedPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Builds a page from up to {@code pageSize + 1} rows in feed order: the extra row only
+     * tells whether another page exists, so no COUNT query is needed.
+     */
+    public static <T> FeedPage<T> of(List<T> rows, int pageSize, Function<T, FeedCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new FeedPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new FeedPage<>(items, cursorOf.apply(items.get(pageSize - 1)).encode());
+    }
+
+    public static FeedPage<Publication> ofPublications(List<Publication> rows, int pageSize) {
+        return of(rows, pageSize, p -> new FeedCursor(p.getCreatedAt(), p.getId()));
+    }
+
+    public static FeedPage<PublicationView> ofViews(List<PublicationView> rows, int pageSize) {
+        return of(rows, pageSize, v -> new FeedCursor(Instant.parse(v.createdAt()), v.id()));
+    }
+}
@@ -0,0 +1,15 @@
+package com.scubex.DTO;
+
+/** What the current user sees for one publication: own like/save plus the public counters. */
+public record InteractionState(Long id, boolean liked, boolean saved, long likeCount, long commentCount) {
+
+    // JPQL constructor expression: the counters arrive boxed
+    public InteractionState(Long id, Boolean liked, Boolean saved, Long likeCount, Long commentCount) {
+        this(id, Boolean.TRUE.equals(liked), Boolean.TRUE.equals(saved),
+                likeCount != null ? likeCount : 0, commentCount != null ? commentCount : 0);
+    }
+
+    public InteractionState withLikeCount(long count) {
+        return new InteractionState(id, liked, saved, count, commentCount);
+    }
+}
@@ -0,0 +1,4 @@
+package com.scubex.DTO;
+
+/** One map marker at a zoom level: how many posts fall in the cell, their centroid and the newest one. */
+public record MapCluster(long count, double latitude, double longitude, PublicationView representative) {}
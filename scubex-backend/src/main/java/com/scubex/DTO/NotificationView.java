@@ -0,0 +1,27 @@
+package com.scubex.DTO;
+
+import com.scubex.model.Notification;
+
+/**
+ * A notification as the API returns it, both from GET /api/notifications and on the
+ * notification stream. Missing actor and publication fields come out as empty strings.
+ * actorCount is how many actors an aggregated LIKE / COMMENT stands for (1 otherwise);
+ * lastActivityAt is when its latest actor came in (createdAt otherwise).
+ */
+public record NotificationView(Long id, String type, boolean read, String createdAt,
+                               String actorName, String actorPicture, String actorEmail,
+                               Long publicationId, String publicationTitle, String commentSnippet,
+                               int actorCount, String previousActorName, String lastActivityAt) {
+
+    public static NotificationView of(Notification n) {
+        return new NotificationView(n.getId(), n.getType().name(), n.isRead(), n.getCreatedAt().toString(),
+                orEmpty(n.getActorName()), orEmpty(n.getActorPicture()), orEmpty(n.getActorEmail()),
+                n.getPublicationId(), orEmpty(n.getPublicationTitle()), orEmpty(n.getCommentSnippet()),
+                n.getActorCount() != null ? n.getActorCount() : 1, orEmpty(n.getPreviousActorName()),
+                (n.getLastActivityAt() != null ? n.getLastActivityAt() : n.getCreatedAt()).toString());
+    }
+
+    private static String orEmpty(String s) {
+        return s != null ? s : "";
+    }
+}
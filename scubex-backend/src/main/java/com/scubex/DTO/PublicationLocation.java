@@ -0,0 +1,6 @@
+package com.scubex.DTO;
+
+import java.time.Instant;
+
+/** Just the columns the in-memory location index needs, read without loading entities. */
+public record PublicationLocation(Long id, Long spatialKey, Double latitude, Double longitude, Instant createdAt) {}
@@ -0,0 +1,46 @@
+package com.scubex.DTO;
+
+import com.scubex.model.Publication;
+import com.scubex.model.User;
+
+import java.time.Instant;
+
+/**
+ * Read model of a publication as the API returns it: flat columns plus the author's display fields.
+ *
+ * Listing queries build it straight from a JPQL constructor projection (see
+ * PublicationRepository.VIEW_SELECT), so no Publication or User entity is loaded;
+ * single-entity paths use {@link #of}. Either way the JSON shape is the same.
+ */
+public record PublicationView(Long id, String title, String description, String imageUrl,
+                              Double latitude, Double longitude, String createdAt,
+                              Author author, long likeCount, long commentCount) {
+
+    public record Author(String email, String name, String picture) {}
+
+    /** Projection constructor; author name and picture are already resolved to their display values. */
+    public PublicationView(Long id, String title, String description, String imageUrl,
+                           Double latitude, Double longitude, Instant createdAt,
+                           String authorEmail, String authorName, String authorPicture,
+                           Long likeCount, Long commentCount) {
+        this(id, title, orEmpty(description), orEmpty(imageUrl), latitude, longitude, createdAt.toString(),
+                new Author(orEmpty(authorEmail), orEmpty(authorName), orEmpty(authorPicture)),
+                likeCount != null ? likeCount : 0, commentCount != null ? commentCount : 0);
+    }
+
+    public static PublicationView of(Publication p, long likeCount) {
+        User u = p.getUser();
+        return new PublicationView(p.getId(), p.getTitle(), p.getDescription(), p.getImageUrl(),
+                p.getLatitude(), p.getLongitude(), p.getCreatedAt(),
+                u.getEmail(), u.getDisplayName(), u.getDisplayPicture(), likeCount, p.getCommentCount());
+    }
+
+    public PublicationView withLikeCount(long likeCount) {
+        return new PublicationView(id, title, description, imageUrl, latitude, longitude, createdAt,
+                author, likeCount, commentCount);
+    }
+
+    private static String orEmpty(String s) {
+        return s != null ? s : "";
+    }
+}
@@ -0,0 +1,110 @@
+package com.scubex.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Version markers behind the ETags of polled read endpoints (publication lists, public
+ * profiles, comment lists). A conditional GET compares the client's tag with
+ * the current versions and answers 304 before running any of the listing queries.
+ *
+ * Writers bump the versions they affect <b>after commit</b>: a reader that sees the new
+ * version is then guaranteed to also see the new rows. Per-user and per-publication
+ * versions live in fixed striped arrays, so memory stays bounded; two ids sharing a
+ * stripe only cost each other an occasional full response, never a stale 304.
+ *
+ * Like and comment counts are not part of the publication list tags: they change on almost
+ * every request and would keep the lists from ever answering 304. A list served against a
+ * matching tag may carry older counts; clients read current ones from /interactions.
+ *
+ * Counters start at 0 on every boot, so tags carry a random boot epoch. Like
+ * {@link LikeCounterBuffer}, this assumes a single backend instance.
+ */
+@Component
+public class ContentVersions {
+
+    static final int STRIPES = 1 << 14;
+
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+
+    // Rare changes that can touch any listing: profile edits, account deletion, counter repairs
+    private final AtomicLong all = new AtomicLong();
+    // Which posts the global publication lists show and their content; not their counts
+    private final AtomicLong publications = new AtomicLong();
+    // Public profile of a user: their posts and counters, follower counts
+    private final AtomicLongArray users = new AtomicLongArray(STRIPES);
+    // Comment list of a publication
+    private final AtomicLongArray comments = new AtomicLongArray(STRIPES);
+
+    // ── Tags ──
+
+    /** Tag for the global publication lists (/api/publications, /feed, /area, /clusters). */
+    public String publicationsTag() {
+        return epoch + "." + all.get() + "." + publications.get();
+    }
+
+    /** Tag for a public profile; the viewer is part of it because isFollowing is per viewer. */
+    public String profileTag(long userId, Long viewerId) {
+        return epoch + "." + all.get() + "." + users.get(stripe(userId)) + "." + userId
+                + "." + (viewerId != null ? viewerId : 0);
+    }
+
+    public String commentsTag(long publicationId) {
+        return epoch + "." + all.get() + "." + comments.get(stripe(publicationId)) + "." + publicationId;
+    }
+
+    // ── Writes ──
+
+    /** A post of {@code authorId} was created, edited or deleted. */
+    public void publicationChanged(long authorId) {
+        afterCommit(() -> {
+            publications.incrementAndGet();
+            users.incrementAndGet(stripe(authorId));
+        });
+    }
+
+    /** A post of {@code authorId} was liked or unliked: only the author's profile tag covers its counts. */
+    public void countersChanged(long authorId) {
+        afterCommit(() -> users.incrementAndGet(stripe(authorId)));
+    }
+
+    /** A comment was added to or removed from a post of {@code authorId}. */
+    public void commentsChanged(long publicationId, long authorId) {
+        afterCommit(() -> comments.incrementAndGet(stripe(publicationId)));
+        countersChanged(authorId);
+    }
+
+    public void followChanged(long followerId, long followedId) {
+        afterCommit(() -> {
+            users.incrementAndGet(stripe(followerId));
+            users.incrementAndGet(stripe(followedId));
+        });
+    }
+
+    /** Invalidates every tag; for rare changes that fan out across many listings. */
+    public void invalidateAll() {
+        afterCommit(all::incrementAndGet);
+    }
+
+    private static int stripe(long id) {
+        return (int) (id ^ (id >>> 32)) & (STRIPES - 1);
+    }
+
+    private static void afterCommit(Runnable bump) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package com.scubex.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Write-behind buffer for like counts.
+ *
+ * Likes and unlikes add +1/-1 to a per-publication {@link LongAdder}, which stripes
+ * contended updates across cells instead of serialising them on one row lock.
+ * LikeCounterFlushScheduler periodically drains the deltas into publications.likeCount.
+ * The PublicationLike rows stay authoritative for who liked what; this only buffers the count.
+ *
+ * A like's delta enters the buffer only once its transaction commits, so a rolled-back like
+ * leaves no trace. The hourly recount goes through {@link #recountRange} one id range at a
+ * time, resetting that range's deltas as it goes, so a like is not counted by the recount and
+ * then flushed again. Like requests never wait on it.
+ */
+@Component
+public class LikeCounterBuffer {
+
+    // Above this many tracked publications, idle adders are pruned during drain
+    static final int PRUNE_THRESHOLD = 50_000;
+
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    // Flush and recount take turns: deltas drained before a recount must be written before it
+    private final ReentrantLock maintenance = new ReentrantLock();
+
+    public void add(long publicationId, long delta) {
+        pending.computeIfAbsent(publicationId, k -> new LongAdder()).add(delta);
+    }
+
+    /** Adds the delta when the current transaction commits; dropped on rollback. */
+    public void addAfterCommit(long publicationId, long delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(publicationId, delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(publicationId, delta);
+            }
+        });
+    }
+
+    /** Runs a flush (drain and write) so it never straddles the recount of a range. */
+    public void outsideRecount(Runnable flush) {
+        maintenance.lock();
+        try {
+            flush.run();
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code recount} for publications {@code fromId <= id < toId}, which must commit its
+     * own work, then resets the buffered deltas of that range: the recount already counted
+     * those likes. Only a like that commits while the range is being recounted can be missed
+     * or counted twice; the next pass repairs it.
+     */
+    public <T> T recountRange(long fromId, long toId, Supplier<T> recount) {
+        maintenance.lock();
+        try {
+            T result = recount.get();
+            pending.forEach((id, adder) -> {
+                if (id >= fromId && id < toId) adder.reset();
+            });
+            return result;
+        } finally {
+            maintenance.unlock();
+        }
+    }
+
+    /** Delta not yet written to the database (add it to the persisted likeCount). */
+    public long pending(long publicationId) {
+        LongAdder adder = pending.get(publicationId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * Takes every non-zero delta and resets it. {@code sumThenReset} swaps each cell
+     * atomically, so concurrent likes land either in this drain or the next one.
+     *
+     * Adders stay in the map between drains: removing one can race with a like that
+     * already holds it. Only past {@link #PRUNE_THRESHOLD} are idle adders dropped; a
+     * like lost to that race is repaired by the hourly counter reconciliation.
+     */
+    public Map<Long, Long> drain() {
+        boolean prune = pending.size() > PRUNE_THRESHOLD;
+        Map<Long, Long> deltas = new HashMap<>();
+        for (Map.Entry<Long, LongAdder> e : pending.entrySet()) {
+            long delta = e.getValue().sumThenReset();
+            if (delta != 0) {
+                deltas.put(e.getKey(), delta);
+            } else if (prune) {
+                pending.remove(e.getKey(), e.getValue());
+            }
+        }
+        return deltas;
+    }
+
+    /** Puts deltas back after a failed flush so they are retried on the next run. */
+    public void restore(Map<Long, Long> deltas) {
+        deltas.forEach(this::add);
+    }
+
+    public int size() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,381 @@
+package com.scubex.cache;
+
+import java.util.Arrays;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.scubex.geo.HilbertCurve;
+
+/**
+ * In-process spatial index of publication locations for map viewport queries.
+ *
+ * Rows live in parallel primitive arrays sorted by Hilbert key, so a viewport is the same
+ * handful of key ranges the database uses (see {@link HilbertCurve#cover}), each found by
+ * binary search and scanned in order: an implicit quadtree with no per-node objects.
+ * Only the ids of the page that is returned go to the database to be hydrated.
+ *
+ * Writes never touch the sorted base. New rows go to a small delta and removed ids to a
+ * sorted array; both are copied on write and published together with the base in one
+ * immutable {@link State}, so readers never lock. Every {@link #COMPACT_THRESHOLD} changes
+ * the delta is merged into a new base.
+ *
+ * Like {@link LikeCounterBuffer}, this assumes a single backend instance: posts created
+ * on another instance only show up after its next reload.
+ */
+@Component
+public class PublicationLocationIndex {
+
+    static final int COMPACT_THRESHOLD = 1024;
+
+    private volatile State state = new State(Block.EMPTY, Block.EMPTY, new long[0]);
+    private volatile boolean loaded;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /** Rows in the index, not counting removals still waiting for a compaction. */
+    public int size() {
+        State s = state;
+        return s.base.size() + s.delta.size();
+    }
+
+    public synchronized void add(long id, long spatialKey, double lat, double lng, long createdAtMillis) {
+        State s = state;
+        state = compactIfNeeded(new State(s.base, s.delta.append(id, spatialKey, lat, lng, createdAtMillis), s.removed));
+    }
+
+    /** Adds the row when the current transaction commits; dropped on rollback. */
+    public void addAfterCommit(long id, long spatialKey, double lat, double lng, long createdAtMillis) {
+        afterCommit(() -> add(id, spatialKey, lat, lng, createdAtMillis));
+    }
+
+    /** Removes the row when the current transaction commits; kept on rollback. */
+    public void removeAfterCommit(long id) {
+        afterCommit(() -> remove(id));
+    }
+
+    public synchronized void remove(long id) {
+        State s = state;
+        int i = s.delta.indexOfId(id);
+        state = compactIfNeeded(i >= 0
+                ? new State(s.base, s.delta.without(i), s.removed)
+                : new State(s.base, s.delta, insertSorted(s.removed, id)));
+    }
+
+    /**
+     * Replaces the base with a freshly loaded one. Changes made while it was loading are
+     * kept: added rows win over their loaded copy and removals still apply.
+     */
+    public synchronized void install(Builder loaded) {
+        State s = state;
+        long[] deltaIds = s.delta.ids.clone();
+        Arrays.sort(deltaIds);
+        Block base = loaded.build();
+        state = compact(new State(base.withoutIds(deltaIds), s.delta, s.removed));
+        this.loaded = true;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    /**
+     * Ids of the newest {@code limit} publications (by createdAt, then id) inside the
+     * bounding box, newest first.
+     */
+    public long[] query(double latMin, double latMax, double lngMin, double lngMax, int limit) {
+        State s = state;
+        TopK top = new TopK(limit);
+
+        Block base = s.base;
+        for (HilbertCurve.Range r : HilbertCurve.cover(latMin, latMax, lngMin, lngMax)) {
+            for (int i = lowerBound(base.keys, r.start()); i < base.size() && base.keys[i] <= r.end(); i++) {
+                if (base.inside(i, latMin, latMax, lngMin, lngMax) && !s.isRemoved(base.ids[i])) {
+                    top.offer(base.times[i], base.ids[i]);
+                }
+            }
+        }
+        Block delta = s.delta;
+        for (int i = 0; i < delta.size(); i++) {
+            if (delta.inside(i, latMin, latMax, lngMin, lngMax)) {
+                top.offer(delta.times[i], delta.ids[i]);
+            }
+        }
+        return top.idsNewestFirst();
+    }
+
+    // ── Internals ──
+
+    private record State(Block base, Block delta, long[] removed) {
+        boolean isRemoved(long id) {
+            return removed.length > 0 && Arrays.binarySearch(removed, id) >= 0;
+        }
+    }
+
+    private static State compactIfNeeded(State s) {
+        return s.delta.size() + s.removed.length >= COMPACT_THRESHOLD ? compact(s) : s;
+    }
+
+    /** Merges the key-sorted delta into the base and drops removed rows. */
+    private static State compact(State s) {
+        Block base = s.base, delta = s.delta.sortedByKey();
+        Block.Appender out = new Block.Appender(base.size() + delta.size());
+        int i = 0, j = 0;
+        while (i < base.size() || j < delta.size()) {
+            if (i < base.size() && s.isRemoved(base.ids[i])) {
+                i++;
+            } else if (j >= delta.size() || (i < base.size() && base.keys[i] <= delta.keys[j])) {
+                out.copy(base, i++);
+            } else {
+                out.copy(delta, j++);
+            }
+        }
+        return new State(out.build(), Block.EMPTY, new long[0]);
+    }
+
+    private static long[] insertSorted(long[] sorted, long id) {
+        int pos = Arrays.binarySearch(sorted, id);
+        if (pos >= 0) return sorted;
+        pos = -pos - 1;
+        long[] copy = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, copy, 0, pos);
+        copy[pos] = id;
+        System.arraycopy(sorted, pos, copy, pos + 1, sorted.length - pos);
+        return copy;
+    }
+
+    private static int lowerBound(long[] keys, long key) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** Immutable column block; row i is (keys[i], ids[i], lats[i], lngs[i], times[i]). */
+    static final class Block {
+
+        static final Block EMPTY = new Block(new long[0], new long[0], new double[0], new double[0], new long[0]);
+
+        final long[] keys;
+        final long[] ids;
+        final double[] lats;
+        final double[] lngs;
+        final long[] times;
+
+        Block(long[] keys, long[] ids, double[] lats, double[] lngs, long[] times) {
+            this.keys = keys;
+            this.ids = ids;
+            this.lats = lats;
+            this.lngs = lngs;
+            this.times = times;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        boolean inside(int i, double latMin, double latMax, double lngMin, double lngMax) {
+            return lats[i] >= latMin && lats[i] <= latMax && lngs[i] >= lngMin && lngs[i] <= lngMax;
+        }
+
+        int indexOfId(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) return i;
+            }
+            return -1;
+        }
+
+        Block append(long id, long key, double lat, double lng, long time) {
+            int n = size();
+            Block b = new Block(Arrays.copyOf(keys, n + 1), Arrays.copyOf(ids, n + 1),
+                    Arrays.copyOf(lats, n + 1), Arrays.copyOf(lngs, n + 1), Arrays.copyOf(times, n + 1));
+            b.keys[n] = key;
+            b.ids[n] = id;
+            b.lats[n] = lat;
+            b.lngs[n] = lng;
+            b.times[n] = time;
+            return b;
+        }
+
+        Block without(int row) {
+            Appender out = new Appender(size() - 1);
+            for (int i = 0; i < size(); i++) {
+                if (i != row) out.copy(this, i);
+            }
+            return out.build();
+        }
+
+        /** Rows whose id is not in {@code sortedIds}. */
+        Block withoutIds(long[] sortedIds) {
+            if (sortedIds.length == 0) return this;
+            Appender out = new Appender(size());
+            for (int i = 0; i < size(); i++) {
+                if (Arrays.binarySearch(sortedIds, ids[i]) < 0) out.copy(this, i);
+            }
+            return out.build();
+        }
+
+        /** Same rows ordered by key. Keys fit in 32 bits, so (key, row) packs into one long and sorts without boxing. */
+        Block sortedByKey() {
+            int n = size();
+            long[] packed = new long[n];
+            for (int i = 0; i < n; i++) {
+                packed[i] = (keys[i] << 31) | i;
+            }
+            Arrays.sort(packed);
+            Appender out = new Appender(n);
+            for (long p : packed) {
+                out.copy(this, (int) (p & 0x7FFFFFFFL));
+            }
+            return out.build();
+        }
+
+        /** Growable column arrays, trimmed on {@link #build()}. */
+        static final class Appender {
+            private long[] keys, ids, times;
+            private double[] lats, lngs;
+            private int size;
+
+            Appender(int capacity) {
+                capacity = Math.max(capacity, 16);
+                keys = new long[capacity];
+                ids = new long[capacity];
+                lats = new double[capacity];
+                lngs = new double[capacity];
+                times = new long[capacity];
+            }
+
+            void add(long id, long key, double lat, double lng, long time) {
+                if (size == ids.length) grow();
+                keys[size] = key;
+                ids[size] = id;
+                lats[size] = lat;
+                lngs[size] = lng;
+                times[size] = time;
+                size++;
+            }
+
+            void copy(Block from, int i) {
+                add(from.ids[i], from.keys[i], from.lats[i], from.lngs[i], from.times[i]);
+            }
+
+            private void grow() {
+                int capacity = ids.length * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+                lngs = Arrays.copyOf(lngs, capacity);
+                times = Arrays.copyOf(times, capacity);
+            }
+
+            Block build() {
+                return new Block(Arrays.copyOf(keys, size), Arrays.copyOf(ids, size),
+                        Arrays.copyOf(lats, size), Arrays.copyOf(lngs, size), Arrays.copyOf(times, size));
+            }
+        }
+    }
+
+    /** Collects rows for {@link #install}; they may arrive in any order. */
+    public static final class Builder {
+        private final Block.Appender rows = new Block.Appender(1024);
+
+        public Builder add(long id, long spatialKey, double lat, double lng, long createdAtMillis) {
+            rows.add(id, spatialKey, lat, lng, createdAtMillis);
+            return this;
+        }
+
+        Block build() {
+            return rows.build().sortedByKey();
+        }
+    }
+
+    /** Bounded min-heap on (time, id) keeping the {@code k} newest rows. */
+    static final class TopK {
+        private final long[] times;
+        private final long[] ids;
+        private int size;
+
+        TopK(int k) {
+            times = new long[Math.max(0, k)];
+            ids = new long[Math.max(0, k)];
+        }
+
+        void offer(long time, long id) {
+            if (times.length == 0) return;
+            if (size < times.length) {
+                times[size] = time;
+                ids[size] = id;
+                siftUp(size++);
+            } else if (older(0, time, id)) {
+                times[0] = time;
+                ids[0] = id;
+                siftDown(0);
+            }
+        }
+
+        long[] idsNewestFirst() {
+            long[] out = new long[size];
+            for (int i = out.length - 1; i >= 0; i--) {
+                out[i] = ids[0];
+                size--;
+                times[0] = times[size];
+                ids[0] = ids[size];
+                siftDown(0);
+            }
+            return out;
+        }
+
+        // Heap slot i holds an older row than (time, id)
+        private boolean older(int i, long time, long id) {
+            return times[i] < time || (times[i] == time && ids[i] < id);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!older(i, times[parent], ids[parent])) break;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1, right = left + 1, oldest = i;
+                if (left < size && older(left, times[oldest], ids[oldest])) oldest = left;
+                if (right < size && older(right, times[oldest], ids[oldest])) oldest = right;
+                if (oldest == i) return;
+                swap(i, oldest);
+                i = oldest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long t = times[a];
+            times[a] = times[b];
+            times[b] = t;
+            long d = ids[a];
+            ids[a] = ids[b];
+            ids[b] = d;
+        }
+    }
+}
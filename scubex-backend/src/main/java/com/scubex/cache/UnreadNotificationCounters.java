@@ -0,0 +1,80 @@
+package com.scubex.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory copy of users.unreadNotificationCount, so the unread badge and the notification
+ * stream answer without touching the database.
+ *
+ * Counters are loaded on first read after a restart and then patched with the same deltas
+ * NotificationService writes to the column, <b>after commit</b>. A read that loads a counter
+ * while a change is committing can end up off by that change; the hourly reconciliation
+ * recounts the column and clears this cache. Like {@link LikeCounterBuffer}, this assumes a
+ * single backend instance.
+ */
+@Component
+public class UnreadNotificationCounters {
+
+    // Past this many users the cache is dropped and refilled by the next reads
+    static final int MAX_ENTRIES = 100_000;
+
+    private final Map<Long, AtomicLong> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Cached count of {@code userId}, loading it with {@code loader} on a miss. The loader
+     * queries (and may write) the database, so it runs outside the map: two readers missing
+     * at once both load, and the first to store its value wins.
+     */
+    public long get(long userId, LongSupplier loader) {
+        AtomicLong count = counts.get(userId);
+        if (count != null) return count.get();
+        AtomicLong loaded = new AtomicLong(loader.getAsLong());
+        if (counts.size() >= MAX_ENTRIES) counts.clear();
+        AtomicLong existing = counts.putIfAbsent(userId, loaded);
+        return (existing != null ? existing : loaded).get();
+    }
+
+    /** Applies a committed change; users not cached are loaded fresh on their next read. */
+    public void add(long userId, long delta) {
+        if (delta == 0) return;
+        afterCommit(() -> counts.computeIfPresent(userId, (id, count) -> {
+            count.updateAndGet(c -> Math.max(0, c + delta));
+            return count;
+        }));
+    }
+
+    public void reset(long userId) {
+        afterCommit(() -> counts.computeIfPresent(userId, (id, count) -> {
+            count.set(0);
+            return count;
+        }));
+    }
+
+    public void clear() {
+        afterCommit(counts::clear);
+    }
+
+    public int size() {
+        return counts.size();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
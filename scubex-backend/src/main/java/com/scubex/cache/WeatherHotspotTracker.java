@@ -0,0 +1,59 @@
+package com.scubex.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts weather requests per 0.01° cell (same packed key as {@link WeatherMemoryCache}).
+ *
+ * Counts are halved on every {@link #decay()}, so the ranking follows recent traffic
+ * and cells nobody asks for any more fall out of the map on their own.
+ */
+@Component
+public class WeatherHotspotTracker {
+
+    static final int MAX_TRACKED_CELLS = 10_000;
+
+    private final Map<Long, AtomicLong> hits = new ConcurrentHashMap<>();
+
+    public void record(long cellKey) {
+        AtomicLong counter = hits.get(cellKey);
+        if (counter == null) {
+            if (hits.size() >= MAX_TRACKED_CELLS) return; // full until the next decay
+            counter = hits.computeIfAbsent(cellKey, k -> new AtomicLong());
+        }
+        counter.incrementAndGet();
+    }
+
+    public long hits(long cellKey) {
+        AtomicLong counter = hits.get(cellKey);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /** The {@code n} most requested cells with at least {@code minHits}, hottest first. */
+    public List<Long> topCells(int n, long minHits) {
+        if (n <= 0) return List.of();
+        PriorityQueue<Map.Entry<Long, Long>> top = new PriorityQueue<>(n + 1, Map.Entry.comparingByValue());
+        for (Map.Entry<Long, AtomicLong> e : hits.entrySet()) {
+            long count = e.getValue().get();
+            if (count < minHits) continue;
+            top.add(Map.entry(e.getKey(), count));
+            if (top.size() > n) top.poll();
+        }
+        List<Map.Entry<Long, Long>> sorted = new ArrayList<>(top);
+        sorted.sort(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()));
+        return sorted.stream().map(Map.Entry::getKey).toList();
+    }
+
+    /** Halves every counter and forgets cells that drop to zero. */
+    public void decay() {
+        hits.entrySet().removeIf(e -> e.getValue().updateAndGet(v -> v / 2) == 0);
+    }
+}
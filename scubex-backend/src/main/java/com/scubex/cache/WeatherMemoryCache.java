@@ -0,0 +1,188 @@
+package com.scubex.cache;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.scubex.DTO.DailyForecastResponse;
+import com.scubex.DTO.WeatherResponse;
+
+/**
+ * In-process cache of current weather, 7-day forecasts and scored hourly series, sitting in front of
+ * {@code cached_weather} and Open-Meteo.
+ *
+ * Entries are keyed by the 0.01° grid cell packed into a single long
+ * (latitude index in the high 32 bits, longitude index in the low 32 bits),
+ * so lookups never compare rounded doubles. Entries expire after 30 minutes
+ * and each map is bounded to {@link #MAX_ENTRIES} cells.
+ *
+ * The response DTOs are mutable, so they are copied on the way in and out: a caller
+ * changing its copy never changes what other callers get.
+ */
+@Component
+public class WeatherMemoryCache {
+
+    public static final Duration TTL = Duration.ofMinutes(30);
+    static final int MAX_ENTRIES = 5_000;
+
+    private final Cells<WeatherResponse> current = new Cells<>();
+    private final Cells<List<DailyForecastResponse>> forecast = new Cells<>();
+    private final Cells<HourlySeries> hourly = new Cells<>();
+
+    /**
+     * Hourly diving scores for the next 7 days of one cell. {@code time} holds Open-Meteo's
+     * local ISO hours (no offset), {@code utcOffsetSeconds} is the location's offset.
+     * The arrays are treated as read-only once cached.
+     */
+    public record HourlySeries(List<String> time, int utcOffsetSeconds, double[] scores) {}
+
+    /** Grid index of a coordinate on the 0.01° grid (same rounding as the DB cache). */
+    public static int gridIndex(double value) {
+        return (int) Math.round(value * 100.0);
+    }
+
+    public static long cellKey(double lat, double lng) {
+        return pack(gridIndex(lat), gridIndex(lng));
+    }
+
+    public static long pack(int latIndex, int lngIndex) {
+        return ((long) latIndex << 32) | (lngIndex & 0xFFFFFFFFL);
+    }
+
+    public static double cellLat(long key) {
+        return (int) (key >> 32) / 100.0;
+    }
+
+    public static double cellLng(long key) {
+        return (int) key / 100.0;
+    }
+
+    // ── Current conditions ──
+
+    public WeatherResponse get(long key) {
+        WeatherResponse cached = current.get(key);
+        return cached != null ? copy(cached) : null;
+    }
+
+    /** Caches a freshly fetched response for the full TTL. */
+    public void put(long key, WeatherResponse response) {
+        current.put(key, copy(response), Instant.now());
+    }
+
+    /** Caches a response fetched at {@code fetchedAt}, expiring TTL after that instant. */
+    public void put(long key, WeatherResponse response, Instant fetchedAt) {
+        current.put(key, copy(response), fetchedAt);
+    }
+
+    /** True if the cell is missing or will expire within {@code window}. */
+    public boolean expiresWithin(long key, Duration window) {
+        return current.expiresWithin(key, window);
+    }
+
+    public void invalidate(long key) {
+        current.remove(key);
+    }
+
+    public int size() {
+        return current.size();
+    }
+
+    // ── 7-day forecast ──
+
+    public List<DailyForecastResponse> getForecast(long key) {
+        List<DailyForecastResponse> cached = forecast.get(key);
+        return cached != null ? copyDays(cached) : null;
+    }
+
+    public void putForecast(long key, List<DailyForecastResponse> days) {
+        forecast.put(key, copyDays(days), Instant.now());
+    }
+
+    public boolean forecastExpiresWithin(long key, Duration window) {
+        return forecast.expiresWithin(key, window);
+    }
+
+    // ── Hourly scores ──
+
+    public HourlySeries getHourly(long key) {
+        return hourly.get(key);
+    }
+
+    public void putHourly(long key, HourlySeries series) {
+        hourly.put(key, series, Instant.now());
+    }
+
+    // ── Copies ──
+
+    private static WeatherResponse copy(WeatherResponse response) {
+        return response.toBuilder().build();
+    }
+
+    private static List<DailyForecastResponse> copyDays(List<DailyForecastResponse> days) {
+        return days.stream().map(d -> d.toBuilder().build()).toList();
+    }
+
+    /** TTL-bounded map of grid cells; evicts only when the size bound is hit. */
+    private static final class Cells<V> {
+
+        private record Entry<V>(V value, long expiresAtMillis) {}
+
+        private final Map<Long, Entry<V>> entries = new ConcurrentHashMap<>();
+
+        V get(long key) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) return null;
+            if (entry.expiresAtMillis() <= System.currentTimeMillis()) {
+                entries.remove(key, entry);
+                return null;
+            }
+            return entry.value();
+        }
+
+        void put(long key, V value, Instant fetchedAt) {
+            long expiresAt = fetchedAt.plus(TTL).toEpochMilli();
+            if (expiresAt <= System.currentTimeMillis()) return;
+            if (entries.size() >= MAX_ENTRIES && !entries.containsKey(key)) {
+                evict();
+            }
+            entries.put(key, new Entry<>(value, expiresAt));
+        }
+
+        boolean expiresWithin(long key, Duration window) {
+            Entry<V> entry = entries.get(key);
+            return entry == null || entry.expiresAtMillis() <= System.currentTimeMillis() + window.toMillis();
+        }
+
+        void remove(long key) {
+            entries.remove(key);
+        }
+
+        int size() {
+            return entries.size();
+        }
+
+        /**
+         * Drops expired entries; if the map is still full, drops the entry closest
+         * to expiry. Only runs when the bound is hit, so the O(n) scan is rare.
+         */
+        private void evict() {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(e -> e.expiresAtMillis() <= now);
+            if (entries.size() < MAX_ENTRIES) return;
+
+            Long oldestKey = null;
+            long oldestExpiry = Long.MAX_VALUE;
+            for (Map.Entry<Long, Entry<V>> e : entries.entrySet()) {
+                if (e.getValue().expiresAtMillis() < oldestExpiry) {
+                    oldestExpiry = e.getValue().expiresAtMillis();
+                    oldestKey = e.getKey();
+                }
+            }
+            if (oldestKey != null) entries.remove(oldestKey);
+        }
+    }
+}
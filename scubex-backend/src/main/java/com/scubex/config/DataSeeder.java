@@ -2,6 +2,9 @@ package com.scubex.config;
 
 import com.scubex.model.*;
 import com.scubex.repository.*;
+import com.scubex.service.PublicationClusterService;
+import com.scubex.service.PublicationService;
+import com.scubex.service.TimelineService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.ApplicationArguments;
@@ -32,6 +35,9 @@ public class DataSeeder implements ApplicationRunner {
     private final PublicationLikeRepository likeRepository;
     private final PublicationSaveRepository saveRepository;
     private final UserFollowRepository followRepository;
+    private final TimelineService timelineService;
+    private final PublicationClusterService clusterService;
+    private final PublicationService publicationService;
 
     @Override
     @Transactional
@@ -199,6 +205,8 @@ public class DataSeeder implements ApplicationRunner {
                 follow(laura, ana),     follow(laura, javier),  follow(laura, carlos)
         );
         followRepository.saveAll(follows);
+        // Posts already exist, so fill the home timelines as a real follow would
+        follows.forEach(f -> timelineService.onFollow(f.getFollower(), f.getFollowed()));
 
         // ── Likes ─────────────────────────────────────────────────────────────────
         // p1 – Illes Medes
@@ -320,6 +328,13 @@ public class DataSeeder implements ApplicationRunner {
                 save(p14, maria),  save(p14, pedro),
                 save(p15, carlos), save(p15, javier)
         ));
+
+        // Likes, comments and follows were inserted directly, so fill the denormalised counters in one go
+        publicationRepository.reconcileLikeCounts(0, Long.MAX_VALUE);
+        publicationRepository.reconcileCommentCounts();
+        userRepository.reconcileFollowerCounts();
+        clusterService.rebuild();
+        publicationService.reloadLocationIndex();
     }
 
     // ── Helpers ───────────────────────────────────────────────────────────────────
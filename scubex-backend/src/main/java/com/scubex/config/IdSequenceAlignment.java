@@ -0,0 +1,77 @@
+package com.scubex.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Moves the id sequences past rows inserted while their tables still used identity columns.
+ * ddl-auto creates a new sequence at 1, which on an existing database would hand out ids
+ * that are already taken. A sequence that is already ahead is left alone, so after the first
+ * run this only costs one nextval per table.
+ *
+ * Runs while the bean is initialised, i.e. before the web server accepts requests; beans that
+ * insert on their own (the notification writer) declare {@code @DependsOn} on it.
+ */
+@Slf4j
+@Component
+public class IdSequenceAlignment {
+
+    // Must match allocationSize on the entities' @SequenceGenerator
+    static final int ALLOCATION_SIZE = 50;
+
+    // table -> sequence
+    static final Map<String, String> SEQUENCES = Map.of(
+            "notifications", "notifications_seq",
+            "notification_outbox", "notification_outbox_seq",
+            "comments", "comments_seq",
+            "user_follows", "user_follows_seq");
+
+    private final EntityManager entityManager;
+    private final Dialect dialect;
+    private final TransactionTemplate transactionTemplate;
+
+    public IdSequenceAlignment(EntityManager entityManager,
+                               EntityManagerFactory entityManagerFactory,
+                               PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void align() {
+        SEQUENCES.forEach((table, sequence) -> transactionTemplate.executeWithoutResult(status -> {
+            Number maxId = (Number) entityManager.createNativeQuery("SELECT MAX(id) FROM " + table).getSingleResult();
+            if (maxId == null) return;
+            Number next = (Number) entityManager.createNativeQuery(
+                    dialect.getSequenceSupport().getSequenceNextValString(sequence)).getSingleResult();
+            OptionalLong restart = restartValue(maxId.longValue(), next.longValue());
+            if (restart.isEmpty()) return;
+            entityManager.createNativeQuery("ALTER SEQUENCE " + sequence + " RESTART WITH " + restart.getAsLong())
+                    .executeUpdate();
+            log.info("IdSequenceAlignment: {} restarted at {} (max {}.id is {})",
+                    sequence, restart.getAsLong(), table, maxId);
+        }));
+    }
+
+    /**
+     * Where to restart a sequence whose value {@code next} could produce ids up to {@code maxId},
+     * or empty if it is already clear. The pooled optimizer turns a sequence value into the block
+     * {@code next - ALLOCATION_SIZE + 1 .. next}, so a sequence ahead by less than one block still
+     * collides. The restart leaves a full block past the last id, whichever end Hibernate hands out first.
+     */
+    static OptionalLong restartValue(long maxId, long next) {
+        if (next - ALLOCATION_SIZE >= maxId) return OptionalLong.empty();
+        return OptionalLong.of(maxId + ALLOCATION_SIZE + 1);
+    }
+}
@@ -0,0 +1,45 @@
+package com.scubex.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Makes notifications.last_activity_at NOT NULL: the notification list, markReadUpTo and
+ * retention are keyed on it. Rows written before it was always set get their createdAt.
+ * The indexes on created_at it replaces are dropped. Once the column is NOT NULL this only
+ * costs one catalog lookup.
+ *
+ * Runs while the bean is initialised, i.e. before the web server accepts requests; the
+ * notification writer, which folds into aggregates by last_activity_at, declares {@code @DependsOn} on it.
+ */
+@Slf4j
+@Component
+public class NotificationActivityMigration {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public NotificationActivityMigration(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void migrate() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!SchemaColumns.isNullable(entityManager, "notifications", "last_activity_at")) return;
+            int filled = entityManager.createNativeQuery(
+                    "UPDATE notifications SET last_activity_at = created_at WHERE last_activity_at IS NULL")
+                    .executeUpdate();
+            entityManager.createNativeQuery("ALTER TABLE notifications ALTER COLUMN last_activity_at SET NOT NULL")
+                    .executeUpdate();
+            entityManager.createNativeQuery("DROP INDEX IF EXISTS idx_notification_recipient_feed").executeUpdate();
+            entityManager.createNativeQuery("DROP INDEX IF EXISTS idx_notification_created").executeUpdate();
+            log.info("NotificationActivityMigration: last_activity_at set NOT NULL, filled {} rows", filled);
+        });
+    }
+}
@@ -0,0 +1,20 @@
+package com.scubex.config;
+
+import jakarta.persistence.EntityManager;
+
+/** Catalog lookups for the startup steps that finish what ddl-auto can't do to an existing table. */
+final class SchemaColumns {
+
+    private SchemaColumns() {}
+
+    /** Whether the column exists and still allows NULL; table and column as the database names them. */
+    static boolean isNullable(EntityManager entityManager, String table, String column) {
+        Number nullable = (Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE LOWER(table_name) = :table AND LOWER(column_name) = :column AND is_nullable = 'YES'")
+                .setParameter("table", table)
+                .setParameter("column", column)
+                .getSingleResult();
+        return nullable.longValue() > 0;
+    }
+}
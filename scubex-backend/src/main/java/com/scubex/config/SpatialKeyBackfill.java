@@ -0,0 +1,72 @@
+package com.scubex.config;
+
+import com.scubex.cache.PublicationLocationIndex;
+import com.scubex.DTO.PublicationLocation;
+import com.scubex.geo.HilbertCurve;
+import com.scubex.repository.PublicationRepository;
+import com.scubex.service.PublicationClusterService;
+import com.scubex.service.PublicationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills publications.spatialKey for rows created before the column existed.
+ * New rows get it in Publication's @PrePersist, so after the first run this finds nothing.
+ * Only the coordinates are read and the keys are written with bulk UPDATEs, so entity
+ * callbacks don't run: a key-only backfill must not stamp updatedAt on every legacy post.
+ * Works in id-ordered batches, one transaction each.
+ * The map clusters and the in-memory location index are derived from the keys, so they are
+ * built here too: the clusters the first time, the index on every start.
+ */
+@Slf4j
+@Component
+public class SpatialKeyBackfill implements ApplicationRunner {
+
+    static final int BATCH_SIZE = 500;
+
+    private final PublicationRepository publicationRepository;
+    private final PublicationClusterService clusterService;
+    private final PublicationService publicationService;
+    private final PublicationLocationIndex locationIndex;
+    private final TransactionTemplate transactionTemplate;
+
+    public SpatialKeyBackfill(PublicationRepository publicationRepository,
+                              PublicationClusterService clusterService,
+                              PublicationService publicationService,
+                              PublicationLocationIndex locationIndex,
+                              PlatformTransactionManager transactionManager) {
+        this.publicationRepository = publicationRepository;
+        this.clusterService = clusterService;
+        this.publicationService = publicationService;
+        this.locationIndex = locationIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int total = 0;
+        long afterId = 0;
+        List<PublicationLocation> batch;
+        do {
+            long from = afterId;
+            batch = transactionTemplate.execute(status -> {
+                List<PublicationLocation> rows = publicationRepository.findUnkeyedLocationsAfter(from, PageRequest.of(0, BATCH_SIZE));
+                rows.forEach(r -> publicationRepository.setSpatialKey(r.id(), HilbertCurve.encode(r.latitude(), r.longitude())));
+                return rows;
+            });
+            total += batch.size();
+            if (!batch.isEmpty()) afterId = batch.get(batch.size() - 1).id();
+        } while (batch.size() == BATCH_SIZE);
+        if (total > 0) log.info("SpatialKeyBackfill: set spatialKey on {} publications", total);
+        clusterService.rebuildIfEmpty();
+        publicationService.reloadLocationIndex();
+        log.info("SpatialKeyBackfill: location index loaded with {} publications", locationIndex.size());
+    }
+}
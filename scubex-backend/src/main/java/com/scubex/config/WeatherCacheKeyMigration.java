@@ -0,0 +1,43 @@
+package com.scubex.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Makes cached_weather.cell_key NOT NULL once its legacy rows are gone.
+ * ddl-auto can't add a NOT NULL column without a default to a table that has rows, so the
+ * entity declares it nullable and ddl-auto adds it as such. Rows cached before the column
+ * existed have no key (nor a version) and are dropped instead of backfilled: it is a cache,
+ * and older rows may repeat a cell, which the unique key on cell_key would reject.
+ * Once the column is NOT NULL this only costs one catalog lookup.
+ *
+ * Runs while the bean is initialised, i.e. before the web server accepts requests.
+ */
+@Slf4j
+@Component
+public class WeatherCacheKeyMigration {
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public WeatherCacheKeyMigration(EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void migrate() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!SchemaColumns.isNullable(entityManager, "cached_weather", "cell_key")) return;
+            int dropped = entityManager.createNativeQuery("DELETE FROM cached_weather WHERE cell_key IS NULL")
+                    .executeUpdate();
+            entityManager.createNativeQuery("ALTER TABLE cached_weather ALTER COLUMN cell_key SET NOT NULL")
+                    .executeUpdate();
+            log.info("WeatherCacheKeyMigration: cell_key set NOT NULL, dropped {} unkeyed rows", dropped);
+        });
+    }
+}
@@ -0,0 +1,29 @@
+package com.scubex.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * ETag handling for polled GET endpoints. The tag comes from ContentVersions, so a
+ * matching If-None-Match is answered with 304 before {@code handler} runs any query.
+ *
+ * {@code no-cache} lets clients store the response but makes them revalidate every time
+ * (Spring Security would otherwise send {@code no-store}, and nothing would be revalidated).
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {}
+
+    static ResponseEntity<?> respond(WebRequest request, String etag, Supplier<ResponseEntity<?>> handler) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        ResponseEntity<?> response = handler.get();
+        if (!response.getStatusCode().is2xxSuccessful()) return response;
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(response.getBody());
+    }
+}
@@ -1,5 +1,6 @@
 package com.scubex.controller;
 
+import com.scubex.cache.ContentVersions;
 import com.scubex.model.Comment;
 import com.scubex.model.Publication;
 import com.scubex.model.User;
@@ -9,6 +10,7 @@ import com.scubex.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -20,15 +22,18 @@ public class InteractionController {
     private final InteractionService interactionService;
     private final PublicationService publicationService;
     private final UserService userService;
+    private final ContentVersions versions;
     private final AuthHelper authHelper;
 
     public InteractionController(InteractionService interactionService,
                                  PublicationService publicationService,
                                  UserService userService,
+                                 ContentVersions versions,
                                  AuthHelper authHelper) {
         this.interactionService = interactionService;
         this.publicationService = publicationService;
         this.userService = userService;
+        this.versions = versions;
         this.authHelper = authHelper;
     }
 
@@ -44,6 +49,25 @@ public class InteractionController {
         return ResponseEntity.ok(Map.of("liked", liked, "count", count));
     }
 
+    // Idempotent variants: repeating a PUT or DELETE leaves the same state and count
+    @PutMapping("/like")
+    public ResponseEntity<?> like(@PathVariable Long pubId, Authentication auth) {
+        User user = authHelper.getUser(auth);
+        Publication pub = publicationService.getById(pubId);
+        if (pub == null) return ResponseEntity.status(404).body(Map.of("error", "Publication not found"));
+        interactionService.like(pub, user);
+        return ResponseEntity.ok(Map.of("liked", true, "count", interactionService.getLikeCount(pubId)));
+    }
+
+    @DeleteMapping("/like")
+    public ResponseEntity<?> unlike(@PathVariable Long pubId, Authentication auth) {
+        User user = authHelper.getUser(auth);
+        Publication pub = publicationService.getById(pubId);
+        if (pub == null) return ResponseEntity.status(404).body(Map.of("error", "Publication not found"));
+        interactionService.unlike(pub, user);
+        return ResponseEntity.ok(Map.of("liked", false, "count", interactionService.getLikeCount(pubId)));
+    }
+
     @GetMapping("/like")
     public ResponseEntity<?> getLikeStatus(@PathVariable Long pubId, Authentication auth) {
         Publication pub = publicationService.getById(pubId);
@@ -72,6 +96,24 @@ public class InteractionController {
         return ResponseEntity.ok(Map.of("saved", saved));
     }
 
+    @PutMapping("/save")
+    public ResponseEntity<?> save(@PathVariable Long pubId, Authentication auth) {
+        User user = authHelper.getUser(auth);
+        Publication pub = publicationService.getById(pubId);
+        if (pub == null) return ResponseEntity.status(404).body(Map.of("error", "Publication not found"));
+        interactionService.save(pub, user);
+        return ResponseEntity.ok(Map.of("saved", true));
+    }
+
+    @DeleteMapping("/save")
+    public ResponseEntity<?> unsave(@PathVariable Long pubId, Authentication auth) {
+        User user = authHelper.getUser(auth);
+        Publication pub = publicationService.getById(pubId);
+        if (pub == null) return ResponseEntity.status(404).body(Map.of("error", "Publication not found"));
+        interactionService.unsave(pub, user);
+        return ResponseEntity.ok(Map.of("saved", false));
+    }
+
     @GetMapping("/save")
     public ResponseEntity<?> getSaveStatus(@PathVariable Long pubId, Authentication auth) {
         Publication pub = publicationService.getById(pubId);
@@ -90,12 +132,14 @@ public class InteractionController {
     // ── Comments ──
 
     @GetMapping("/comments")
-    public ResponseEntity<?> getComments(@PathVariable Long pubId) {
+    public ResponseEntity<?> getComments(@PathVariable Long pubId, WebRequest request) {
         Publication pub = publicationService.getById(pubId);
         if (pub == null) return ResponseEntity.status(404).body(Map.of("error", "Publication not found"));
 
-        List<Comment> comments = interactionService.getComments(pubId);
-        return ResponseEntity.ok(comments.stream().map(this::commentToDto).toList());
+        return ConditionalGet.respond(request, versions.commentsTag(pubId), () -> {
+            List<Comment> comments = interactionService.getComments(pubId);
+            return ResponseEntity.ok(comments.stream().map(this::commentToDto).toList());
+        });
     }
 
     @PostMapping("/comments")
@@ -1,15 +1,19 @@
 package com.scubex.controller;
 
+import com.scubex.DTO.FeedPage;
+import com.scubex.DTO.NotificationView;
 import com.scubex.model.Notification;
 import com.scubex.model.User;
 import com.scubex.service.NotificationService;
+import com.scubex.service.NotificationStream;
 import com.scubex.service.UserService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
 
 @RestController
@@ -17,21 +21,50 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationStream notificationStream;
     private final UserService userService;
     private final AuthHelper authHelper;
 
-    public NotificationController(NotificationService notificationService, UserService userService,
-                                   AuthHelper authHelper) {
+    public NotificationController(NotificationService notificationService, NotificationStream notificationStream,
+                                   UserService userService, AuthHelper authHelper) {
         this.notificationService = notificationService;
+        this.notificationStream = notificationStream;
         this.userService = userService;
         this.authHelper = authHelper;
     }
 
+    /**
+     * Keyset-paginated, newest first: {"items": [...], "nextCursor": "..." | null, "headCursor": ...}.
+     * Pass nextCursor back as {@code cursor} to get the following page. headCursor is the
+     * position of the first item, for {@code POST /read-all?upTo=}.
+     */
     @GetMapping
-    public ResponseEntity<?> getNotifications(Authentication auth) {
+    public ResponseEntity<?> getNotifications(@RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer limit,
+                                              Authentication auth) {
         User user = authHelper.getUser(auth);
-        List<Notification> notifications = notificationService.getNotifications(user);
-        return ResponseEntity.ok(notifications.stream().map(this::toDto).toList());
+        FeedPage<Notification> page;
+        try {
+            page = notificationService.getNotifications(user, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("items", page.items().stream().map(NotificationView::of).toList());
+        result.put("nextCursor", page.nextCursor());
+        result.put("headCursor", page.items().isEmpty() ? null
+                : NotificationService.cursorOf(page.items().get(0)).encode());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Server-Sent Events stream of the caller's new notifications and unread-count changes;
+     * replaces polling /unread-count. See NotificationStream for the event names.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Authentication auth) {
+        User user = authHelper.getUser(auth);
+        return notificationStream.connect(user.getId(), () -> notificationService.getUnreadCount(user));
     }
 
     @GetMapping("/unread-count")
@@ -47,10 +80,19 @@ public class NotificationController {
         return ResponseEntity.ok().build();
     }
 
+    /** Marks everything read, or with {@code upTo} (a headCursor) only what the client has seen. */
     @PostMapping("/read-all")
-    public ResponseEntity<?> markAllRead(Authentication auth) {
+    public ResponseEntity<?> markAllRead(@RequestParam(required = false) String upTo, Authentication auth) {
         User user = authHelper.getUser(auth);
-        notificationService.markAllRead(user);
+        if (upTo == null || upTo.isBlank()) {
+            notificationService.markAllRead(user);
+            return ResponseEntity.ok().build();
+        }
+        try {
+            notificationService.markReadUpTo(user, upTo);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
         return ResponseEntity.ok().build();
     }
 
@@ -60,19 +102,4 @@ public class NotificationController {
         notificationService.deleteNotification(id, user);
         return ResponseEntity.ok().build();
     }
-
-    private Map<String, Object> toDto(Notification n) {
-        Map<String, Object> map = new LinkedHashMap<>();
-        map.put("id", n.getId());
-        map.put("type", n.getType().name());
-        map.put("read", n.isRead());
-        map.put("createdAt", n.getCreatedAt().toString());
-        map.put("actorName", n.getActorName() != null ? n.getActorName() : "");
-        map.put("actorPicture", n.getActorPicture() != null ? n.getActorPicture() : "");
-        map.put("actorEmail", n.getActorEmail() != null ? n.getActorEmail() : "");
-        map.put("publicationId", n.getPublicationId());
-        map.put("publicationTitle", n.getPublicationTitle() != null ? n.getPublicationTitle() : "");
-        map.put("commentSnippet", n.getCommentSnippet() != null ? n.getCommentSnippet() : "");
-        return map;
-    }
 }
@@ -1,13 +1,21 @@
 package com.scubex.controller;
 
+import com.scubex.DTO.FeedPage;
+import com.scubex.DTO.InteractionState;
+import com.scubex.DTO.MapCluster;
+import com.scubex.DTO.PublicationView;
+import com.scubex.cache.ContentVersions;
 import com.scubex.model.Publication;
 import com.scubex.model.User;
 import com.scubex.service.InteractionService;
+import com.scubex.service.PublicationClusterService;
 import com.scubex.service.PublicationService;
+import com.scubex.service.TimelineService;
 import com.scubex.service.UserService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -17,16 +25,26 @@ import java.util.Map;
 @RequestMapping("/api/publications")
 public class PublicationController {
 
+    static final int MAX_INTERACTION_IDS = 100;
+
     private final PublicationService publicationService;
     private final UserService userService;
     private final InteractionService interactionService;
+    private final TimelineService timelineService;
+    private final PublicationClusterService clusterService;
+    private final ContentVersions versions;
     private final AuthHelper authHelper;
 
     public PublicationController(PublicationService publicationService, UserService userService,
-                                 InteractionService interactionService, AuthHelper authHelper) {
+                                 InteractionService interactionService, TimelineService timelineService,
+                                 PublicationClusterService clusterService, ContentVersions versions,
+                                 AuthHelper authHelper) {
         this.publicationService = publicationService;
         this.userService = userService;
         this.interactionService = interactionService;
+        this.timelineService = timelineService;
+        this.clusterService = clusterService;
+        this.versions = versions;
         this.authHelper = authHelper;
     }
 
@@ -57,10 +75,48 @@ public class PublicationController {
         return ResponseEntity.ok(toDto(saved));
     }
 
+    // Deprecated: only the newest feed.list-max-results, no paging. Kept for old clients; use /feed.
+    // The list endpoints below answer 304 to a matching If-None-Match (see ConditionalGet).
+    // Their tag ignores like and comment counts, which can be older than /interactions
+    @Deprecated
     @GetMapping
-    public ResponseEntity<?> getAll() {
-        List<Publication> publications = publicationService.getAll();
-        return ResponseEntity.ok(publications.stream().map(this::toDto).toList());
+    public ResponseEntity<?> getAll(WebRequest request) {
+        return ConditionalGet.respond(request, versions.publicationsTag(),
+                () -> ResponseEntity.ok(interactionService.withPendingLikes(publicationService.getAll())));
+    }
+
+    /**
+     * Keyset-paginated feed: {"items": [...], "nextCursor": "..." | null}.
+     * Pass nextCursor back as {@code cursor} to get the following page.
+     */
+    @GetMapping("/feed")
+    public ResponseEntity<?> getFeed(@RequestParam(required = false) String cursor,
+                                     @RequestParam(required = false) Integer limit,
+                                     WebRequest request) {
+        return ConditionalGet.respond(request, versions.publicationsTag(), () -> {
+            FeedPage<PublicationView> page;
+            try {
+                page = publicationService.getFeed(cursor, limit);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+            }
+            return ResponseEntity.ok(toPageDto(interactionService.withPendingLikes(page.items()), page.nextCursor()));
+        });
+    }
+
+    /** Home timeline: posts from accounts the current user follows, same paging as /feed. */
+    @GetMapping("/following")
+    public ResponseEntity<?> getFollowing(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer limit,
+                                          Authentication auth) {
+        User user = authHelper.getUser(auth);
+        FeedPage<Publication> page;
+        try {
+            page = timelineService.getTimeline(user, cursor, publicationService.pageSize(limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+        }
+        return ResponseEntity.ok(toPageDto(page.items().stream().map(this::toDto).toList(), page.nextCursor()));
     }
 
     @GetMapping("/area")
@@ -68,9 +124,46 @@ public class PublicationController {
             @RequestParam Double latMin,
             @RequestParam Double latMax,
             @RequestParam Double lngMin,
-            @RequestParam Double lngMax) {
-        List<Publication> publications = publicationService.getInArea(latMin, latMax, lngMin, lngMax);
-        return ResponseEntity.ok(publications.stream().map(this::toDto).toList());
+            @RequestParam Double lngMax,
+            @RequestParam(required = false) Integer limit,
+            WebRequest request) {
+        return ConditionalGet.respond(request, versions.publicationsTag(), () -> {
+            List<PublicationView> publications = publicationService.getInArea(latMin, latMax, lngMin, lngMax, limit);
+            return ResponseEntity.ok(interactionService.withPendingLikes(publications));
+        });
+    }
+
+    /** Map markers for a zoom level: one entry per cell with the post count, centroid and newest post. */
+    @GetMapping("/clusters")
+    public ResponseEntity<?> getClusters(
+            @RequestParam Double latMin,
+            @RequestParam Double latMax,
+            @RequestParam Double lngMin,
+            @RequestParam Double lngMax,
+            @RequestParam int zoom,
+            WebRequest request) {
+        if (zoom < 0 || zoom > 22) {
+            return ResponseEntity.badRequest().body(Map.of("error", "zoom must be between 0 and 22"));
+        }
+        return ConditionalGet.respond(request, versions.publicationsTag(), () -> {
+            List<MapCluster> clusters = clusterService.getClusters(latMin, latMax, lngMin, lngMax, zoom);
+            return ResponseEntity.ok(clusters.stream().map(this::toClusterDto).toList());
+        });
+    }
+
+    /**
+     * The caller's liked/saved flags plus like and comment counts for a page of posts
+     * ({@code ?ids=1,2,3}), instead of a GET /like and GET /save per post.
+     * Anonymous callers get false flags.
+     */
+    @GetMapping("/interactions")
+    public ResponseEntity<?> getInteractions(@RequestParam List<Long> ids, Authentication auth) {
+        if (ids.size() > MAX_INTERACTION_IDS) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + MAX_INTERACTION_IDS + " ids per request"));
+        }
+        User user = auth != null ? userService.findByGoogleId(auth.getName()) : null;
+        List<InteractionState> states = interactionService.getStates(ids, user);
+        return ResponseEntity.ok(states);
     }
 
     @GetMapping("/{id}")
@@ -85,8 +178,7 @@ public class PublicationController {
     @GetMapping("/mine")
     public ResponseEntity<?> getMine(Authentication auth) {
         User user = authHelper.getUser(auth);
-        List<Publication> publications = publicationService.getByUser(user);
-        return ResponseEntity.ok(publications.stream().map(this::toDto).toList());
+        return ResponseEntity.ok(interactionService.withPendingLikes(publicationService.getByUser(user)));
     }
 
     @PutMapping("/{id}")
@@ -117,22 +209,23 @@ public class PublicationController {
         return ResponseEntity.ok(Map.of("success", true));
     }
 
-    private Map<String, Object> toDto(Publication p) {
+    private Map<String, Object> toPageDto(List<PublicationView> items, String nextCursor) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("items", items);
+        result.put("nextCursor", nextCursor);
+        return result;
+    }
+
+    private Map<String, Object> toClusterDto(MapCluster c) {
         Map<String, Object> dto = new HashMap<>();
-        dto.put("id", p.getId());
-        dto.put("title", p.getTitle());
-        dto.put("description", p.getDescription() != null ? p.getDescription() : "");
-        dto.put("imageUrl", p.getImageUrl() != null ? p.getImageUrl() : "");
-        dto.put("latitude", p.getLatitude());
-        dto.put("longitude", p.getLongitude());
-        dto.put("createdAt", p.getCreatedAt().toString());
-        dto.put("author", Map.of(
-                "email", p.getUser().getEmail() != null ? p.getUser().getEmail() : "",
-                "name", p.getUser().getDisplayName() != null ? p.getUser().getDisplayName() : "",
-                "picture", p.getUser().getDisplayPicture() != null ? p.getUser().getDisplayPicture() : ""
-        ));
-        dto.put("likeCount", interactionService.getLikeCount(p.getId()));
-        dto.put("commentCount", interactionService.getCommentCount(p.getId()));
+        dto.put("count", c.count());
+        dto.put("latitude", c.latitude());
+        dto.put("longitude", c.longitude());
+        dto.put("publication", c.representative() != null ? interactionService.withPendingLikes(c.representative()) : null);
         return dto;
     }
+
+    private PublicationView toDto(Publication p) {
+        return PublicationView.of(p, interactionService.getLikeCount(p));
+    }
 }
@@ -1,5 +1,7 @@
 package com.scubex.controller;
 
+import com.scubex.DTO.PublicationView;
+import com.scubex.cache.ContentVersions;
 import com.scubex.model.Publication;
 import com.scubex.model.PublicationSave;
 import com.scubex.model.User;
@@ -13,6 +15,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -27,17 +30,19 @@ public class UserPublicController {
     private final PublicationService publicationService;
     private final FollowService followService;
     private final InteractionService interactionService;
+    private final ContentVersions versions;
     private final AuthHelper authHelper;
 
     public UserPublicController(UserService userService, UserRepository userRepository,
                                 PublicationService publicationService,
                                 FollowService followService, InteractionService interactionService,
-                                AuthHelper authHelper) {
+                                ContentVersions versions, AuthHelper authHelper) {
         this.userService = userService;
         this.userRepository = userRepository;
         this.publicationService = publicationService;
         this.followService = followService;
         this.interactionService = interactionService;
+        this.versions = versions;
         this.authHelper = authHelper;
     }
 
@@ -53,36 +58,17 @@ public class UserPublicController {
 
     // ── Public profile ──
 
+    // Answers 304 to a matching If-None-Match before loading posts and counters (see ConditionalGet)
     @GetMapping("/{email}")
-    public ResponseEntity<?> getPublicProfile(@PathVariable String email, Authentication auth) {
+    public ResponseEntity<?> getPublicProfile(@PathVariable String email, Authentication auth, WebRequest request) {
         User user = userService.findByEmail(email);
         if (user == null) {
             return ResponseEntity.status(404).body(Map.of("error", "User not found"));
         }
+        User me = auth != null ? userService.findByGoogleId(auth.getName()) : null;
 
-        List<Publication> publications = publicationService.getByUser(user);
-        long followerCount = followService.getFollowerCount(user.getId());
-        long followingCount = followService.getFollowingCount(user.getId());
-
-        boolean isFollowing = false;
-        if (auth != null) {
-            User me = userService.findByGoogleId(auth.getName());
-            if (me != null) {
-                isFollowing = followService.isFollowing(me.getId(), user.getId());
-            }
-        }
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("name", user.getDisplayName() != null ? user.getDisplayName() : "");
-        result.put("email", user.getEmail());
-        result.put("picture", user.getDisplayPicture() != null ? user.getDisplayPicture() : "");
-        result.put("followerCount", followerCount);
-        result.put("followingCount", followingCount);
-        result.put("isFollowing", isFollowing);
-        result.put("publicationCount", publications.size());
-        result.put("publications", publications.stream().map(this::pubToDto).toList());
-
-        return ResponseEntity.ok(result);
+        return ConditionalGet.respond(request, versions.profileTag(user.getId(), me != null ? me.getId() : null),
+                () -> ResponseEntity.ok(toProfileDto(user, me)));
     }
 
     // ── Follow / Unfollow ──
@@ -131,6 +117,24 @@ public class UserPublicController {
         return ResponseEntity.ok(saves.stream().map(s -> pubToDto(s.getPublication())).toList());
     }
 
+    private Map<String, Object> toProfileDto(User user, User me) {
+        List<PublicationView> publications = interactionService.withPendingLikes(publicationService.getByUser(user));
+        long followerCount = followService.getFollowerCount(user.getId());
+        long followingCount = followService.getFollowingCount(user.getId());
+        boolean isFollowing = me != null && followService.isFollowing(me.getId(), user.getId());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("name", user.getDisplayName() != null ? user.getDisplayName() : "");
+        result.put("email", user.getEmail());
+        result.put("picture", user.getDisplayPicture() != null ? user.getDisplayPicture() : "");
+        result.put("followerCount", followerCount);
+        result.put("followingCount", followingCount);
+        result.put("isFollowing", isFollowing);
+        result.put("publicationCount", publications.size());
+        result.put("publications", publications);
+        return result;
+    }
+
     private Map<String, Object> userToDto(User u) {
         Map<String, Object> dto = new HashMap<>();
         dto.put("name", u.getDisplayName() != null ? u.getDisplayName() : "");
@@ -139,22 +143,7 @@ public class UserPublicController {
         return dto;
     }
 
-    private Map<String, Object> pubToDto(Publication p) {
-        Map<String, Object> dto = new HashMap<>();
-        dto.put("id", p.getId());
-        dto.put("title", p.getTitle());
-        dto.put("description", p.getDescription() != null ? p.getDescription() : "");
-        dto.put("imageUrl", p.getImageUrl() != null ? p.getImageUrl() : "");
-        dto.put("latitude", p.getLatitude());
-        dto.put("longitude", p.getLongitude());
-        dto.put("createdAt", p.getCreatedAt().toString());
-        dto.put("likeCount", interactionService.getLikeCount(p.getId()));
-        dto.put("commentCount", interactionService.getCommentCount(p.getId()));
-        dto.put("author", Map.of(
-                "email", p.getUser().getEmail() != null ? p.getUser().getEmail() : "",
-                "name", p.getUser().getDisplayName() != null ? p.getUser().getDisplayName() : "",
-                "picture", p.getUser().getDisplayPicture() != null ? p.getUser().getDisplayPicture() : ""
-        ));
-        return dto;
+    private PublicationView pubToDto(Publication p) {
+        return PublicationView.of(p, interactionService.getLikeCount(p));
     }
 }
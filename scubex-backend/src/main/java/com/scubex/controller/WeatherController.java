@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.scubex.DTO.DailyForecastResponse;
+import com.scubex.DTO.DiveWindowResponse;
 import com.scubex.DTO.WeatherResponse;
 import com.scubex.service.WeatherService;
 
@@ -71,4 +72,33 @@ public class WeatherController {
         }
         return ResponseEntity.ok(weatherService.getForecast(lat, lng));
     }
+
+    @GetMapping("/dive-windows")
+    @Operation(
+        summary = "Get the best dive windows for the next 7 days",
+        description = "Scores the hourly marine and atmospheric forecast server-side and returns the top "
+                + "non-overlapping windows of consecutive hours, best first. Windows containing a bad hour are excluded"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Dive windows retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid coordinates, window length or count")
+    })
+    public ResponseEntity<List<DiveWindowResponse>> getDiveWindows(
+        @Parameter(description = "Latitude (-90 to 90)", example = "36.722656")
+        @RequestParam double lat,
+        @Parameter(description = "Longitude (-180 to 180)", example = "-3.727697")
+        @RequestParam double lng,
+        @Parameter(description = "Window length in hours (1 to 12)", example = "2")
+        @RequestParam(defaultValue = "2") int hours,
+        @Parameter(description = "Number of windows to return (1 to 10)", example = "3")
+        @RequestParam(defaultValue = "3") int top
+    ) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (hours < 1 || hours > 12 || top < 1 || top > 10) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(weatherService.getDiveWindows(lat, lng, hours, top));
+    }
 }
@@ -0,0 +1,147 @@
+package com.scubex.geo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hilbert-curve keys for latitude/longitude.
+ *
+ * The globe is quantised to a 2^16 x 2^16 grid (about 600 m x 300 m at the equator) and
+ * each cell gets its position along the Hilbert curve. Nearby points get nearby keys, and
+ * any aligned square block of cells is one contiguous key range, so a viewport becomes a
+ * handful of {@code BETWEEN} ranges on a plain B-tree index instead of a latitude scan
+ * that filters longitude row by row.
+ */
+public final class HilbertCurve {
+
+    public static final int ORDER = 16;
+    private static final int SIDE = 1 << ORDER;
+
+    /** Upper bound on ranges per query; neighbours with the smallest gaps are merged beyond it. */
+    public static final int MAX_RANGES = 32;
+
+    /** Inclusive key range. */
+    public record Range(long start, long end) {}
+
+    private HilbertCurve() {}
+
+    public static long encode(double lat, double lng) {
+        return xy2d(lngIndex(lng), latIndex(lat));
+    }
+
+    /** Index of the level-{@code level} cell (2^level cells per side) containing {@code key}. */
+    public static long cellAt(long key, int level) {
+        return key >> (2 * (ORDER - level));
+    }
+
+    /** Converts key ranges to the joined ranges of level-{@code level} cell indexes they touch. */
+    public static List<Range> toLevel(List<Range> ranges, int level) {
+        List<Range> cells = new ArrayList<>(ranges.size());
+        for (Range r : ranges) {
+            cells.add(new Range(cellAt(r.start(), level), cellAt(r.end(), level)));
+        }
+        return join(cells);
+    }
+
+    static int lngIndex(double lng) {
+        return clamp((int) Math.floor((lng + 180.0) / 360.0 * SIDE));
+    }
+
+    static int latIndex(double lat) {
+        return clamp((int) Math.floor((lat + 90.0) / 180.0 * SIDE));
+    }
+
+    private static int clamp(int i) {
+        return Math.max(0, Math.min(SIDE - 1, i));
+    }
+
+    /** Classic iterative xy -> d mapping (rotate/flip each quadrant). */
+    static long xy2d(int x, int y) {
+        long d = 0;
+        for (int s = SIDE / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            d += (long) s * s * ((3 * rx) ^ ry);
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = SIDE - 1 - x;
+                    y = SIDE - 1 - y;
+                }
+                int t = x;
+                x = y;
+                y = t;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Key ranges covering the bounding box (a superset: callers still filter on the exact
+     * coordinates). Cells are subdivided down to about 1/8 of the box's larger side, then
+     * adjacent ranges are joined and the list is coarsened to at most {@link #MAX_RANGES}.
+     */
+    public static List<Range> cover(double latMin, double latMax, double lngMin, double lngMax) {
+        int x0 = lngIndex(lngMin), x1 = lngIndex(lngMax);
+        int y0 = latIndex(latMin), y1 = latIndex(latMax);
+        if (x0 > x1 || y0 > y1) return List.of();
+
+        int span = Math.max(x1 - x0, y1 - y0) + 1;
+        int minCell = Math.max(1, Integer.highestOneBit(span) >> 3);
+
+        List<Range> ranges = new ArrayList<>();
+        cover(0, 0, SIDE, x0, x1, y0, y1, minCell, ranges);
+        ranges.sort(Comparator.comparingLong(Range::start));
+        return coarsen(join(ranges), MAX_RANGES);
+    }
+
+    private static void cover(int cx, int cy, int size, int x0, int x1, int y0, int y1, int minCell,
+                              List<Range> out) {
+        if (cx > x1 || cx + size - 1 < x0 || cy > y1 || cy + size - 1 < y0) return;
+        boolean inside = cx >= x0 && cx + size - 1 <= x1 && cy >= y0 && cy + size - 1 <= y1;
+        if (inside || size <= minCell) {
+            // An aligned block of size 2^k covers 4^k consecutive keys sharing the high bits
+            long cells = (long) size * size;
+            long start = xy2d(cx, cy) / cells * cells;
+            out.add(new Range(start, start + cells - 1));
+            return;
+        }
+        int half = size / 2;
+        cover(cx, cy, half, x0, x1, y0, y1, minCell, out);
+        cover(cx + half, cy, half, x0, x1, y0, y1, minCell, out);
+        cover(cx, cy + half, half, x0, x1, y0, y1, minCell, out);
+        cover(cx + half, cy + half, half, x0, x1, y0, y1, minCell, out);
+    }
+
+    private static List<Range> join(List<Range> sorted) {
+        List<Range> joined = new ArrayList<>();
+        for (Range r : sorted) {
+            if (!joined.isEmpty() && r.start() <= joined.get(joined.size() - 1).end() + 1) {
+                Range last = joined.remove(joined.size() - 1);
+                joined.add(new Range(last.start(), Math.max(last.end(), r.end())));
+            } else {
+                joined.add(r);
+            }
+        }
+        return joined;
+    }
+
+    /** Merges the two neighbours with the smallest gap until at most {@code max} ranges remain. */
+    static List<Range> coarsen(List<Range> ranges, int max) {
+        List<Range> result = new ArrayList<>(ranges);
+        while (result.size() > max) {
+            int best = 0;
+            long bestGap = Long.MAX_VALUE;
+            for (int i = 0; i + 1 < result.size(); i++) {
+                long gap = result.get(i + 1).start() - result.get(i).end();
+                if (gap < bestGap) {
+                    bestGap = gap;
+                    best = i;
+                }
+            }
+            result.set(best, new Range(result.get(best).start(), result.get(best + 1).end()));
+            result.remove(best + 1);
+        }
+        return result;
+    }
+}
@@ -6,8 +6,10 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "cached_weather", indexes = {
-    @Index(name = "idx_cached_weather_coords", columnList = "roundedLat, roundedLng")
+@Table(name = "cached_weather", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_cached_weather_cell", columnNames = {"cellKey"})
+}, indexes = {
+    @Index(name = "idx_cached_weather_created", columnList = "createdAt")
 })
 @Getter
 @Setter
@@ -20,6 +22,16 @@ public class CachedWeather {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    /**
+     * 0.01° grid cell packed into a long (see WeatherMemoryCache.cellKey). One row per cell.
+     * NOT NULL in the database, set by WeatherCacheKeyMigration after ddl-auto has added the column.
+     */
+    @Column
+    private Long cellKey;
+
+    @Version
+    private Long version;
+
     @Column(nullable = false)
     private Double roundedLat;
 
@@ -53,6 +65,6 @@ public class CachedWeather {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = Instant.now();
+        if (createdAt == null) createdAt = Instant.now();
     }
 }
@@ -7,8 +7,9 @@ import java.time.Instant;
 
 @Entity
 @Table(name = "notifications", indexes = {
-    @Index(name = "idx_notification_recipient", columnList = "recipient_id"),
-    @Index(name = "idx_notification_created", columnList = "created_at")
+    // Keyset pages of a user's notifications; also serves every other lookup by recipient
+    @Index(name = "idx_notification_recipient_activity", columnList = "recipient_id, last_activity_at DESC, id DESC"),
+    @Index(name = "idx_notification_last_activity", columnList = "last_activity_at")
 })
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Notification {
@@ -16,7 +17,8 @@ public class Notification {
     public enum Type { FOLLOW, LIKE, COMMENT, MENTION }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificationSeq")
+    @SequenceGenerator(name = "notificationSeq", sequenceName = "notifications_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -52,8 +54,24 @@ public class Notification {
     @Column(length = 200)
     private String commentSnippet;
 
+    // Aggregated LIKE / COMMENT rows (notifications.aggregate-window-minutes): how many distinct
+    // actors (NotificationActor rows) the row stands for, the actor* fields being the latest one.
+    // Null on older rows means 1.
+    @Builder.Default
+    private Integer actorCount = 1;
+
+    // The actor before the latest one, for "Ana, Luis and 22 others"
+    private String previousActorName;
+
+    // createdAt, then moved to "now" each time an actor is folded into the aggregate. The list
+    // is ordered by it (keyset with id), so fresh activity comes first; markReadUpTo, retention
+    // and the aggregation window run on it too. NOT NULL (NotificationActivityMigration)
+    @Column(name = "last_activity_at")
+    private Instant lastActivityAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = Instant.now();
+        lastActivityAt = createdAt;
     }
 }
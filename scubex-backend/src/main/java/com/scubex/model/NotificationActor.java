@@ -0,0 +1,29 @@
+package com.scubex.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One actor folded into an aggregated LIKE / COMMENT notification. The unique key makes
+ * Notification.actorCount a count of distinct actors: one who likes, unlikes and likes
+ * again is already here and is not counted twice.
+ */
+@Entity
+@Table(name = "notification_actors", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_notification_actor", columnNames = {"notification_id", "actor_email"})
+})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class NotificationActor {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificationActorSeq")
+    @SequenceGenerator(name = "notificationActorSeq", sequenceName = "notification_actors_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "notification_id", nullable = false)
+    private Notification notification;
+
+    @Column(name = "actor_email", nullable = false)
+    private String actorEmail;
+}
@@ -0,0 +1,73 @@
+package com.scubex.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+/**
+ * Pending notification event, inserted in the same transaction as the like, comment or
+ * follow that caused it and deleted once NotificationDispatcher has written its
+ * notifications. A failed row waits until {@code nextAttemptAt} before it is claimed again;
+ * rows that keep failing stay behind with {@code attempts} at the limit.
+ */
+@Entity
+@Table(name = "notification_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NotificationOutbox {
+
+    public enum Kind { FOLLOW, LIKE, COMMENT }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificationOutboxSeq")
+    @SequenceGenerator(name = "notificationOutboxSeq", sequenceName = "notification_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Kind kind;
+
+    @Column(nullable = false)
+    private Long actorId;
+
+    @Column(nullable = false)
+    private String actorEmail;
+
+    @Column(nullable = false)
+    private String actorName;
+
+    private String actorPicture;
+
+    // Followed user, or owner of the liked / commented publication
+    @Column(nullable = false)
+    private Long recipientId;
+
+    private Long publicationId;
+
+    @Column(length = 100)
+    private String publicationTitle;
+
+    @Column(length = 500)
+    private String text;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    // Null: due now. Set after a failure, with exponential backoff
+    private Instant nextAttemptAt;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) createdAt = Instant.now();
+    }
+}
@@ -1,14 +1,18 @@
 package com.scubex.model;
 
+import com.scubex.geo.HilbertCurve;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.Instant;
 
 @Entity
 @Table(name = "publications", indexes = {
     @Index(name = "idx_publication_user", columnList = "user_id"),
-    @Index(name = "idx_publication_coords", columnList = "latitude, longitude")
+    @Index(name = "idx_publication_spatial", columnList = "spatialKey"),
+    @Index(name = "idx_publication_feed", columnList = "createdAt DESC, id DESC"),
+    @Index(name = "idx_publication_user_feed", columnList = "user_id, createdAt DESC, id DESC")
 })
 @Getter
 @Setter
@@ -39,18 +43,41 @@ public class Publication {
     @Column(nullable = false)
     private Double longitude;
 
+    // Hilbert-curve key of (latitude, longitude); area queries range-scan it (see HilbertCurve)
+    private Long spatialKey;
+
     @Column(nullable = false)
     private Instant createdAt;
 
     private Instant updatedAt;
 
+    // Denormalised counters, maintained with in-DB increments (see PublicationRepository)
+    // and periodically repaired by PublicationCounterReconciler
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long likeCount = 0L;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long commentCount = 0L;
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) createdAt = Instant.now();
+        updateSpatialKey();
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = Instant.now();
+        updateSpatialKey();
+    }
+
+    public void updateSpatialKey() {
+        if (latitude != null && longitude != null) {
+            spatialKey = HilbertCurve.encode(latitude, longitude);
+        }
     }
 }
@@ -0,0 +1,41 @@
+package com.scubex.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Running aggregate of the publications in one Hilbert cell at one level, kept up to date
+ * by PublicationClusterService on create/delete. The map's cluster view reads these rows
+ * instead of the publications, so its cost depends on the viewport, not on post density.
+ */
+@Entity
+@Table(name = "publication_clusters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PublicationCluster {
+
+    // keyOf(level, cell index at that level): every level lives in its own key range
+    @Id
+    private Long cellKey;
+
+    @Column(nullable = false)
+    private Long publicationCount;
+
+    // Sums rather than averages so adding/removing a post is a plain in-DB increment
+    @Column(nullable = false)
+    private Double latitudeSum;
+
+    @Column(nullable = false)
+    private Double longitudeSum;
+
+    // Newest publication in the cell, shown as the cluster preview
+    @Column(nullable = false)
+    private Long representativeId;
+
+    public static long keyOf(int level, long cell) {
+        return ((long) level << 32) | cell;
+    }
+}
@@ -0,0 +1,42 @@
+package com.scubex.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * A publication delivered to a follower's home timeline (fan-out on write).
+ * createdAt is the publication's own timestamp, not the delivery time, so a
+ * timeline page is one range scan on (user_id, created_at, publication_id).
+ */
+@Entity
+@Table(name = "timeline_entries", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"user_id", "publication_id"})
+}, indexes = {
+    @Index(name = "idx_timeline_user_feed", columnList = "user_id, createdAt DESC, publication_id DESC"),
+    @Index(name = "idx_timeline_publication", columnList = "publication_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TimelineEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Timeline owner (the follower)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "publication_id", nullable = false)
+    private Publication publication;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -2,6 +2,7 @@ package com.scubex.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "users")
@@ -31,6 +32,21 @@ public class User {
 
     private String customPictureUrl;
 
+    // Denormalised count of unread notifications, kept by NotificationService with relative
+    // UPDATEs. New users start at 0; rows from before the column existed are null until counted lazily.
+    // Written on insert only: saving a (possibly stale) User never overwrites the counter. No DB
+    // default, which would count the pre-existing rows as 0 instead of leaving them null
+    @Builder.Default
+    @Column(updatable = false)
+    private Long unreadNotificationCount = 0L;
+
+    // Denormalised follower count, kept by FollowService with relative UPDATEs and repaired by
+    // FollowerCountReconciler. Never written from the entity (a saved User can't overwrite it);
+    // read through UserRepository, so the timeline can tell pulled authors without counting follows
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private Long followerCount;
+
     /** Returns customName if set, otherwise the Google name. */
     public String getDisplayName() {
         return customName != null && !customName.isBlank() ? customName : name;
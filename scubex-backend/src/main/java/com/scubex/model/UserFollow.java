@@ -20,7 +20,8 @@ import java.time.Instant;
 public class UserFollow {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "userFollowSeq")
+    @SequenceGenerator(name = "userFollowSeq", sequenceName = "user_follows_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -17,6 +17,32 @@ public class ForecastApiResponse {
     @JsonProperty("daily")
     private DailyForecast daily;
 
+    @JsonProperty("hourly")
+    private HourlyForecast hourly;
+
+    @JsonProperty("utc_offset_seconds")
+    private Integer utcOffsetSeconds;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class HourlyForecast {
+
+        @JsonProperty("time")
+        private List<String> time;
+
+        @JsonProperty("weather_code")
+        private List<Integer> weatherCode;
+
+        @JsonProperty("wind_speed_10m")
+        private List<Double> windSpeed;
+
+        @JsonProperty("precipitation_probability")
+        private List<Double> precipitationProbability;
+
+        @JsonProperty("visibility")
+        private List<Double> visibility;
+    }
+
     @Data
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class DailyForecast {
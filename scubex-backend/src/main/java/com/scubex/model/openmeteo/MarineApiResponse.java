@@ -17,6 +17,23 @@ public class MarineApiResponse {
     @JsonProperty("daily")
     private DailyMarine daily;
 
+    @JsonProperty("hourly")
+    private HourlyMarine hourly;
+
+    @Data
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class HourlyMarine {
+
+        @JsonProperty("time")
+        private List<String> time;
+
+        @JsonProperty("wave_height")
+        private List<Double> waveHeight;
+
+        @JsonProperty("ocean_current_velocity")
+        private List<Double> oceanCurrentVelocity;
+    }
+
     @Data
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class DailyMarine {
@@ -4,13 +4,19 @@ import java.time.Instant;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.scubex.model.CachedWeather;
 
 public interface CachedWeatherRepository extends JpaRepository<CachedWeather, Long> {
 
-    Optional<CachedWeather> findFirstByRoundedLatAndRoundedLngAndCreatedAtAfter(
-            Double roundedLat, Double roundedLng, Instant after);
+    Optional<CachedWeather> findByCellKey(Long cellKey);
 
-    void deleteByCreatedAtBefore(Instant before);
+    Optional<CachedWeather> findByCellKeyAndCreatedAtAfter(Long cellKey, Instant after);
+
+    @Modifying
+    @Query("DELETE FROM CachedWeather c WHERE c.createdAt < :before")
+    int deleteByCreatedAtBefore(@Param("before") Instant before);
 }
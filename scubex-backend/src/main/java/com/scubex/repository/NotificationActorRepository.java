@@ -0,0 +1,41 @@
+package com.scubex.repository;
+
+import com.scubex.model.NotificationActor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface NotificationActorRepository extends JpaRepository<NotificationActor, Long> {
+
+    // Which of {@code emails} the aggregate already has (uk_notification_actor)
+    @Query("SELECT a.actorEmail FROM NotificationActor a " +
+           "WHERE a.notification.id = :notificationId AND a.actorEmail IN :emails")
+    List<String> findActorEmails(@Param("notificationId") Long notificationId,
+                                 @Param("emails") Collection<String> emails);
+
+    // ── Bulk deletes, run before the notifications they belong to are deleted ──
+
+    @Modifying
+    @Query("DELETE FROM NotificationActor a WHERE a.notification.id = :notificationId")
+    int deleteAllByNotificationId(@Param("notificationId") Long notificationId);
+
+    @Modifying
+    @Query("DELETE FROM NotificationActor a WHERE a.notification.id IN " +
+           "(SELECT n.id FROM Notification n WHERE n.recipient.id = :recipientId)")
+    int deleteAllByRecipientId(@Param("recipientId") Long recipientId);
+
+    @Modifying
+    @Query("DELETE FROM NotificationActor a WHERE a.notification.id IN " +
+           "(SELECT n.id FROM Notification n WHERE n.publicationId = :publicationId)")
+    int deleteAllByPublicationId(@Param("publicationId") Long publicationId);
+
+    @Modifying
+    @Query("DELETE FROM NotificationActor a WHERE a.notification.id IN " +
+           "(SELECT n.id FROM Notification n WHERE n.lastActivityAt < :before)")
+    int deleteByLastActivityAtBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,49 @@
+package com.scubex.repository;
+
+import com.scubex.model.NotificationOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // Oldest due rows, locked FOR UPDATE SKIP LOCKED (lock timeout -2): rows another
+    // instance has already claimed are skipped instead of waited on, so relays never overlap.
+    // Rows backing off after a failure are not due until nextAttemptAt
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.attempts < :maxAttempts " +
+           "AND (o.nextAttemptAt IS NULL OR o.nextAttemptAt <= :now) ORDER BY o.id")
+    List<NotificationOutbox> claimBatch(@Param("maxAttempts") int maxAttempts, @Param("now") Instant now,
+                                        Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.id IN :ids")
+    List<NotificationOutbox> claimByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.attempts = o.attempts + 1, o.nextAttemptAt = :nextAttemptAt " +
+           "WHERE o.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("nextAttemptAt") Instant nextAttemptAt);
+
+    long countByAttemptsLessThan(int maxAttempts);
+
+    // Rows that used up their attempts and are no longer relayed
+    long countByAttemptsGreaterThanEqual(int maxAttempts);
+
+    // Account deletion: these would only fail on the missing recipient until abandoned
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.recipientId = :recipientId")
+    int deleteAllByRecipientId(@Param("recipientId") Long recipientId);
+}
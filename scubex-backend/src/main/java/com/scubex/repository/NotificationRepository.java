@@ -1,18 +1,110 @@
 package com.scubex.repository;
 
 import com.scubex.model.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
-    List<Notification> findByRecipientIdOrderByCreatedAtDesc(Long recipientId);
+    // Keyset pages by (lastActivityAt DESC, id DESC), same scheme as the publication feed
+    // (idx_notification_recipient_activity): an aggregate with new actors moves to the top
+
+    @Query("SELECT n FROM Notification n WHERE n.recipient.id = :recipientId " +
+           "ORDER BY n.lastActivityAt DESC, n.id DESC")
+    List<Notification> findPageFirst(@Param("recipientId") Long recipientId, Pageable pageable);
+
+    @Query("SELECT n FROM Notification n WHERE n.recipient.id = :recipientId " +
+           "AND n.lastActivityAt <= :activityAt AND (n.lastActivityAt < :activityAt OR n.id < :id) " +
+           "ORDER BY n.lastActivityAt DESC, n.id DESC")
+    List<Notification> findPageAfter(@Param("recipientId") Long recipientId, @Param("activityAt") Instant activityAt,
+                                     @Param("id") Long id, Pageable pageable);
+
     long countByRecipientIdAndReadFalse(Long recipientId);
-    List<Notification> findByRecipientIdAndReadFalse(Long recipientId);
 
-    void deleteAllByRecipientId(Long recipientId);
+    // ── Bulk operations ──
+    // Single statements: nothing is loaded, so the cost does not grow with the backlog.
+
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true WHERE n.recipient.id = :recipientId AND n.read = false")
+    int markAllRead(@Param("recipientId") Long recipientId);
+
+    // Everything at or before the keyset position (lastActivityAt, id): what the client has seen.
+    // An aggregate that gained an actor since has moved past it and stays unread
+    @Modifying
+    @Query("UPDATE Notification n SET n.read = true WHERE n.recipient.id = :recipientId AND n.read = false " +
+           "AND n.lastActivityAt <= :activityAt AND (n.lastActivityAt < :activityAt OR n.id <= :id)")
+    int markReadUpTo(@Param("recipientId") Long recipientId, @Param("activityAt") Instant activityAt,
+                     @Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.lastActivityAt < :before")
+    int deleteByLastActivityAtBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.recipient.id = :recipientId")
+    int deleteAllByRecipientId(@Param("recipientId") Long recipientId);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.publicationId = :publicationId")
+    int deleteAllByPublicationId(@Param("publicationId") Long publicationId);
+
+    interface UnreadByRecipient {
+        Long getRecipientId();
+        long getCount();
+    }
+
+    @Query("SELECT n.recipient.id AS recipientId, COUNT(n) AS count FROM Notification n " +
+           "WHERE n.publicationId = :publicationId AND n.read = false GROUP BY n.recipient.id")
+    List<UnreadByRecipient> countUnreadByRecipientForPublication(@Param("publicationId") Long publicationId);
+
+    @Query("SELECT n.recipient.id AS recipientId, COUNT(n) AS count FROM Notification n " +
+           "WHERE n.lastActivityAt < :before AND n.read = false GROUP BY n.recipient.id")
+    List<UnreadByRecipient> countUnreadByRecipientActiveBefore(@Param("before") Instant before);
+
+    // ── Aggregation ──
+
+    /**
+     * Folds a batch of {@code added} actors into the recipient's open aggregate for the
+     * publication: the unread row of that type whose last activity is at or after {@code since}.
+     * The row takes the latest actor and its last activity becomes {@code now}, which moves it
+     * to the top of the list. {@code previousActorName} only replaces the stored one when the
+     * batch brought more than one actor. actorCount is left to {@link #addToActorCount}, once
+     * the actors the row already has are known; the row lock this UPDATE takes keeps relay
+     * writers on other instances out until then.
+     *
+     * @return rows updated; 0 means there is no open aggregate and a new row is needed
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET " +
+           "n.previousActorName = CASE WHEN :added > 1 THEN :previousActorName " +
+           "    WHEN n.actorEmail = :actorEmail THEN n.previousActorName ELSE n.actorName END, " +
+           "n.actorName = :actorName, n.actorPicture = :actorPicture, n.actorEmail = :actorEmail, " +
+           "n.commentSnippet = :commentSnippet, n.lastActivityAt = :now " +
+           "WHERE n.recipient.id = :recipientId AND n.lastActivityAt >= :since " +
+           "AND n.type = :type AND n.publicationId = :publicationId AND n.read = false")
+    int addToAggregate(@Param("recipientId") Long recipientId, @Param("type") Notification.Type type,
+                       @Param("publicationId") Long publicationId, @Param("since") Instant since,
+                       @Param("added") int added,
+                       @Param("actorName") String actorName, @Param("actorPicture") String actorPicture,
+                       @Param("actorEmail") String actorEmail,
+                       @Param("previousActorName") String previousActorName,
+                       @Param("commentSnippet") String commentSnippet, @Param("now") Instant now);
+
+    // The aggregate addToAggregate just stamped with {@code lastActivityAt}
+    @Query("SELECT n.id FROM Notification n WHERE n.recipient.id = :recipientId AND n.type = :type " +
+           "AND n.publicationId = :publicationId AND n.lastActivityAt = :lastActivityAt")
+    List<Long> findAggregateIds(@Param("recipientId") Long recipientId, @Param("type") Notification.Type type,
+                                @Param("publicationId") Long publicationId,
+                                @Param("lastActivityAt") Instant lastActivityAt);
 
-    void deleteAllByPublicationId(Long publicationId);
+    @Modifying
+    @Query("UPDATE Notification n SET n.actorCount = COALESCE(n.actorCount, 1) + :added WHERE n.id = :id")
+    int addToActorCount(@Param("id") Long id, @Param("added") int added);
 
     boolean existsByRecipientIdAndTypeAndActorEmailAndPublicationId(
             Long recipientId, Notification.Type type, String actorEmail, Long publicationId);
@@ -0,0 +1,51 @@
+package com.scubex.repository;
+
+import com.scubex.model.PublicationCluster;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PublicationClusterRepository extends JpaRepository<PublicationCluster, Long>,
+        PublicationClusterRepositoryCustom {
+
+    @Query("SELECT c.cellKey FROM PublicationCluster c WHERE c.cellKey IN :keys")
+    List<Long> findExistingKeys(@Param("keys") Collection<Long> keys);
+
+    // ── In-DB increments, one statement for all levels of a post ──
+
+    @Modifying
+    @Query("UPDATE PublicationCluster c SET c.publicationCount = c.publicationCount + 1, " +
+           "c.latitudeSum = c.latitudeSum + :lat, c.longitudeSum = c.longitudeSum + :lng, " +
+           "c.representativeId = CASE WHEN c.representativeId < :id THEN :id ELSE c.representativeId END " +
+           "WHERE c.cellKey IN :keys")
+    int addPublication(@Param("keys") Collection<Long> keys, @Param("lat") double lat,
+                       @Param("lng") double lng, @Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE PublicationCluster c SET c.publicationCount = c.publicationCount - 1, " +
+           "c.latitudeSum = c.latitudeSum - :lat, c.longitudeSum = c.longitudeSum - :lng " +
+           "WHERE c.cellKey IN :keys")
+    int removePublication(@Param("keys") Collection<Long> keys, @Param("lat") double lat,
+                          @Param("lng") double lng);
+
+    @Modifying
+    @Query("DELETE FROM PublicationCluster c WHERE c.cellKey IN :keys AND c.publicationCount <= 0")
+    int deleteEmpty(@Param("keys") Collection<Long> keys);
+
+    // ── Representative repair after a delete ──
+
+    @Query("SELECT c.cellKey FROM PublicationCluster c WHERE c.cellKey IN :keys AND c.representativeId = :id")
+    List<Long> findKeysRepresentedBy(@Param("keys") Collection<Long> keys, @Param("id") Long id);
+
+    // The four children of a cell are consecutive keys one level down
+    @Query("SELECT MAX(c.representativeId) FROM PublicationCluster c WHERE c.cellKey BETWEEN :first AND :last")
+    Long findNewestRepresentativeBetween(@Param("first") long first, @Param("last") long last);
+
+    @Modifying
+    @Query("UPDATE PublicationCluster c SET c.representativeId = :id WHERE c.cellKey = :key")
+    int setRepresentative(@Param("key") long key, @Param("id") Long id);
+}
@@ -0,0 +1,15 @@
+package com.scubex.repository;
+
+import com.scubex.geo.HilbertCurve;
+import com.scubex.model.PublicationCluster;
+
+import java.util.List;
+
+public interface PublicationClusterRepositoryCustom {
+
+    /** Clusters of {@code level} whose cell index falls in one of {@code cellRanges}, at most {@code limit}. */
+    List<PublicationCluster> findInCellRanges(int level, List<HilbertCurve.Range> cellRanges, int limit);
+
+    /** Recomputes every cluster of {@code level} from publications with one INSERT ... SELECT ... GROUP BY. */
+    int insertLevelFromPublications(int level);
+}
@@ -0,0 +1,48 @@
+package com.scubex.repository;
+
+import com.scubex.geo.HilbertCurve;
+import com.scubex.model.PublicationCluster;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+class PublicationClusterRepositoryImpl implements PublicationClusterRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PublicationCluster> findInCellRanges(int level, List<HilbertCurve.Range> cellRanges, int limit) {
+        if (cellRanges.isEmpty() || limit <= 0) return List.of();
+
+        StringBuilder jpql = new StringBuilder("SELECT c FROM PublicationCluster c WHERE ");
+        for (int i = 0; i < cellRanges.size(); i++) {
+            if (i > 0) jpql.append(" OR ");
+            jpql.append("c.cellKey BETWEEN :s").append(i).append(" AND :e").append(i);
+        }
+
+        TypedQuery<PublicationCluster> query = entityManager.createQuery(jpql.toString(), PublicationCluster.class);
+        for (int i = 0; i < cellRanges.size(); i++) {
+            HilbertCurve.Range r = cellRanges.get(i);
+            query.setParameter("s" + i, PublicationCluster.keyOf(level, r.start()));
+            query.setParameter("e" + i, PublicationCluster.keyOf(level, r.end()));
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public int insertLevelFromPublications(int level) {
+        // Numeric literals instead of parameters, and the same expression in SELECT and GROUP BY:
+        // databases only match the two when they are written identically
+        long divisor = 1L << (2 * (HilbertCurve.ORDER - level));
+        long prefix = PublicationCluster.keyOf(level, 0);
+        String key = prefix + "L + p.spatialKey / " + divisor + "L";
+        return entityManager.createQuery(
+                "INSERT INTO PublicationCluster (cellKey, publicationCount, latitudeSum, longitudeSum, representativeId) " +
+                "SELECT " + key + ", COUNT(p), SUM(p.latitude), SUM(p.longitude), MAX(p.id) " +
+                "FROM Publication p WHERE p.spatialKey IS NOT NULL GROUP BY " + key)
+                .executeUpdate();
+    }
+}
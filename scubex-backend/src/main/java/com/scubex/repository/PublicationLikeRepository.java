@@ -2,18 +2,30 @@ package com.scubex.repository;
 
 import com.scubex.model.PublicationLike;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
-import java.util.Optional;
 
 public interface PublicationLikeRepository extends JpaRepository<PublicationLike, Long> {
 
-    Optional<PublicationLike> findByPublicationIdAndUserId(Long publicationId, Long userId);
-
     long countByPublicationId(Long publicationId);
 
     boolean existsByPublicationIdAndUserId(Long publicationId, Long userId);
 
+    // Idempotent set/unset: one statement each, the affected row count says whether anything changed.
+    // The unique (publication_id, user_id) constraint turns a concurrent duplicate into a no-op
+    @Modifying
+    @Query("INSERT INTO PublicationLike (publication.id, user.id, createdAt) " +
+           "VALUES (:publicationId, :userId, :now) ON CONFLICT DO NOTHING")
+    int insertIfAbsent(@Param("publicationId") Long publicationId, @Param("userId") Long userId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM PublicationLike l WHERE l.publication.id = :publicationId AND l.user.id = :userId")
+    int deleteByPublicationIdAndUserId(@Param("publicationId") Long publicationId, @Param("userId") Long userId);
+
     void deleteAllByUserId(Long userId);
 
     void deleteAllByPublicationIdIn(List<Long> publicationIds);
@@ -1,21 +1,129 @@
 package com.scubex.repository;
 
+import com.scubex.DTO.InteractionState;
+import com.scubex.DTO.PublicationLocation;
+import com.scubex.DTO.PublicationView;
 import com.scubex.model.Publication;
 import com.scubex.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
-public interface PublicationRepository extends JpaRepository<Publication, Long> {
+public interface PublicationRepository extends JpaRepository<Publication, Long>, PublicationRepositoryCustom {
+
+    // Constructor projection into PublicationView: author display fields resolved in SQL
+    // (same rule as User.getDisplayName/getDisplayPicture), no entity hydration
+    String VIEW_SELECT = "SELECT new com.scubex.DTO.PublicationView(p.id, p.title, p.description, p.imageUrl, " +
+            "p.latitude, p.longitude, p.createdAt, u.email, " +
+            "CASE WHEN u.customName IS NOT NULL AND TRIM(u.customName) <> '' THEN u.customName ELSE u.name END, " +
+            "CASE WHEN u.customPictureUrl IS NOT NULL AND TRIM(u.customPictureUrl) <> '' " +
+            "THEN u.customPictureUrl ELSE u.pictureUrl END, " +
+            "p.likeCount, p.commentCount) FROM Publication p JOIN p.user u ";
 
     @Query("SELECT p FROM Publication p LEFT JOIN FETCH p.user WHERE p.user = :user")
     List<Publication> findByUser(@Param("user") User user);
 
-    List<Publication> findByLatitudeBetweenAndLongitudeBetween(
-            Double latMin, Double latMax, Double lngMin, Double lngMax);
+    // Rows written before spatialKey existed, in id order; filled in by SpatialKeyBackfill
+    @Query("SELECT new com.scubex.DTO.PublicationLocation(p.id, p.spatialKey, p.latitude, p.longitude, p.createdAt) " +
+           "FROM Publication p WHERE p.spatialKey IS NULL AND p.latitude IS NOT NULL AND p.longitude IS NOT NULL " +
+           "AND p.id > :afterId ORDER BY p.id")
+    List<PublicationLocation> findUnkeyedLocationsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Bulk UPDATE, so @PreUpdate (which stamps updatedAt) does not run for a key-only change
+    @Modifying
+    @Query("UPDATE Publication p SET p.spatialKey = :spatialKey WHERE p.id = :id")
+    int setSpatialKey(@Param("id") Long id, @Param("spatialKey") Long spatialKey);
+
+    // Id-ordered batches for loading PublicationLocationIndex
+    @Query("SELECT new com.scubex.DTO.PublicationLocation(p.id, p.spatialKey, p.latitude, p.longitude, p.createdAt) " +
+           "FROM Publication p WHERE p.spatialKey IS NOT NULL AND p.id > :afterId ORDER BY p.id")
+    List<PublicationLocation> findLocationsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(VIEW_SELECT + "WHERE p.id IN :ids")
+    List<PublicationView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(VIEW_SELECT + "WHERE u.id = :userId ORDER BY p.createdAt DESC, p.id DESC")
+    List<PublicationView> findViewsByUserId(@Param("userId") Long userId);
+
+    // Newest other post in the same finest Hilbert cell (cluster representative repair)
+    @Query("SELECT MAX(p.id) FROM Publication p WHERE p.spatialKey = :spatialKey AND p.id <> :excludedId")
+    Long findNewestIdAtSpatialKey(@Param("spatialKey") Long spatialKey, @Param("excludedId") Long excludedId);
+
+    // ── Keyset feed on idx_publication_feed (createdAt DESC, id DESC) ──
+    // "createdAt <= :c AND (...)" keeps a plain range condition the index can seek on,
+    // unlike a bare OR; the page size comes from the Pageable (LIMIT, never OFFSET).
+
+    @Query(VIEW_SELECT + "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PublicationView> findFeedFirstPage(Pageable pageable);
+
+    @Query(VIEW_SELECT +
+           "WHERE p.createdAt <= :createdAt AND (p.createdAt < :createdAt OR p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PublicationView> findFeedPageAfter(@Param("createdAt") Instant createdAt, @Param("id") Long id,
+                                            Pageable pageable);
+
+    // Same keyset restricted to some authors (idx_publication_user_feed): the pull side of the home timeline
+
+    @Query("SELECT p FROM Publication p JOIN FETCH p.user WHERE p.user.id IN :authorIds " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Publication> findByAuthorsFirstPage(@Param("authorIds") Collection<Long> authorIds, Pageable pageable);
+
+    @Query("SELECT p FROM Publication p JOIN FETCH p.user WHERE p.user.id IN :authorIds " +
+           "AND p.createdAt <= :createdAt AND (p.createdAt < :createdAt OR p.id < :id) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Publication> findByAuthorsPageAfter(@Param("authorIds") Collection<Long> authorIds,
+                                             @Param("createdAt") Instant createdAt, @Param("id") Long id,
+                                             Pageable pageable);
+
+    // ── Denormalised counters ──
+    // Relative UPDATEs: the database serialises them on the row, so concurrent likes never lose
+    // an increment the way read-modify-write on the entity would. Never drops below zero.
+    // Likes are write-behind (LikeCounterBuffer): the flush applies one UPDATE per distinct delta.
+    @Modifying
+    @Query("UPDATE Publication p SET p.likeCount = CASE WHEN p.likeCount + :delta < 0 THEN 0 " +
+           "ELSE p.likeCount + :delta END WHERE p.id IN :ids")
+    int addToLikeCounts(@Param("ids") Collection<Long> ids, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE Publication p SET p.commentCount = CASE WHEN p.commentCount + :delta < 0 THEN 0 " +
+           "ELSE p.commentCount + :delta END WHERE p.id = :id")
+    int addToCommentCount(@Param("id") Long id, @Param("delta") long delta);
+
+    @Query("SELECT p.likeCount FROM Publication p WHERE p.id = :id")
+    Long findLikeCountById(@Param("id") Long id);
+
+    @Query("SELECT p.commentCount FROM Publication p WHERE p.id = :id")
+    Long findCommentCountById(@Param("id") Long id);
+
+    // Like/save flags of one user and the counters for a page of publications, in a single query
+    @Query("SELECT new com.scubex.DTO.InteractionState(p.id, " +
+           "CASE WHEN EXISTS (SELECT 1 FROM PublicationLike l WHERE l.publication.id = p.id AND l.user.id = :userId) THEN true ELSE false END, " +
+           "CASE WHEN EXISTS (SELECT 1 FROM PublicationSave s WHERE s.publication.id = p.id AND s.user.id = :userId) THEN true ELSE false END, " +
+           "p.likeCount, p.commentCount) FROM Publication p WHERE p.id IN :ids")
+    List<InteractionState> findInteractionStates(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // Set-based repair: only rows whose counter disagrees with the actual rows are rewritten
+
+    // One id range at a time (fromId inclusive, toId exclusive), so each statement stays short
+    @Modifying
+    @Query("UPDATE Publication p SET p.likeCount = " +
+           "(SELECT COUNT(l) FROM PublicationLike l WHERE l.publication.id = p.id) " +
+           "WHERE p.id >= :fromId AND p.id < :toId " +
+           "AND p.likeCount <> (SELECT COUNT(l2) FROM PublicationLike l2 WHERE l2.publication.id = p.id)")
+    int reconcileLikeCounts(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("SELECT COALESCE(MAX(p.id), 0) FROM Publication p")
+    long findMaxId();
 
-    @Query("SELECT p FROM Publication p LEFT JOIN FETCH p.user ORDER BY p.createdAt DESC")
-    List<Publication> findAllByOrderByCreatedAtDesc();
+    @Modifying
+    @Query("UPDATE Publication p SET p.commentCount = " +
+           "(SELECT COUNT(c) FROM Comment c WHERE c.publication.id = p.id) " +
+           "WHERE p.commentCount <> (SELECT COUNT(c2) FROM Comment c2 WHERE c2.publication.id = p.id)")
+    int reconcileCommentCounts();
 }
@@ -0,0 +1,18 @@
+package com.scubex.repository;
+
+import com.scubex.DTO.PublicationView;
+import com.scubex.geo.HilbertCurve;
+
+import java.util.List;
+
+/** Queries that need a variable number of predicates and can't be written as a single @Query. */
+public interface PublicationRepositoryCustom {
+
+    /**
+     * Newest publications inside the bounding box, at most {@code limit}.
+     * {@code ranges} (from {@link HilbertCurve#cover}) narrow the scan on idx_publication_spatial;
+     * the exact coordinate check drops the cells' overhang.
+     */
+    List<PublicationView> findInArea(List<HilbertCurve.Range> ranges,
+                                     double latMin, double latMax, double lngMin, double lngMax, int limit);
+}
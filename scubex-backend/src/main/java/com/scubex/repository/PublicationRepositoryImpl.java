@@ -0,0 +1,43 @@
+package com.scubex.repository;
+
+import com.scubex.DTO.PublicationView;
+import com.scubex.geo.HilbertCurve;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+class PublicationRepositoryImpl implements PublicationRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PublicationView> findInArea(List<HilbertCurve.Range> ranges,
+                                            double latMin, double latMax, double lngMin, double lngMax, int limit) {
+        if (ranges.isEmpty() || limit <= 0) return List.of();
+
+        // Only parameter names are concatenated; every value is bound
+        StringBuilder jpql = new StringBuilder(PublicationRepository.VIEW_SELECT).append("WHERE (");
+        for (int i = 0; i < ranges.size(); i++) {
+            if (i > 0) jpql.append(" OR ");
+            jpql.append("p.spatialKey BETWEEN :s").append(i).append(" AND :e").append(i);
+        }
+        jpql.append(") AND p.latitude BETWEEN :latMin AND :latMax")
+            .append(" AND p.longitude BETWEEN :lngMin AND :lngMax")
+            .append(" ORDER BY p.createdAt DESC, p.id DESC");
+
+        TypedQuery<PublicationView> query = entityManager.createQuery(jpql.toString(), PublicationView.class);
+        for (int i = 0; i < ranges.size(); i++) {
+            query.setParameter("s" + i, ranges.get(i).start());
+            query.setParameter("e" + i, ranges.get(i).end());
+        }
+        return query.setParameter("latMin", latMin)
+                .setParameter("latMax", latMax)
+                .setParameter("lngMin", lngMin)
+                .setParameter("lngMax", lngMax)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -2,16 +2,28 @@ package com.scubex.repository;
 
 import com.scubex.model.PublicationSave;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
-import java.util.Optional;
 
 public interface PublicationSaveRepository extends JpaRepository<PublicationSave, Long> {
 
-    Optional<PublicationSave> findByPublicationIdAndUserId(Long publicationId, Long userId);
-
     boolean existsByPublicationIdAndUserId(Long publicationId, Long userId);
 
+    // Idempotent set/unset: one statement each, the affected row count says whether anything changed.
+    // The unique (publication_id, user_id) constraint turns a concurrent duplicate into a no-op
+    @Modifying
+    @Query("INSERT INTO PublicationSave (publication.id, user.id, createdAt) " +
+           "VALUES (:publicationId, :userId, :now) ON CONFLICT DO NOTHING")
+    int insertIfAbsent(@Param("publicationId") Long publicationId, @Param("userId") Long userId, @Param("now") Instant now);
+
+    @Modifying
+    @Query("DELETE FROM PublicationSave s WHERE s.publication.id = :publicationId AND s.user.id = :userId")
+    int deleteByPublicationIdAndUserId(@Param("publicationId") Long publicationId, @Param("userId") Long userId);
+
     List<PublicationSave> findByUserIdOrderByCreatedAtDesc(Long userId);
 
     void deleteAllByUserId(Long userId);
@@ -0,0 +1,51 @@
+package com.scubex.repository;
+
+import com.scubex.model.Publication;
+import com.scubex.model.TimelineEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Long> {
+
+    // Fan-out as a single INSERT ... SELECT over the author's followers: no entities loaded
+    @Modifying
+    @Query("INSERT INTO TimelineEntry (user, publication, createdAt) " +
+           "SELECT f.follower, p, p.createdAt FROM UserFollow f, Publication p " +
+           "WHERE f.followed.id = :authorId AND p.id = :publicationId")
+    int fanOut(@Param("authorId") Long authorId, @Param("publicationId") Long publicationId);
+
+    // ── Keyset pages on idx_timeline_user_feed, same ordering and cursor as the global feed ──
+
+    @Query("SELECT p FROM TimelineEntry t JOIN t.publication p JOIN FETCH p.user " +
+           "WHERE t.user.id = :userId ORDER BY t.createdAt DESC, t.publication.id DESC")
+    List<Publication> findTimelineFirstPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT p FROM TimelineEntry t JOIN t.publication p JOIN FETCH p.user " +
+           "WHERE t.user.id = :userId AND t.createdAt <= :createdAt " +
+           "AND (t.createdAt < :createdAt OR t.publication.id < :id) " +
+           "ORDER BY t.createdAt DESC, t.publication.id DESC")
+    List<Publication> findTimelinePageAfter(@Param("userId") Long userId, @Param("createdAt") Instant createdAt,
+                                            @Param("id") Long id, Pageable pageable);
+
+    // Bulk deletes: a popular post can have thousands of entries, so don't load them one by one
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.user.id = :userId AND t.publication.id IN " +
+           "(SELECT p.id FROM Publication p WHERE p.user.id = :authorId)")
+    int deleteByUserIdAndAuthorId(@Param("userId") Long userId, @Param("authorId") Long authorId);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.publication.id IN :publicationIds")
+    int deleteAllByPublicationIdIn(@Param("publicationIds") Collection<Long> publicationIds);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+}
@@ -3,6 +3,8 @@ package com.scubex.repository;
 import com.scubex.model.User;
 import com.scubex.model.UserFollow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +23,13 @@ public interface UserFollowRepository extends JpaRepository<UserFollow, Long> {
 
     List<UserFollow> findByFollowedId(Long followedId);
 
+    // Accounts this user follows that are too popular to fan out (their posts are pulled at read time).
+    // Filters on the denormalised users.followerCount: no per-account COUNT on the read path
+    @Query("SELECT f.followed.id FROM UserFollow f WHERE f.follower.id = :followerId " +
+           "AND f.followed.followerCount > :maxFollowers")
+    List<Long> findFollowedIdsWithMoreFollowersThan(@Param("followerId") Long followerId,
+                                                    @Param("maxFollowers") long maxFollowers);
+
     void deleteAllByFollowerId(Long followerId);
 
     void deleteAllByFollowedId(Long followedId);
@@ -3,8 +3,10 @@ package com.scubex.repository;
 import com.scubex.model.User;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.List;
@@ -20,4 +22,56 @@ public interface UserRepository extends JpaRepository<User, Long> {
            "LOWER(u.name) LIKE LOWER(CONCAT('%', :q, '%')) OR " +
            "LOWER(u.email) LIKE LOWER(CONCAT('%', :q, '%'))")
     List<User> searchByQuery(@Param("q") String q, Pageable pageable);
+
+    // ── Follower counter ──
+
+    @Query("SELECT u.followerCount FROM User u WHERE u.id = :id")
+    Long findFollowerCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followerCount = CASE WHEN u.followerCount + :delta < 0 THEN 0 " +
+           "ELSE u.followerCount + :delta END WHERE u.id = :id")
+    int addToFollowerCount(@Param("id") Long id, @Param("delta") long delta);
+
+    // Before deleting an account's follows: one less follower for everyone it followed
+    @Modifying
+    @Query("UPDATE User u SET u.followerCount = CASE WHEN u.followerCount > 0 THEN u.followerCount - 1 ELSE 0 END " +
+           "WHERE u.id IN (SELECT f.followed.id FROM UserFollow f WHERE f.follower.id = :followerId)")
+    int decrementFollowerCountsFollowedBy(@Param("followerId") Long followerId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followerCount = " +
+           "(SELECT COUNT(f) FROM UserFollow f WHERE f.followed.id = u.id) " +
+           "WHERE u.followerCount <> (SELECT COUNT(f2) FROM UserFollow f2 WHERE f2.followed.id = u.id)")
+    int reconcileFollowerCounts();
+
+    // ── Unread notification counter ──
+    // Relative UPDATEs, like the publication counters; a null (not yet counted) stays null.
+
+    @Query("SELECT u.unreadNotificationCount FROM User u WHERE u.id = :id")
+    Long findUnreadNotificationCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE User u SET u.unreadNotificationCount = CASE WHEN u.unreadNotificationCount + :delta < 0 THEN 0 " +
+           "ELSE u.unreadNotificationCount + :delta END WHERE u.id IN :ids")
+    int addToUnreadNotificationCounts(@Param("ids") Collection<Long> ids, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE User u SET u.unreadNotificationCount = 0 WHERE u.id = :id")
+    int resetUnreadNotificationCount(@Param("id") Long id);
+
+    // Own transaction: called from the lazy first count on a read path
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.unreadNotificationCount = :count " +
+           "WHERE u.id = :id AND u.unreadNotificationCount IS NULL")
+    int initUnreadNotificationCount(@Param("id") Long id, @Param("count") long count);
+
+    // Recounts only the counted users whose counter disagrees with their notifications
+    @Modifying
+    @Query("UPDATE User u SET u.unreadNotificationCount = " +
+           "(SELECT COUNT(n) FROM Notification n WHERE n.recipient.id = u.id AND n.read = false) " +
+           "WHERE u.unreadNotificationCount IS NOT NULL AND u.unreadNotificationCount <> " +
+           "(SELECT COUNT(n2) FROM Notification n2 WHERE n2.recipient.id = u.id AND n2.read = false)")
+    int reconcileUnreadNotificationCounts();
 }
@@ -34,6 +34,7 @@ public class CacheCleanupScheduler {
         Instant enrichmentCutoff = Instant.now().minus(30, ChronoUnit.DAYS);
 
         cachedScanRepository.deleteByCreatedAtBefore(scanCutoff);
+        // One row per cell and a single bulk DELETE, so this stays cheap
         cachedWeatherRepository.deleteByCreatedAtBefore(weatherCutoff);
         speciesEnrichmentCacheRepository.deleteByScientificNameNotNullAndCachedAtBefore(enrichmentCutoff);
     }
@@ -0,0 +1,36 @@
+package com.scubex.scheduler;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.scubex.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Repairs drift in users.followerCount.
+ *
+ * FollowService and account deletion keep the counters in step; manual data fixes bypass
+ * them. The first run happens at startup, which also fills the column for users from before
+ * it existed (they start at 0). One set-based UPDATE recounts only the users that disagree.
+ */
+@Slf4j
+@Component
+public class FollowerCountReconciler {
+
+    private final UserRepository userRepository;
+
+    public FollowerCountReconciler(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Scheduled(fixedRate = 3600000) // At startup, then every hour
+    @Transactional
+    public void reconcile() {
+        int repaired = userRepository.reconcileFollowerCounts();
+        if (repaired > 0) {
+            log.info("Follower count reconciliation repaired {} counters", repaired);
+        }
+    }
+}
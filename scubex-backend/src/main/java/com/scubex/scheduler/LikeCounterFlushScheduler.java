@@ -0,0 +1,71 @@
+package com.scubex.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.scubex.cache.LikeCounterBuffer;
+import com.scubex.repository.PublicationRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the buffered like deltas to publications.likeCount.
+ *
+ * Deltas are grouped by value, so a burst over many posts (mostly +1 / -1) becomes a
+ * handful of {@code UPDATE ... WHERE id IN (...)} statements in one transaction.
+ * The flush always commits on its own (REQUIRES_NEW), also when called from another
+ * transaction; if it fails the deltas go back into the buffer for the next run.
+ */
+@Slf4j
+@Component
+public class LikeCounterFlushScheduler {
+
+    private final LikeCounterBuffer likeCounter;
+    private final PublicationRepository publicationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public LikeCounterFlushScheduler(LikeCounterBuffer likeCounter,
+            PublicationRepository publicationRepository,
+            PlatformTransactionManager transactionManager) {
+        this.likeCounter = likeCounter;
+        this.publicationRepository = publicationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Scheduled(fixedDelay = 5000) // Every 5 seconds
+    public void flush() {
+        likeCounter.outsideRecount(this::drainAndWrite);
+    }
+
+    private void drainAndWrite() {
+        Map<Long, Long> deltas = likeCounter.drain();
+        if (deltas.isEmpty()) return;
+
+        Map<Long, List<Long>> idsByDelta = new HashMap<>();
+        deltas.forEach((id, delta) -> idsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(id));
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    idsByDelta.forEach((delta, ids) -> publicationRepository.addToLikeCounts(ids, delta)));
+        } catch (Exception e) {
+            likeCounter.restore(deltas);
+            log.warn("Like counter flush failed, {} deltas kept for retry: {}", deltas.size(), e.getMessage());
+        }
+    }
+
+    // Don't drop buffered likes on a normal shutdown / redeploy
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,37 @@
+package com.scubex.scheduler;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.scubex.service.NotificationService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes notifications with no activity in notifications.retention-days with one bulk DELETE
+ * (idx_notification_last_activity); unread ones are taken off their recipients' counters first.
+ */
+@Slf4j
+@Component
+public class NotificationRetentionScheduler {
+
+    private final NotificationService notificationService;
+    private final int retentionDays;
+
+    public NotificationRetentionScheduler(NotificationService notificationService,
+            @Value("${notifications.retention-days:365}") int retentionDays) {
+        this.notificationService = notificationService;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(fixedRate = 86400000, initialDelay = 120000) // Every day
+    public void deleteExpired() {
+        if (retentionDays <= 0) return;
+        int deleted = notificationService.deleteOlderThan(Instant.now().minus(retentionDays, ChronoUnit.DAYS));
+        if (deleted > 0) log.info("Notification retention deleted {} notifications", deleted);
+    }
+}
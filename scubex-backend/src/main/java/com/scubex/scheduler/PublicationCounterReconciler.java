@@ -0,0 +1,69 @@
+package com.scubex.scheduler;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.scubex.cache.ContentVersions;
+import com.scubex.cache.LikeCounterBuffer;
+import com.scubex.repository.PublicationRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Repairs drift in the denormalised likeCount / commentCount columns.
+ *
+ * The counters are kept in step by InteractionService, but bulk deletes (account
+ * deletion removes a user's likes and comments on other people's posts) and manual
+ * data fixes bypass it. Two set-based UPDATEs recount only the rows that disagree.
+ *
+ * Likes are recounted in id ranges of {@link #LIKE_RECOUNT_CHUNK} through
+ * {@link LikeCounterBuffer#recountRange}: each range commits, then its buffered deltas are
+ * reset, so a like counted by the recount is not applied again by the next flush. Like
+ * requests never wait for it and each statement only scans one range. The buffer is per
+ * instance: with several, deltas another instance still holds land on top of the recount
+ * and are repaired by the next pass.
+ */
+@Slf4j
+@Component
+public class PublicationCounterReconciler {
+
+    static final long LIKE_RECOUNT_CHUNK = 10_000;
+
+    private final PublicationRepository publicationRepository;
+    private final LikeCounterBuffer likeCounter;
+    private final ContentVersions versions;
+    private final TransactionTemplate transactionTemplate;
+
+    public PublicationCounterReconciler(PublicationRepository publicationRepository,
+            LikeCounterBuffer likeCounter,
+            ContentVersions versions, PlatformTransactionManager transactionManager) {
+        this.publicationRepository = publicationRepository;
+        this.likeCounter = likeCounter;
+        this.versions = versions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedRate = 3600000, initialDelay = 60000) // Every hour
+    public void reconcileCounters() {
+        int likes = reconcileLikeCounts();
+        int comments = transactionTemplate.execute(status -> publicationRepository.reconcileCommentCounts());
+        if (likes > 0 || comments > 0) {
+            versions.invalidateAll();
+            log.info("Counter reconciliation repaired {} like and {} comment counters", likes, comments);
+        }
+    }
+
+    int reconcileLikeCounts() {
+        long maxId = publicationRepository.findMaxId();
+        int repaired = 0;
+        for (long from = 0; from <= maxId; from += LIKE_RECOUNT_CHUNK) {
+            long to = from + LIKE_RECOUNT_CHUNK;
+            long fromId = from;
+            repaired += likeCounter.recountRange(fromId, to, () ->
+                    transactionTemplate.execute(status -> publicationRepository.reconcileLikeCounts(fromId, to)));
+        }
+        return repaired;
+    }
+}
@@ -0,0 +1,42 @@
+package com.scubex.scheduler;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.scubex.cache.UnreadNotificationCounters;
+import com.scubex.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Repairs drift in users.unreadNotificationCount.
+ *
+ * NotificationService keeps the counters in step, but a lazy first count can race with a
+ * new notification, and manual data fixes bypass it. One set-based
+ * UPDATE recounts only the users whose counter disagrees; the in-memory copy is then
+ * dropped so it reloads the repaired values.
+ */
+@Slf4j
+@Component
+public class UnreadNotificationCountReconciler {
+
+    private final UserRepository userRepository;
+    private final UnreadNotificationCounters unreadCounters;
+
+    public UnreadNotificationCountReconciler(UserRepository userRepository,
+            UnreadNotificationCounters unreadCounters) {
+        this.userRepository = userRepository;
+        this.unreadCounters = unreadCounters;
+    }
+
+    @Scheduled(fixedRate = 3600000, initialDelay = 90000) // Every hour
+    @Transactional
+    public void reconcile() {
+        int repaired = userRepository.reconcileUnreadNotificationCounts();
+        if (repaired > 0) {
+            unreadCounters.clear();
+            log.info("Unread notification reconciliation repaired {} counters", repaired);
+        }
+    }
+}
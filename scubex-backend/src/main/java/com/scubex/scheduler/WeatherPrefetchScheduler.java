@@ -0,0 +1,94 @@
+package com.scubex.scheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.scubex.cache.WeatherHotspotTracker;
+import com.scubex.cache.WeatherMemoryCache;
+import com.scubex.service.WeatherService;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the weather cache warm for the most requested dive sites.
+ *
+ * Every run takes the top-N cells from {@link WeatherHotspotTracker} and re-fetches
+ * current conditions / forecast for those whose cache entry would expire before the
+ * next run, then decays the hit counters so the ranking follows recent traffic.
+ *
+ * The upstream calls block, so they run on a small pool of their own: the shared scheduler
+ * thread only hands them out and goes back to the other jobs (like flush, reconcilers).
+ * A run that finds the previous sweep still going skips it.
+ */
+@Slf4j
+@Component
+public class WeatherPrefetchScheduler {
+
+    private static final long INTERVAL_MS = 300000; // Every 5 minutes
+    // Refresh anything that would expire before the next run (+1 min margin)
+    private static final Duration REFRESH_AHEAD = Duration.ofMillis(INTERVAL_MS).plusMinutes(1);
+    // Concurrent upstream calls per sweep; bounds the load on the weather APIs
+    private static final int PREFETCH_THREADS = 4;
+
+    private final WeatherService weatherService;
+    private final WeatherHotspotTracker hotspotTracker;
+    private final WeatherMemoryCache memoryCache;
+    private final ExecutorService prefetchPool = Executors.newFixedThreadPool(PREFETCH_THREADS,
+            Thread.ofPlatform().name("weather-prefetch-", 0).daemon().factory());
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    @Value("${weather.prefetch.top-n:20}")
+    private int topN;
+
+    @Value("${weather.prefetch.min-hits:3}")
+    private long minHits;
+
+    public WeatherPrefetchScheduler(WeatherService weatherService,
+            WeatherHotspotTracker hotspotTracker,
+            WeatherMemoryCache memoryCache) {
+        this.weatherService = weatherService;
+        this.hotspotTracker = hotspotTracker;
+        this.memoryCache = memoryCache;
+    }
+
+    @Scheduled(fixedDelay = INTERVAL_MS, initialDelay = INTERVAL_MS)
+    public void prefetchHotspots() {
+        if (!sweeping.compareAndSet(false, true)) {
+            log.warn("Weather prefetch still running from the previous run, skipping this one");
+            return;
+        }
+        List<CompletableFuture<Void>> refreshes = new ArrayList<>();
+        try {
+            for (long cellKey : hotspotTracker.topCells(topN, minHits)) {
+                if (memoryCache.expiresWithin(cellKey, REFRESH_AHEAD)) {
+                    refreshes.add(CompletableFuture.runAsync(() -> weatherService.refreshWeather(cellKey), prefetchPool));
+                }
+                if (memoryCache.forecastExpiresWithin(cellKey, REFRESH_AHEAD)) {
+                    refreshes.add(CompletableFuture.runAsync(() -> weatherService.refreshForecast(cellKey), prefetchPool));
+                }
+            }
+            hotspotTracker.decay();
+        } finally {
+            CompletableFuture.allOf(refreshes.toArray(CompletableFuture[]::new))
+                    .whenComplete((ok, e) -> {
+                        sweeping.set(false);
+                        if (e != null) log.warn("Weather prefetch: a refresh failed: {}", e.getMessage());
+                    });
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        prefetchPool.shutdownNow();
+    }
+}
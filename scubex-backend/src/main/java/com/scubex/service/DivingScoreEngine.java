@@ -0,0 +1,174 @@
+package com.scubex.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Weighted diving-condition scoring over primitive columns.
+ *
+ * One implementation serves a single point (current conditions), the 7-day forecast,
+ * hourly series and whole grids: callers fill a {@link Columns} batch and get back one
+ * score per row. Missing values are {@code NaN} and are simply left out of the weighting,
+ * which is what the null checks in the old per-object evaluation did.
+ *
+ * Critical overrides: extreme values in key factors force score 0 ("bad") immediately.
+ * Weights: waves=3, current=3, visibility=2, wind=2, weatherCode=2, precipProb=1
+ * Each factor scores 0 (bad), 1 (moderate), or 2 (good).
+ * Weighted average >= 1.5 → good, >= 0.8 → moderate, else bad.
+ *
+ * The loop is plain scalar code over flat arrays with no allocation and no boxing;
+ * the JIT unrolls it well. The incubating Vector API was deliberately not used so the
+ * build does not need {@code --add-modules jdk.incubator.vector}.
+ */
+public final class DivingScoreEngine {
+
+    public static final double GOOD_THRESHOLD = 1.5;
+    public static final double MODERATE_THRESHOLD = 0.8;
+    /** Score used when no factor is known at all (the old code answered "moderate"). */
+    static final double NO_DATA_SCORE = 1.0;
+
+    private DivingScoreEngine() {}
+
+    /**
+     * Column batch of conditions. Every array has the same length; use NaN for unknown values.
+     * Units: wave height m, current km/h, visibility m, wind km/h, WMO weather code, precipitation probability %.
+     */
+    public record Columns(double[] waveHeight, double[] currentVelocity, double[] visibility,
+            double[] windSpeed, double[] weatherCode, double[] precipProbability) {
+
+        public static Columns allocate(int size) {
+            Columns c = new Columns(new double[size], new double[size], new double[size],
+                    new double[size], new double[size], new double[size]);
+            Arrays.fill(c.waveHeight, Double.NaN);
+            Arrays.fill(c.currentVelocity, Double.NaN);
+            Arrays.fill(c.visibility, Double.NaN);
+            Arrays.fill(c.windSpeed, Double.NaN);
+            Arrays.fill(c.weatherCode, Double.NaN);
+            Arrays.fill(c.precipProbability, Double.NaN);
+            return c;
+        }
+
+        public int size() {
+            return waveHeight.length;
+        }
+
+        public void set(int i, Double wave, Double current, Double vis, Double wind, Integer code, Double precip) {
+            waveHeight[i] = orNaN(wave);
+            currentVelocity[i] = orNaN(current);
+            visibility[i] = orNaN(vis);
+            windSpeed[i] = orNaN(wind);
+            weatherCode[i] = code != null ? code : Double.NaN;
+            precipProbability[i] = orNaN(precip);
+        }
+
+        private static double orNaN(Double v) {
+            return v != null ? v : Double.NaN;
+        }
+    }
+
+    /** Scores every row of {@code in} into {@code out} (weighted average in [0, 2]). */
+    public static void score(Columns in, double[] out) {
+        final double[] wave = in.waveHeight;
+        final double[] cur = in.currentVelocity;
+        final double[] vis = in.visibility;
+        final double[] wind = in.windSpeed;
+        final double[] code = in.weatherCode;
+        final double[] precip = in.precipProbability;
+        final int n = in.size();
+
+        for (int i = 0; i < n; i++) {
+            double w = wave[i], c = cur[i], v = vis[i], wd = wind[i], wc = code[i], p = precip[i];
+            boolean storm = wc == 95 || wc == 96 || wc == 99;
+
+            // NaN compares false, so unknown values never trigger an override
+            if (w > 2.5 || c > 5 || wd > 40 || storm || v < 1000) {
+                out[i] = 0;
+                continue;
+            }
+
+            int score = 0, weight = 0;
+            // Waves (m): <0.5 good, 0.5-1.5 moderate, >1.5 bad — weight 3
+            if (w == w) { weight += 3; score += (w < 0.5 ? 2 : w < 1.5 ? 1 : 0) * 3; }
+            // Current (km/h): <1 good, 1-3 moderate, >3 bad — weight 3
+            if (c == c) { weight += 3; score += (c < 1 ? 2 : c < 3 ? 1 : 0) * 3; }
+            // Visibility (m): >10000 good, 2000-10000 moderate, <2000 bad — weight 2
+            if (v == v) { weight += 2; score += (v > 10000 ? 2 : v > 2000 ? 1 : 0) * 2; }
+            // Wind (km/h): <15 good, 15-30 moderate, >30 bad — weight 2
+            if (wd == wd) { weight += 2; score += (wd < 15 ? 2 : wd < 30 ? 1 : 0) * 2; }
+            // Weather code: rain (>=61) moderate, else good (storms handled above) — weight 2
+            if (wc == wc) { weight += 2; score += (wc >= 61 ? 1 : 2) * 2; }
+            // Precipitation probability: <20 good, 20-60 moderate, >60 bad — weight 1
+            if (p == p) { weight += 1; score += (p < 20 ? 2 : p < 60 ? 1 : 0); }
+
+            out[i] = weight == 0 ? NO_DATA_SCORE : (double) score / weight;
+        }
+    }
+
+    public static double[] score(Columns in) {
+        double[] out = new double[in.size()];
+        score(in, out);
+        return out;
+    }
+
+    /** Convenience for a single point; same rules as the batch path. */
+    public static double scoreOne(Double wave, Double current, Double vis, Double wind, Integer code, Double precip) {
+        Columns c = Columns.allocate(1);
+        c.set(0, wave, current, vis, wind, code, precip);
+        return score(c)[0];
+    }
+
+    /** Maps a score to "good", "moderate" or "bad". */
+    public static String condition(double score) {
+        if (score >= GOOD_THRESHOLD) return "good";
+        if (score >= MODERATE_THRESHOLD) return "moderate";
+        return "bad";
+    }
+
+    /** A run of {@code length} consecutive rows starting at {@code start}, with its average score. */
+    public record Window(int start, int length, double score) {}
+
+    /**
+     * Best {@code topK} non-overlapping windows of {@code length} consecutive rows within
+     * {@code scores[from..]}, highest average first (earliest first on ties).
+     *
+     * One pass with a running sum and a count of "bad" rows in the window, so the scan is
+     * O(n) regardless of the window length. Windows containing a bad row are never offered:
+     * a good average must not hide an hour nobody should be in the water.
+     */
+    public static List<Window> bestWindows(double[] scores, int from, int length, int topK) {
+        int n = scores.length;
+        if (length <= 0 || topK <= 0 || from < 0 || n - from < length) return List.of();
+
+        List<Window> candidates = new ArrayList<>();
+        double sum = 0;
+        int bad = 0;
+        for (int i = from; i < n; i++) {
+            sum += scores[i];
+            if (scores[i] < MODERATE_THRESHOLD) bad++;
+            int start = i - length + 1;
+            if (start > from) {
+                sum -= scores[start - 1];
+                if (scores[start - 1] < MODERATE_THRESHOLD) bad--;
+            }
+            if (start >= from && bad == 0) {
+                candidates.add(new Window(start, length, sum / length));
+            }
+        }
+
+        candidates.sort((a, b) -> a.score() != b.score()
+                ? Double.compare(b.score(), a.score())
+                : Integer.compare(a.start(), b.start()));
+
+        // Greedy pick; an accepted window blocks its own rows, so results never overlap
+        boolean[] taken = new boolean[n];
+        List<Window> result = new ArrayList<>(topK);
+        for (Window w : candidates) {
+            if (taken[w.start()] || taken[w.start() + length - 1]) continue;
+            Arrays.fill(taken, w.start(), w.start() + length, true);
+            result.add(w);
+            if (result.size() == topK) break;
+        }
+        return result;
+    }
+}
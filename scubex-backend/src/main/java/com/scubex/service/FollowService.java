@@ -1,9 +1,13 @@
 package com.scubex.service;
 
+import com.scubex.cache.ContentVersions;
 import com.scubex.model.User;
 import com.scubex.model.UserFollow;
 import com.scubex.repository.UserFollowRepository;
+import com.scubex.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,14 +16,25 @@ import java.util.Optional;
 public class FollowService {
 
     private final UserFollowRepository followRepository;
-    private final NotificationService notificationService;
+    private final UserRepository userRepository;
+    private final ApplicationEventPublisher events;
+    private final TimelineService timelineService;
+    private final ContentVersions versions;
 
     public FollowService(UserFollowRepository followRepository,
-                         NotificationService notificationService) {
+                         UserRepository userRepository,
+                         ApplicationEventPublisher events,
+                         TimelineService timelineService,
+                         ContentVersions versions) {
         this.followRepository = followRepository;
-        this.notificationService = notificationService;
+        this.userRepository = userRepository;
+        this.events = events;
+        this.timelineService = timelineService;
+        this.versions = versions;
     }
 
+    // Transactional so the follow, the follower count and the notification outbox row commit together
+    @Transactional
     public boolean toggleFollow(User follower, User followed) {
         if (follower.getId().equals(followed.getId())) {
             return false; // can't follow yourself
@@ -27,13 +42,19 @@ public class FollowService {
         Optional<UserFollow> existing = followRepository.findByFollowerIdAndFollowedId(follower.getId(), followed.getId());
         if (existing.isPresent()) {
             followRepository.delete(existing.get());
+            userRepository.addToFollowerCount(followed.getId(), -1);
+            timelineService.onUnfollow(follower, followed);
+            versions.followChanged(follower.getId(), followed.getId());
             return false; // unfollowed
         }
         followRepository.save(UserFollow.builder()
                 .follower(follower)
                 .followed(followed)
                 .build());
-        notificationService.notifyFollow(follower, followed);
+        userRepository.addToFollowerCount(followed.getId(), 1);
+        timelineService.onFollow(follower, followed);
+        versions.followChanged(follower.getId(), followed.getId());
+        events.publishEvent(NotificationEvent.follow(follower, followed));
         return true; // followed
     }
 
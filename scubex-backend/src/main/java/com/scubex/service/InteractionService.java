@@ -1,13 +1,24 @@
 package com.scubex.service;
 
+import com.scubex.DTO.InteractionState;
+import com.scubex.DTO.PublicationView;
+import com.scubex.cache.ContentVersions;
+import com.scubex.cache.LikeCounterBuffer;
 import com.scubex.model.*;
 import com.scubex.repository.CommentRepository;
 import com.scubex.repository.PublicationLikeRepository;
+import com.scubex.repository.PublicationRepository;
 import com.scubex.repository.PublicationSaveRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class InteractionService {
@@ -15,55 +26,128 @@ public class InteractionService {
     private final PublicationLikeRepository likeRepository;
     private final PublicationSaveRepository saveRepository;
     private final CommentRepository commentRepository;
-    private final NotificationService notificationService;
+    private final PublicationRepository publicationRepository;
+    private final LikeCounterBuffer likeCounter;
+    private final ApplicationEventPublisher events;
+    private final ContentVersions versions;
 
     public InteractionService(PublicationLikeRepository likeRepository,
                               PublicationSaveRepository saveRepository,
                               CommentRepository commentRepository,
-                              NotificationService notificationService) {
+                              PublicationRepository publicationRepository,
+                              LikeCounterBuffer likeCounter,
+                              ApplicationEventPublisher events,
+                              ContentVersions versions) {
         this.likeRepository = likeRepository;
         this.saveRepository = saveRepository;
         this.commentRepository = commentRepository;
-        this.notificationService = notificationService;
+        this.publicationRepository = publicationRepository;
+        this.likeCounter = likeCounter;
+        this.events = events;
+        this.versions = versions;
     }
 
     // ── Likes ──
+    // set/unset are single idempotent statements; the row count tells whether the state changed,
+    // so counters and notifications only move on a real change (double taps are no-ops).
+    // The count delta is buffered on commit.
+
+    /** Likes the publication. Returns false if it was already liked. */
+    @Transactional
+    public boolean like(Publication publication, User user) {
+        if (likeRepository.insertIfAbsent(publication.getId(), user.getId(), Instant.now()) == 0) {
+            return false;
+        }
+        likeCounter.addAfterCommit(publication.getId(), 1);
+        versions.countersChanged(publication.getUser().getId());
+        events.publishEvent(NotificationEvent.like(user, publication));
+        return true;
+    }
 
-    public boolean toggleLike(Publication publication, User user) {
-        Optional<PublicationLike> existing = likeRepository.findByPublicationIdAndUserId(publication.getId(), user.getId());
-        if (existing.isPresent()) {
-            likeRepository.delete(existing.get());
-            return false; // unliked
+    /** Removes the like. Returns false if there was none. */
+    @Transactional
+    public boolean unlike(Publication publication, User user) {
+        if (likeRepository.deleteByPublicationIdAndUserId(publication.getId(), user.getId()) == 0) {
+            return false;
         }
-        likeRepository.save(PublicationLike.builder()
-                .publication(publication)
-                .user(user)
-                .build());
-        notificationService.notifyLike(user, publication);
-        return true; // liked
+        likeCounter.addAfterCommit(publication.getId(), -1);
+        versions.countersChanged(publication.getUser().getId());
+        return true;
+    }
+
+    /** Returns the new state: true if liked, false if unliked. */
+    @Transactional
+    public boolean toggleLike(Publication publication, User user) {
+        if (unlike(publication, user)) return false;
+        like(publication, user); // false only if a concurrent request liked it first
+        return true;
     }
 
+    /** Persisted counter (a single-row lookup, not a COUNT over likes) plus the unflushed delta. */
     public long getLikeCount(Long publicationId) {
-        return likeRepository.countByPublicationId(publicationId);
+        Long count = publicationRepository.findLikeCountById(publicationId);
+        return Math.max(0, (count != null ? count : 0) + likeCounter.pending(publicationId));
+    }
+
+    /** Same as {@link #getLikeCount(Long)} for an already loaded publication, without a query. */
+    public long getLikeCount(Publication publication) {
+        long persisted = publication.getLikeCount() != null ? publication.getLikeCount() : 0;
+        return Math.max(0, persisted + likeCounter.pending(publication.getId()));
+    }
+
+    /** Adds the unflushed like deltas to views read straight from the likeCount column. */
+    public List<PublicationView> withPendingLikes(List<PublicationView> views) {
+        return views.stream().map(this::withPendingLikes).toList();
+    }
+
+    public PublicationView withPendingLikes(PublicationView view) {
+        long pending = likeCounter.pending(view.id());
+        return pending == 0 ? view : view.withLikeCount(Math.max(0, view.likeCount() + pending));
     }
 
     public boolean hasUserLiked(Long publicationId, Long userId) {
         return likeRepository.existsByPublicationIdAndUserId(publicationId, userId);
     }
 
+    // ── Batch state ──
+    // Listing paths read likeCount / commentCount from the publication rows themselves, so a
+    // page of any size needs no count query.
+
+    /**
+     * Like/save flags of {@code user} (null = anonymous) and the counters for each id, in
+     * request order; unknown ids are left out. One query regardless of how many ids.
+     */
+    public List<InteractionState> getStates(List<Long> ids, User user) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, InteractionState> byId = publicationRepository
+                .findInteractionStates(ids, user != null ? user.getId() : null).stream()
+                .collect(Collectors.toMap(InteractionState::id, Function.identity()));
+        return ids.stream().distinct().map(byId::get).filter(Objects::nonNull)
+                .map(s -> {
+                    long pending = likeCounter.pending(s.id());
+                    return pending == 0 ? s : s.withLikeCount(Math.max(0, s.likeCount() + pending));
+                })
+                .toList();
+    }
+
     // ── Saves ──
 
+    @Transactional
+    public boolean save(Publication publication, User user) {
+        return saveRepository.insertIfAbsent(publication.getId(), user.getId(), Instant.now()) > 0;
+    }
+
+    @Transactional
+    public boolean unsave(Publication publication, User user) {
+        return saveRepository.deleteByPublicationIdAndUserId(publication.getId(), user.getId()) > 0;
+    }
+
+    /** Returns the new state: true if saved, false if unsaved. */
+    @Transactional
     public boolean toggleSave(Publication publication, User user) {
-        Optional<PublicationSave> existing = saveRepository.findByPublicationIdAndUserId(publication.getId(), user.getId());
-        if (existing.isPresent()) {
-            saveRepository.delete(existing.get());
-            return false; // unsaved
-        }
-        saveRepository.save(PublicationSave.builder()
-                .publication(publication)
-                .user(user)
-                .build());
-        return true; // saved
+        if (unsave(publication, user)) return false;
+        save(publication, user);
+        return true;
     }
 
     public boolean hasUserSaved(Long publicationId, Long userId) {
@@ -76,13 +160,16 @@ public class InteractionService {
 
     // ── Comments ──
 
+    @Transactional
     public Comment addComment(Publication publication, User user, String text) {
         Comment comment = commentRepository.save(Comment.builder()
                 .publication(publication)
                 .user(user)
                 .text(text)
                 .build());
-        notificationService.notifyComment(user, publication, text);
+        publicationRepository.addToCommentCount(publication.getId(), 1);
+        versions.commentsChanged(publication.getId(), publication.getUser().getId());
+        events.publishEvent(NotificationEvent.comment(user, publication, text));
         return comment;
     }
 
@@ -91,15 +178,19 @@ public class InteractionService {
     }
 
     public long getCommentCount(Long publicationId) {
-        return commentRepository.countByPublicationId(publicationId);
+        Long count = publicationRepository.findCommentCountById(publicationId);
+        return count != null ? count : 0;
     }
 
+    @Transactional
     public boolean deleteComment(Long commentId, User user) {
         Comment comment = commentRepository.findById(commentId).orElse(null);
         if (comment == null || !comment.getUser().getId().equals(user.getId())) {
             return false;
         }
         commentRepository.delete(comment);
+        publicationRepository.addToCommentCount(comment.getPublication().getId(), -1);
+        versions.commentsChanged(comment.getPublication().getId(), comment.getPublication().getUser().getId());
         return true;
     }
 }
@@ -0,0 +1,235 @@
+package com.scubex.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.scubex.model.NotificationOutbox;
+import com.scubex.repository.NotificationOutboxRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes notifications off the request thread, through a transactional outbox.
+ *
+ * Each {@link NotificationEvent} is stored as a {@code notification_outbox} row inside the
+ * publishing transaction, so the like, comment or follow and its pending notification
+ * commit or roll back together and a crash loses nothing. A writer thread then relays the
+ * outbox in batches of up to {@code notifications.batch-size}: it claims the oldest rows
+ * with {@code FOR UPDATE SKIP LOCKED}, writes them through {@link NotificationService#record}
+ * and deletes them in the same transaction. Several instances can relay at once; a row
+ * claimed by one is skipped by the others.
+ *
+ * The writer wakes up right after a publishing transaction commits, and otherwise polls
+ * every second (rows left by another instance, or by a crash). A batch that fails is
+ * retried row by row; a row that fails is put back with exponential backoff (30 s, 1 min,
+ * 2 min, ...) so a passing database problem does not use up its attempts at once. After
+ * {@code notifications.max-attempts} it is parked in the table for inspection, and counted
+ * in a warning every minute. Backlog and counters are logged every minute while there is traffic.
+ */
+@Slf4j
+@Component
+@DependsOn({"idSequenceAlignment", "notificationActivityMigration"})
+public class NotificationDispatcher {
+
+    /** Snapshot of the relay for logging and monitoring. */
+    public record Stats(long backlog, long parked, long relayed, long failed) {}
+
+    // Backoff after the n-th failure: RETRY_BASE_DELAY * 2^(n-1), at most MAX_RETRY_DELAY
+    static final Duration RETRY_BASE_DELAY = Duration.ofSeconds(30);
+    static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+
+    private final NotificationService notificationService;
+    private final NotificationOutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final AtomicLong relayed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private long lastLoggedRelayed;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public NotificationDispatcher(NotificationService notificationService,
+            NotificationOutboxRepository outboxRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${notifications.batch-size:200}") int batchSize,
+            @Value("${notifications.max-attempts:5}") int maxAttempts) {
+        this.notificationService = notificationService;
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("notification-writer").daemon().start(this::run);
+    }
+
+    // Plain listener: runs on the publisher's thread and joins its transaction
+    @EventListener
+    public void onEvent(NotificationEvent event) {
+        outboxRepository.save(toOutbox(event));
+    }
+
+    // fallbackExecution: publishers outside a transaction still wake the writer
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommitted(NotificationEvent event) {
+        wakeUp.release();
+    }
+
+    public Stats stats() {
+        return new Stats(outboxRepository.countByAttemptsLessThan(maxAttempts),
+                outboxRepository.countByAttemptsGreaterThanEqual(maxAttempts), relayed.get(), failed.get());
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                wakeUp.tryAcquire(1, TimeUnit.SECONDS);
+                wakeUp.drainPermits();
+                while (running && relayBatch() == batchSize) {
+                    // a full batch went through: more may be waiting
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Notification relay failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Claims, writes and deletes one batch of due outbox rows; returns how many were relayed.
+     * Only a fully relayed batch makes the writer go straight on to the next one.
+     */
+    int relayBatch() {
+        List<NotificationOutbox> claimed = new ArrayList<>();
+        try {
+            return relay(() -> outboxRepository.claimBatch(maxAttempts, Instant.now(), PageRequest.of(0, batchSize)),
+                    claimed);
+        } catch (Exception e) {
+            // Retry one by one so a single bad event cannot hold back the rest of the batch
+            log.warn("Notification batch of {} failed, retrying individually: {}", claimed.size(), e.getMessage());
+            int relayedRows = 0;
+            for (NotificationOutbox row : claimed) {
+                relayedRows += relayOne(row);
+            }
+            return relayedRows;
+        }
+    }
+
+    private int relayOne(NotificationOutbox row) {
+        try {
+            return relay(() -> outboxRepository.claimByIds(List.of(row.getId())), new ArrayList<>());
+        } catch (Exception e) {
+            Instant next = Instant.now().plus(retryDelay(row.getAttempts() + 1));
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.recordFailure(row.getId(), next));
+            failed.incrementAndGet();
+            log.warn("Notification outbox row {} failed (attempt {}): {}", row.getId(), row.getAttempts() + 1,
+                    e.getMessage());
+            return 0;
+        }
+    }
+
+    static Duration retryDelay(int failures) {
+        Duration delay = RETRY_BASE_DELAY.multipliedBy(1L << Math.min(failures - 1, 20));
+        return delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay;
+    }
+
+    // Claim, write and delete in one transaction: on rollback the rows are simply unlocked again
+    private int relay(Supplier<List<NotificationOutbox>> claim, List<NotificationOutbox> claimed) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<NotificationOutbox> rows = claim.get();
+            claimed.addAll(rows);
+            if (rows.isEmpty()) return;
+            notificationService.record(rows.stream().map(NotificationDispatcher::toEvent).toList());
+            outboxRepository.deleteAllInBatch(rows);
+        });
+        relayed.addAndGet(claimed.size());
+        return claimed.size();
+    }
+
+    @Scheduled(fixedRate = 60000)
+    public void logStats() {
+        Stats s = stats();
+        if (s.parked() > 0) {
+            log.warn("Notification outbox: {} rows gave up after {} attempts and are no longer relayed",
+                    s.parked(), maxAttempts);
+        }
+        if (s.relayed() == lastLoggedRelayed && s.failed() == 0) return;
+        lastLoggedRelayed = s.relayed();
+        log.info("Notification outbox: backlog {}, relayed {}, failed {}", s.backlog(), s.relayed(), s.failed());
+    }
+
+    // Rows still pending at shutdown stay in the outbox for the next start or another instance
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        wakeUp.release();
+        if (writer != null) {
+            writer.join(5000);
+        }
+    }
+
+    // ── Outbox mapping ──
+
+    static NotificationOutbox toOutbox(NotificationEvent event) {
+        NotificationOutbox.NotificationOutboxBuilder row = NotificationOutbox.builder();
+        NotificationEvent.Actor actor = switch (event) {
+            case NotificationEvent.Follow f -> {
+                row.kind(NotificationOutbox.Kind.FOLLOW).recipientId(f.followedId());
+                yield f.actor();
+            }
+            case NotificationEvent.Like l -> {
+                row.kind(NotificationOutbox.Kind.LIKE).recipientId(l.ownerId())
+                        .publicationId(l.publicationId()).publicationTitle(l.publicationTitle());
+                yield l.actor();
+            }
+            case NotificationEvent.Comment c -> {
+                row.kind(NotificationOutbox.Kind.COMMENT).recipientId(c.ownerId())
+                        .publicationId(c.publicationId()).publicationTitle(c.publicationTitle()).text(c.text());
+                yield c.actor();
+            }
+        };
+        return row.actorId(actor.id()).actorEmail(actor.email()).actorName(actor.name())
+                .actorPicture(actor.picture()).build();
+    }
+
+    static NotificationEvent toEvent(NotificationOutbox row) {
+        NotificationEvent.Actor actor = new NotificationEvent.Actor(
+                row.getActorId(), row.getActorEmail(), row.getActorName(), row.getActorPicture());
+        return switch (row.getKind()) {
+            case FOLLOW -> new NotificationEvent.Follow(actor, row.getRecipientId());
+            case LIKE -> new NotificationEvent.Like(actor, row.getPublicationId(), row.getPublicationTitle(),
+                    row.getRecipientId());
+            case COMMENT -> new NotificationEvent.Comment(actor, row.getPublicationId(), row.getPublicationTitle(),
+                    row.getRecipientId(), row.getText());
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.scubex.service;
+
+import com.scubex.model.Publication;
+import com.scubex.model.User;
+
+/**
+ * Something that may produce notifications, published by the interaction services and
+ * written asynchronously by NotificationDispatcher.
+ *
+ * Events carry plain values captured at publish time, never entities: they are
+ * processed on another thread, after the publishing transaction has closed.
+ */
+public sealed interface NotificationEvent {
+
+    record Actor(Long id, String email, String name, String picture) {
+        static Actor of(User u) {
+            return new Actor(u.getId(), u.getEmail(),
+                    u.getDisplayName() != null ? u.getDisplayName() : "", u.getDisplayPicture());
+        }
+    }
+
+    record Follow(Actor actor, Long followedId) implements NotificationEvent {}
+
+    record Like(Actor actor, Long publicationId, String publicationTitle, Long ownerId) implements NotificationEvent {}
+
+    record Comment(Actor actor, Long publicationId, String publicationTitle, Long ownerId, String text)
+            implements NotificationEvent {}
+
+    static Follow follow(User follower, User followed) {
+        return new Follow(Actor.of(follower), followed.getId());
+    }
+
+    static Like like(User actor, Publication pub) {
+        return new Like(Actor.of(actor), pub.getId(), pub.getTitle(), pub.getUser().getId());
+    }
+
+    static Comment comment(User actor, Publication pub, String text) {
+        return new Comment(Actor.of(actor), pub.getId(), pub.getTitle(), pub.getUser().getId(), text);
+    }
+}
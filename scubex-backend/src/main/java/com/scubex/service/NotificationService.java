@@ -1,20 +1,34 @@
 package com.scubex.service;
 
+import com.scubex.DTO.FeedCursor;
+import com.scubex.DTO.FeedPage;
+import com.scubex.cache.UnreadNotificationCounters;
 import com.scubex.model.Notification;
-import com.scubex.model.Publication;
+import com.scubex.model.NotificationActor;
 import com.scubex.model.User;
+import com.scubex.repository.NotificationActorRepository;
 import com.scubex.repository.NotificationRepository;
 import com.scubex.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class NotificationService {
@@ -24,120 +38,369 @@ public class NotificationService {
             Pattern.compile("@\\[([^\\]]+)\\]\\(([^)]+)\\)");
 
     private final NotificationRepository notificationRepository;
+    private final NotificationActorRepository notificationActorRepository;
     private final UserRepository userRepository;
+    private final NotificationStream notificationStream;
+    private final UnreadNotificationCounters unreadCounters;
+
+    @Value("${notifications.page-size:30}")
+    private int defaultPageSize;
+
+    @Value("${notifications.max-page-size:100}")
+    private int maxPageSize;
+
+    // 0: one LIKE / COMMENT notification per actor, no aggregation
+    @Value("${notifications.aggregate-window-minutes:0}")
+    private int aggregateWindowMinutes;
 
     public NotificationService(NotificationRepository notificationRepository,
-                                UserRepository userRepository) {
+                                NotificationActorRepository notificationActorRepository,
+                                UserRepository userRepository,
+                                NotificationStream notificationStream,
+                                UnreadNotificationCounters unreadCounters) {
         this.notificationRepository = notificationRepository;
+        this.notificationActorRepository = notificationActorRepository;
         this.userRepository = userRepository;
+        this.notificationStream = notificationStream;
+        this.unreadCounters = unreadCounters;
+    }
+
+    /**
+     * Writes the notifications for a batch of events in one saveAll. Mentions are looked up
+     * with one query for the whole batch and recipients are referenced by id, never loaded.
+     * Follow and like notifications are created once per actor (and publication), also when
+     * the same event appears twice in a batch.
+     *
+     * With notifications.aggregate-window-minutes set, likes and comments on a publication
+     * instead go into one aggregate row per recipient ("Ana and 23 others"): one UPDATE per
+     * publication in the batch, and an insert only when there is no open aggregate. Each
+     * aggregate keeps its distinct actors, so its count only grows for actors it hasn't had.
+     */
+    @Transactional
+    public List<Notification> record(List<NotificationEvent> events) {
+        List<String> mentionedEmails = events.stream()
+                .flatMap(e -> e instanceof NotificationEvent.Comment c ? mentions(c.text()).stream() : Stream.empty())
+                .distinct()
+                .toList();
+        Map<String, Long> mentionedIds = mentionedEmails.isEmpty() ? Map.of()
+                : userRepository.findByEmailIn(mentionedEmails).stream()
+                        .collect(Collectors.toMap(User::getEmail, User::getId));
+
+        Set<String> seen = new HashSet<>();
+        Map<String, Aggregate> aggregates = new LinkedHashMap<>();
+        List<Notification> notifications = new ArrayList<>();
+        for (NotificationEvent event : events) {
+            switch (event) {
+                case NotificationEvent.Follow f -> {
+                    if (f.actor().id().equals(f.followedId())) continue;
+                    if (!seen.add("F" + f.followedId() + ":" + f.actor().email())) continue;
+                    if (notificationRepository.existsByRecipientIdAndTypeAndActorEmail(
+                            f.followedId(), Notification.Type.FOLLOW, f.actor().email())) continue;
+                    notifications.add(base(Notification.Type.FOLLOW, f.followedId(), f.actor()).build());
+                }
+                case NotificationEvent.Like l -> {
+                    if (l.actor().id().equals(l.ownerId())) continue;
+                    if (aggregateWindowMinutes > 0) {
+                        aggregate(aggregates, Notification.Type.LIKE, l.ownerId(), l.publicationId(),
+                                l.publicationTitle(), l.actor(), null);
+                        continue;
+                    }
+                    if (!seen.add("L" + l.publicationId() + ":" + l.actor().email())) continue;
+                    if (notificationRepository.existsByRecipientIdAndTypeAndActorEmailAndPublicationId(
+                            l.ownerId(), Notification.Type.LIKE, l.actor().email(), l.publicationId())) continue;
+                    notifications.add(base(Notification.Type.LIKE, l.ownerId(), l.actor())
+                            .publicationId(l.publicationId())
+                            .publicationTitle(l.publicationTitle())
+                            .build());
+                }
+                case NotificationEvent.Comment c -> addCommentNotifications(c, mentionedIds, aggregates, notifications);
+            }
+        }
+        if (!aggregates.isEmpty()) notifications.addAll(applyAggregates(aggregates.values()));
+        if (!notifications.isEmpty()) {
+            notificationRepository.saveAll(notifications);
+            saveNewAggregateActors(aggregates.values());
+            addToUnreadCounts(notifications);
+            notificationStream.notificationsCreated(notifications);
+        }
+        return notifications;
     }
 
-    public void notifyFollow(User follower, User followed) {
-        if (follower.getId().equals(followed.getId())) return;
-        if (notificationRepository.existsByRecipientIdAndTypeAndActorEmail(
-                followed.getId(), Notification.Type.FOLLOW, follower.getEmail())) return;
-        notificationRepository.save(Notification.builder()
-                .recipient(followed)
-                .type(Notification.Type.FOLLOW)
-                .actorName(follower.getDisplayName() != null ? follower.getDisplayName() : "")
-                .actorPicture(follower.getDisplayPicture())
-                .actorEmail(follower.getEmail())
-                .build());
-    }
-
-    public void notifyLike(User actor, Publication pub) {
-        if (actor.getId().equals(pub.getUser().getId())) return;
-        if (notificationRepository.existsByRecipientIdAndTypeAndActorEmailAndPublicationId(
-                pub.getUser().getId(), Notification.Type.LIKE, actor.getEmail(), pub.getId())) return;
-        notificationRepository.save(Notification.builder()
-                .recipient(pub.getUser())
-                .type(Notification.Type.LIKE)
-                .actorName(actor.getDisplayName() != null ? actor.getDisplayName() : "")
-                .actorPicture(actor.getDisplayPicture())
-                .actorEmail(actor.getEmail())
-                .publicationId(pub.getId())
-                .publicationTitle(pub.getTitle())
-                .build());
-    }
-
-    public void notifyComment(User actor, Publication pub, String text) {
-        String snippet = text.length() > 150 ? text.substring(0, 150) + "…" : text;
+    private void addCommentNotifications(NotificationEvent.Comment c, Map<String, Long> mentionedIds,
+                                         Map<String, Aggregate> aggregates, List<Notification> out) {
+        String snippet = c.text().length() > 150 ? c.text().substring(0, 150) + "…" : c.text();
         Set<Long> notified = new HashSet<>();
-        notified.add(actor.getId());
-
-        // Notify publication owner (unless self-comment)
-        if (!actor.getId().equals(pub.getUser().getId())) {
-            notified.add(pub.getUser().getId());
-            notificationRepository.save(Notification.builder()
-                    .recipient(pub.getUser())
-                    .type(Notification.Type.COMMENT)
-                    .actorName(actor.getDisplayName() != null ? actor.getDisplayName() : "")
-                    .actorPicture(actor.getDisplayPicture())
-                    .actorEmail(actor.getEmail())
-                    .publicationId(pub.getId())
-                    .publicationTitle(pub.getTitle())
+        notified.add(c.actor().id());
+
+        // Notify publication owner (unless self-comment), then mentioned users once each
+        List<Long> recipients = new ArrayList<>();
+        recipients.add(c.ownerId());
+        for (String email : mentions(c.text())) {
+            Long id = mentionedIds.get(email);
+            if (id != null) recipients.add(id);
+        }
+        for (int i = 0; i < recipients.size(); i++) {
+            Long recipientId = recipients.get(i);
+            if (!notified.add(recipientId)) continue;
+            if (i == 0 && aggregateWindowMinutes > 0) {
+                aggregate(aggregates, Notification.Type.COMMENT, recipientId, c.publicationId(),
+                        c.publicationTitle(), c.actor(), snippet);
+                continue;
+            }
+            out.add(base(i == 0 ? Notification.Type.COMMENT : Notification.Type.MENTION, recipientId, c.actor())
+                    .publicationId(c.publicationId())
+                    .publicationTitle(c.publicationTitle())
                     .commentSnippet(snippet)
                     .build());
         }
+    }
+
+    // ── Aggregation ──
+
+    // Likes or comments on one publication for one recipient, collected over a batch
+    private static final class Aggregate {
+        final Notification.Type type;
+        final Long recipientId;
+        final Long publicationId;
+        final String publicationTitle;
+        // By email, latest last
+        final Map<String, NotificationEvent.Actor> actors = new LinkedHashMap<>();
+        String commentSnippet;
+        // The new row, when there was no open aggregate to fold into
+        Notification created;
+
+        Aggregate(Notification.Type type, Long recipientId, Long publicationId, String publicationTitle) {
+            this.type = type;
+            this.recipientId = recipientId;
+            this.publicationId = publicationId;
+            this.publicationTitle = publicationTitle;
+        }
+
+        NotificationEvent.Actor latest() {
+            return actors.values().stream().reduce((a, b) -> b).orElseThrow();
+        }
+
+        NotificationEvent.Actor previous() {
+            if (actors.size() < 2) return null;
+            return actors.values().stream().skip(actors.size() - 2L).findFirst().orElseThrow();
+        }
+    }
+
+    private static void aggregate(Map<String, Aggregate> aggregates, Notification.Type type, Long recipientId,
+                                  Long publicationId, String publicationTitle, NotificationEvent.Actor actor,
+                                  String commentSnippet) {
+        Aggregate a = aggregates.computeIfAbsent(type + ":" + recipientId + ":" + publicationId,
+                k -> new Aggregate(type, recipientId, publicationId, publicationTitle));
+        a.actors.remove(actor.email());
+        a.actors.put(actor.email(), actor);
+        a.commentSnippet = commentSnippet;
+    }
+
+    /**
+     * Folds each aggregate into the recipient's open row (unread, last activity within the
+     * window) and returns new rows for those without one. Updated rows stay unread, so the
+     * unread count only moves for the new ones; connected recipients get the updated row pushed.
+     * The actors of new rows are saved with them, in {@link #saveNewAggregateActors}.
+     */
+    private List<Notification> applyAggregates(Collection<Aggregate> aggregates) {
+        // Truncated to what the column stores, so the updated row can be found again by it
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        Instant since = now.minus(aggregateWindowMinutes, ChronoUnit.MINUTES);
+        List<Notification> created = new ArrayList<>();
+        List<Notification> updated = new ArrayList<>();
+        for (Aggregate a : aggregates) {
+            NotificationEvent.Actor latest = a.latest();
+            NotificationEvent.Actor previous = a.previous();
+            int rows = notificationRepository.addToAggregate(a.recipientId, a.type, a.publicationId, since,
+                    a.actors.size(), latest.name(), latest.picture(), latest.email(),
+                    previous != null ? previous.name() : "", a.commentSnippet, now);
+            if (rows == 0) {
+                a.created = base(a.type, a.recipientId, latest)
+                        .publicationId(a.publicationId)
+                        .publicationTitle(a.publicationTitle)
+                        .commentSnippet(a.commentSnippet)
+                        .actorCount(a.actors.size())
+                        .previousActorName(previous != null ? previous.name() : null)
+                        .build();
+                created.add(a.created);
+                continue;
+            }
+            List<Long> ids = notificationRepository.findAggregateIds(a.recipientId, a.type, a.publicationId, now);
+            ids.forEach(id -> addActors(id, a.actors.keySet()));
+            if (notificationStream.isConnected(a.recipientId)) {
+                updated.addAll(notificationRepository.findAllById(ids));
+            }
+        }
+        notificationStream.notificationsUpdated(updated);
+        return created;
+    }
+
+    // Stores and counts only the actors the open aggregate doesn't have yet
+    private void addActors(Long notificationId, Set<String> emails) {
+        Set<String> added = new LinkedHashSet<>(emails);
+        notificationActorRepository.findActorEmails(notificationId, emails).forEach(added::remove);
+        if (added.isEmpty()) return;
+        Notification aggregate = notificationRepository.getReferenceById(notificationId);
+        notificationActorRepository.saveAll(added.stream()
+                .map(email -> NotificationActor.builder().notification(aggregate).actorEmail(email).build())
+                .toList());
+        notificationRepository.addToActorCount(notificationId, added.size());
+    }
+
+    private void saveNewAggregateActors(Collection<Aggregate> aggregates) {
+        List<NotificationActor> actors = new ArrayList<>();
+        for (Aggregate a : aggregates) {
+            if (a.created == null) continue;
+            a.actors.keySet().forEach(email ->
+                    actors.add(NotificationActor.builder().notification(a.created).actorEmail(email).build()));
+        }
+        if (!actors.isEmpty()) notificationActorRepository.saveAll(actors);
+    }
+
+    private Notification.NotificationBuilder base(Notification.Type type, Long recipientId, NotificationEvent.Actor actor) {
+        return Notification.builder()
+                .recipient(userRepository.getReferenceById(recipientId))
+                .type(type)
+                .actorName(actor.name())
+                .actorPicture(actor.picture())
+                .actorEmail(actor.email());
+    }
 
-        // Notify mentioned users — batch-load all mentioned users in one query
-        List<String> mentionedEmails = new ArrayList<>();
+    // Emails from @[Display Name](email) mentions, in order of appearance
+    private static List<String> mentions(String text) {
+        List<String> emails = new ArrayList<>();
         Matcher matcher = MENTION_PATTERN.matcher(text);
         while (matcher.find()) {
-            mentionedEmails.add(matcher.group(2));
+            emails.add(matcher.group(2));
         }
+        return emails;
+    }
 
-        if (!mentionedEmails.isEmpty()) {
-            Map<String, User> mentionedUsers = userRepository.findByEmailIn(mentionedEmails).stream()
-                    .collect(Collectors.toMap(User::getEmail, u -> u));
-
-            for (String email : mentionedEmails) {
-                User mentioned = mentionedUsers.get(email);
-                if (mentioned != null && !notified.contains(mentioned.getId())) {
-                    notified.add(mentioned.getId());
-                    notificationRepository.save(Notification.builder()
-                            .recipient(mentioned)
-                            .type(Notification.Type.MENTION)
-                            .actorName(actor.getDisplayName() != null ? actor.getDisplayName() : "")
-                            .actorPicture(actor.getDisplayPicture())
-                            .actorEmail(actor.getEmail())
-                            .publicationId(pub.getId())
-                            .publicationTitle(pub.getTitle())
-                            .commentSnippet(snippet)
-                            .build());
-                }
-            }
+    /**
+     * One page of the user's notifications, newest first. {@code cursor} is the nextCursor of
+     * the previous page (null for the first); {@code limit} is clamped to notifications.max-page-size.
+     *
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    public FeedPage<Notification> getNotifications(User user, String cursor, Integer limit) {
+        int size = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
+        PageRequest page = PageRequest.of(0, size + 1);
+
+        List<Notification> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = notificationRepository.findPageFirst(user.getId(), page);
+        } else {
+            FeedCursor after = FeedCursor.decode(cursor);
+            rows = notificationRepository.findPageAfter(user.getId(), after.createdAt(), after.id(), page);
         }
+        return FeedPage.of(rows, size, NotificationService::cursorOf);
     }
 
-    public List<Notification> getNotifications(User user) {
-        return notificationRepository.findByRecipientIdOrderByCreatedAtDesc(user.getId());
+    /** Keyset position of a notification in the list, which is ordered by last activity. */
+    public static FeedCursor cursorOf(Notification n) {
+        return new FeedCursor(n.getLastActivityAt(), n.getId());
     }
 
+    /** Served from UnreadNotificationCounters; a miss reads users.unreadNotificationCount. */
     public long getUnreadCount(User user) {
-        return notificationRepository.countByRecipientIdAndReadFalse(user.getId());
+        return unreadCounters.get(user.getId(), () -> loadUnreadCount(user.getId()));
+    }
+
+    // Users from before the counter column have null: count them once and store it
+    private long loadUnreadCount(Long userId) {
+        Long stored = userRepository.findUnreadNotificationCount(userId);
+        if (stored != null) return stored;
+        long counted = notificationRepository.countByRecipientIdAndReadFalse(userId);
+        userRepository.initUnreadNotificationCount(userId, counted);
+        return counted;
     }
 
+    @Transactional
     public void markRead(Long notificationId, User user) {
         notificationRepository.findById(notificationId).ifPresent(n -> {
-            if (n.getRecipient().getId().equals(user.getId())) {
+            if (n.getRecipient().getId().equals(user.getId()) && !n.isRead()) {
                 n.setRead(true);
                 notificationRepository.save(n);
+                unreadChanged(user.getId(), -1);
             }
         });
     }
 
+    /** One UPDATE for the whole backlog, plus the counter reset. */
+    @Transactional
     public void markAllRead(User user) {
-        List<Notification> unread = notificationRepository.findByRecipientIdAndReadFalse(user.getId());
-        unread.forEach(n -> n.setRead(true));
-        notificationRepository.saveAll(unread);
+        int marked = notificationRepository.markAllRead(user.getId());
+        userRepository.resetUnreadNotificationCount(user.getId());
+        unreadCounters.reset(user.getId());
+        notificationStream.unreadChanged(user.getId(), -marked);
     }
 
+    /**
+     * Marks read everything up to and including the cursor position (the newest notification
+     * the client has shown), so notifications that arrived since, and aggregates that gained
+     * an actor since, stay unread.
+     *
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    @Transactional
+    public void markReadUpTo(User user, String cursor) {
+        FeedCursor upTo = FeedCursor.decode(cursor);
+        int marked = notificationRepository.markReadUpTo(user.getId(), upTo.createdAt(), upTo.id());
+        if (marked > 0) unreadChanged(user.getId(), -marked);
+    }
+
+    @Transactional
     public void deleteNotification(Long notificationId, User user) {
         notificationRepository.findById(notificationId).ifPresent(n -> {
             if (n.getRecipient().getId().equals(user.getId())) {
+                notificationActorRepository.deleteAllByNotificationId(n.getId());
                 notificationRepository.delete(n);
+                if (!n.isRead()) unreadChanged(user.getId(), -1);
             }
         });
     }
+
+    /** Deletes every notification about a publication, taking their unread ones off each recipient's count. */
+    @Transactional
+    public void deleteAllForPublication(Long publicationId) {
+        subtractUnread(notificationRepository.countUnreadByRecipientForPublication(publicationId));
+        notificationActorRepository.deleteAllByPublicationId(publicationId);
+        notificationRepository.deleteAllByPublicationId(publicationId);
+    }
+
+    /** Deletes every notification with no activity since {@code cutoff}, in one statement; returns how many. */
+    @Transactional
+    public int deleteOlderThan(Instant cutoff) {
+        subtractUnread(notificationRepository.countUnreadByRecipientActiveBefore(cutoff));
+        notificationActorRepository.deleteByLastActivityAtBefore(cutoff);
+        return notificationRepository.deleteByLastActivityAtBefore(cutoff);
+    }
+
+    // ── Unread counters ──
+
+    private void addToUnreadCounts(List<Notification> created) {
+        applyUnreadDeltas(created.stream()
+                .collect(Collectors.groupingBy(n -> n.getRecipient().getId(), Collectors.counting())));
+    }
+
+    private void subtractUnread(List<NotificationRepository.UnreadByRecipient> unread) {
+        Map<Long, Long> deltas = new HashMap<>();
+        unread.forEach(r -> deltas.put(r.getRecipientId(), -r.getCount()));
+        applyUnreadDeltas(deltas);
+        deltas.forEach(notificationStream::unreadChanged);
+    }
+
+    // One UPDATE per distinct delta: a batch is mostly one new notification per recipient
+    private void applyUnreadDeltas(Map<Long, Long> perRecipient) {
+        Map<Long, List<Long>> idsByDelta = new HashMap<>();
+        perRecipient.forEach((id, delta) -> idsByDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(id));
+        idsByDelta.forEach((delta, ids) -> userRepository.addToUnreadNotificationCounts(ids, delta));
+        perRecipient.forEach(unreadCounters::add);
+    }
+
+    private void unreadChanged(Long userId, long delta) {
+        userRepository.addToUnreadNotificationCounts(List.of(userId), delta);
+        unreadCounters.add(userId, delta);
+        notificationStream.unreadChanged(userId, delta);
+    }
 }
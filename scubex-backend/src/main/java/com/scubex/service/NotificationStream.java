@@ -0,0 +1,185 @@
+package com.scubex.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.scubex.DTO.NotificationView;
+import com.scubex.model.Notification;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Registry of open notification streams (Server-Sent Events), by user.
+ *
+ * A client gets its unread count once when it connects ({@code unread-count}) and from then
+ * on only changes: each new notification ({@code notification}) and the change to its unread
+ * count ({@code unread-delta}), so no endpoint needs polling. An aggregate that gains actors is
+ * sent again as a {@code notification} with the same id. Pushes happen after commit and
+ * are sent on virtual threads, so a slow client never holds up the writer that caused them.
+ * Users without an open stream cost nothing.
+ *
+ * Connections live in memory: like {@link com.scubex.cache.ContentVersions}, this assumes a
+ * single backend instance.
+ */
+@Component
+public class NotificationStream {
+
+    // Clients reconnect on their own when a stream ends; this bounds how long a dead one lingers
+    static final long TIMEOUT_MS = 30 * 60 * 1000L;
+
+    private final Map<Long, Set<SseEmitter>> connections = new ConcurrentHashMap<>();
+    private final Executor sender;
+    private final ExecutorService ownedSender;
+
+    public NotificationStream() {
+        this.ownedSender = Executors.newVirtualThreadPerTaskExecutor();
+        this.sender = ownedSender;
+    }
+
+    // Tests pass a direct executor
+    NotificationStream(Executor sender) {
+        this.ownedSender = null;
+        this.sender = sender;
+    }
+
+    /**
+     * Opens a stream for {@code userId}, starting with its current unread count. The count is
+     * read only after the stream is registered, so a change committed in between is either in
+     * the count or pushed as a delta, never lost.
+     */
+    public SseEmitter connect(long userId, LongSupplier unreadCount) {
+        SseEmitter emitter = new SseEmitter(TIMEOUT_MS);
+        connections.compute(userId, (id, emitters) -> {
+            Set<SseEmitter> set = emitters != null ? emitters : new CopyOnWriteArraySet<>();
+            set.add(emitter);
+            return set;
+        });
+        Runnable remove = () -> remove(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        send(userId, emitter, SseEmitter.event().name("unread-count").data(Map.of("count", unreadCount.getAsLong())));
+        return emitter;
+    }
+
+    public boolean isConnected(long userId) {
+        return connections.containsKey(userId);
+    }
+
+    public int connectedUsers() {
+        return connections.size();
+    }
+
+    // ── Pushes ──
+
+    /** Pushes freshly written notifications (all unread) to their recipients once the write commits. */
+    public void notificationsCreated(List<Notification> notifications) {
+        Map<Long, List<NotificationView>> byRecipient = byConnectedRecipient(notifications);
+        if (byRecipient.isEmpty()) return;
+        afterCommit(() -> byRecipient.forEach((userId, views) -> sender.execute(() -> {
+            views.forEach(v -> sendAll(userId, notification(v)));
+            sendAll(userId, delta(views.size()));
+        })));
+    }
+
+    /**
+     * Pushes notifications that changed in place (an aggregate that gained actors) once the
+     * write commits. Same {@code notification} event, so clients replace the item by id; they
+     * were already unread, so no delta.
+     */
+    public void notificationsUpdated(List<Notification> notifications) {
+        Map<Long, List<NotificationView>> byRecipient = byConnectedRecipient(notifications);
+        if (byRecipient.isEmpty()) return;
+        afterCommit(() -> byRecipient.forEach((userId, views) -> sender.execute(() ->
+                views.forEach(v -> sendAll(userId, notification(v))))));
+    }
+
+    /** Pushes a change of {@code userId}'s unread count (reads, deletes) once it commits. */
+    public void unreadChanged(long userId, long delta) {
+        if (delta == 0 || !isConnected(userId)) return;
+        afterCommit(() -> sender.execute(() -> sendAll(userId, delta(delta))));
+    }
+
+    // Keeps proxies from closing idle streams and finds connections whose client has gone.
+    // Sent on the sender like pushes: a slow client must not hold up the shared scheduler thread
+    @Scheduled(fixedRate = 25000)
+    public void heartbeat() {
+        connections.forEach((userId, emitters) -> emitters.forEach(e ->
+                sender.execute(() -> send(userId, e, SseEmitter.event().comment("ping")))));
+    }
+
+    @PreDestroy
+    void stop() {
+        connections.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        connections.clear();
+        if (ownedSender != null) ownedSender.shutdown();
+    }
+
+    // ── Helpers ──
+
+    private Map<Long, List<NotificationView>> byConnectedRecipient(List<Notification> notifications) {
+        if (notifications.isEmpty() || connections.isEmpty()) return Map.of();
+        return notifications.stream()
+                .filter(n -> isConnected(n.getRecipient().getId()))
+                .collect(Collectors.groupingBy(n -> n.getRecipient().getId(),
+                        Collectors.mapping(NotificationView::of, Collectors.toList())));
+    }
+
+    private static SseEmitter.SseEventBuilder notification(NotificationView view) {
+        return SseEmitter.event().name("notification").data(view);
+    }
+
+    private static SseEmitter.SseEventBuilder delta(long delta) {
+        return SseEmitter.event().name("unread-delta").data(Map.of("delta", delta));
+    }
+
+    private void sendAll(long userId, SseEmitter.SseEventBuilder event) {
+        Set<SseEmitter> emitters = connections.get(userId);
+        if (emitters == null) return;
+        emitters.forEach(e -> send(userId, e, event));
+    }
+
+    private void send(long userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // Client gone or stream already completed; the container finishes the request
+            remove(userId, emitter);
+        }
+    }
+
+    private void remove(long userId, SseEmitter emitter) {
+        connections.computeIfPresent(userId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
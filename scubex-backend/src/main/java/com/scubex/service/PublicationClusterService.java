@@ -0,0 +1,190 @@
+package com.scubex.service;
+
+import com.scubex.DTO.MapCluster;
+import com.scubex.DTO.PublicationView;
+import com.scubex.geo.HilbertCurve;
+import com.scubex.model.Publication;
+import com.scubex.model.PublicationCluster;
+import com.scubex.repository.PublicationClusterRepository;
+import com.scubex.repository.PublicationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Server-side map clustering.
+ *
+ * Every publication is counted in one cell per Hilbert level from {@link #MIN_LEVEL} to
+ * {@link #MAX_LEVEL} (level L splits the globe into 2^L x 2^L cells). Create and delete
+ * adjust those rows with in-DB increments, so a cluster query reads at most
+ * {@link #MAX_CLUSTERS} aggregate rows plus one query for their representatives,
+ * however many posts the viewport holds.
+ */
+@Slf4j
+@Service
+public class PublicationClusterService {
+
+    static final int MIN_LEVEL = 2;
+    static final int MAX_LEVEL = HilbertCurve.ORDER;
+    // A cell is about a quarter of a 256 px tile wide, so level = zoom + 2
+    static final int ZOOM_TO_LEVEL = 2;
+    // Coarser levels are used when the viewport would span more cells than this per axis
+    static final int MAX_CELLS_PER_AXIS = 32;
+    static final int MAX_CLUSTERS = 2048;
+
+    private final PublicationClusterRepository clusterRepository;
+    private final PublicationRepository publicationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public PublicationClusterService(PublicationClusterRepository clusterRepository,
+                                     PublicationRepository publicationRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.clusterRepository = clusterRepository;
+        this.publicationRepository = publicationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // ── Write side ──
+
+    /**
+     * Counts a new publication in its cell at every level. Two posts landing in the same new
+     * cell at once race on the insert; the loser retries and then finds the row to increment.
+     * Called inside a transaction (PublicationService.create) it joins it instead, and a lost
+     * race rolls back the whole create for the client to retry: the failed flush leaves
+     * nothing in that transaction to retry with.
+     */
+    public void add(Publication publication) {
+        if (publication.getSpatialKey() == null) return;
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            addInTransaction(publication);
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> addInTransaction(publication));
+        } catch (DataIntegrityViolationException e) {
+            transactionTemplate.executeWithoutResult(status -> addInTransaction(publication));
+        }
+    }
+
+    private void addInTransaction(Publication p) {
+        List<Long> keys = keysFor(p.getSpatialKey());
+        Set<Long> existing = new HashSet<>(clusterRepository.findExistingKeys(keys));
+        if (!existing.isEmpty()) {
+            clusterRepository.addPublication(existing, p.getLatitude(), p.getLongitude(), p.getId());
+        }
+        List<PublicationCluster> created = new ArrayList<>();
+        for (Long key : keys) {
+            if (existing.contains(key)) continue;
+            created.add(PublicationCluster.builder()
+                    .cellKey(key)
+                    .publicationCount(1L)
+                    .latitudeSum(p.getLatitude())
+                    .longitudeSum(p.getLongitude())
+                    .representativeId(p.getId())
+                    .build());
+        }
+        if (!created.isEmpty()) {
+            clusterRepository.saveAllAndFlush(created);
+        }
+    }
+
+    /**
+     * Takes a publication out of its cells, dropping cells that become empty. Where it was the
+     * representative, the next newest post is found bottom-up: the finest cell looks at the
+     * posts sharing its spatial key, every coarser cell at the representatives of its four children.
+     */
+    @Transactional
+    public void remove(Publication p) {
+        if (p.getSpatialKey() == null) return;
+        List<Long> keys = keysFor(p.getSpatialKey());
+        clusterRepository.removePublication(keys, p.getLatitude(), p.getLongitude());
+        clusterRepository.deleteEmpty(keys);
+
+        Set<Long> stale = new HashSet<>(clusterRepository.findKeysRepresentedBy(keys, p.getId()));
+        if (stale.isEmpty()) return;
+        for (int level = MAX_LEVEL; level >= MIN_LEVEL; level--) {
+            long cell = HilbertCurve.cellAt(p.getSpatialKey(), level);
+            long key = PublicationCluster.keyOf(level, cell);
+            if (!stale.contains(key)) continue;
+
+            Long newest = level == MAX_LEVEL
+                    ? publicationRepository.findNewestIdAtSpatialKey(p.getSpatialKey(), p.getId())
+                    : clusterRepository.findNewestRepresentativeBetween(
+                            PublicationCluster.keyOf(level + 1, cell * 4),
+                            PublicationCluster.keyOf(level + 1, cell * 4 + 3));
+            if (newest != null) clusterRepository.setRepresentative(key, newest);
+        }
+    }
+
+    /** Recomputes every cluster from the publications table (startup, seeding, repairs). */
+    @Transactional
+    public void rebuild() {
+        clusterRepository.deleteAllInBatch();
+        int rows = 0;
+        for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+            rows += clusterRepository.insertLevelFromPublications(level);
+        }
+        log.info("Rebuilt {} publication clusters", rows);
+    }
+
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (clusterRepository.count() == 0 && publicationRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    // ── Read side ──
+
+    /** Clusters covering the bounding box at a map zoom level, each with its newest publication. */
+    @Transactional(readOnly = true)
+    public List<MapCluster> getClusters(double latMin, double latMax, double lngMin, double lngMax, int zoom) {
+        int level = levelFor(latMin, latMax, lngMin, lngMax, zoom);
+        List<HilbertCurve.Range> cells = HilbertCurve.toLevel(HilbertCurve.cover(latMin, latMax, lngMin, lngMax), level);
+        List<PublicationCluster> clusters = clusterRepository.findInCellRanges(level, cells, MAX_CLUSTERS);
+        if (clusters.isEmpty()) return List.of();
+
+        List<Long> representativeIds = clusters.stream().map(PublicationCluster::getRepresentativeId).toList();
+        Map<Long, PublicationView> representatives = publicationRepository.findViewsByIdIn(representativeIds)
+                .stream().collect(Collectors.toMap(PublicationView::id, Function.identity()));
+
+        List<MapCluster> result = new ArrayList<>(clusters.size());
+        for (PublicationCluster c : clusters) {
+            long count = c.getPublicationCount();
+            result.add(new MapCluster(count, c.getLatitudeSum() / count, c.getLongitudeSum() / count,
+                    representatives.get(c.getRepresentativeId())));
+        }
+        return result;
+    }
+
+    /** Hilbert level for a zoom, lowered until the box spans at most MAX_CELLS_PER_AXIS cells per axis. */
+    static int levelFor(double latMin, double latMax, double lngMin, double lngMax, int zoom) {
+        int level = Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, zoom + ZOOM_TO_LEVEL));
+        double latSpan = Math.max(0, latMax - latMin), lngSpan = Math.max(0, lngMax - lngMin);
+        while (level > MIN_LEVEL
+                && Math.max(latSpan / 180.0, lngSpan / 360.0) * (1 << level) > MAX_CELLS_PER_AXIS) {
+            level--;
+        }
+        return level;
+    }
+
+    static List<Long> keysFor(long spatialKey) {
+        List<Long> keys = new ArrayList<>(MAX_LEVEL - MIN_LEVEL + 1);
+        for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+            keys.add(PublicationCluster.keyOf(level, HilbertCurve.cellAt(spatialKey, level)));
+        }
+        return keys;
+    }
+}
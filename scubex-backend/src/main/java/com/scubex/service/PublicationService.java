@@ -1,52 +1,168 @@
 package com.scubex.service;
 
+import com.scubex.DTO.FeedCursor;
+import com.scubex.DTO.FeedPage;
+import com.scubex.DTO.PublicationLocation;
+import com.scubex.DTO.PublicationView;
+import com.scubex.cache.ContentVersions;
+import com.scubex.cache.PublicationLocationIndex;
+import com.scubex.geo.HilbertCurve;
 import com.scubex.model.Publication;
 import com.scubex.model.User;
 import com.scubex.repository.CommentRepository;
-import com.scubex.repository.NotificationRepository;
 import com.scubex.repository.PublicationLikeRepository;
 import com.scubex.repository.PublicationRepository;
 import com.scubex.repository.PublicationSaveRepository;
+import com.scubex.repository.TimelineEntryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PublicationService {
 
+    static final int LOCATION_BATCH_SIZE = 10_000;
+
     private final PublicationRepository publicationRepository;
     private final CommentRepository commentRepository;
     private final PublicationLikeRepository likeRepository;
     private final PublicationSaveRepository saveRepository;
-    private final NotificationRepository notificationRepository;
+    private final NotificationService notificationService;
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final TimelineService timelineService;
+    private final PublicationClusterService clusterService;
+    private final PublicationLocationIndex locationIndex;
+    private final ContentVersions versions;
+
+    @Value("${feed.page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${feed.max-page-size:100}")
+    private int maxPageSize;
+
+    @Value("${area.max-results:500}")
+    private int maxAreaResults;
+
+    @Value("${feed.list-max-results:500}")
+    private int maxListResults;
 
     public PublicationService(PublicationRepository publicationRepository,
                               CommentRepository commentRepository,
                               PublicationLikeRepository likeRepository,
                               PublicationSaveRepository saveRepository,
-                              NotificationRepository notificationRepository) {
+                              NotificationService notificationService,
+                              TimelineEntryRepository timelineEntryRepository,
+                              TimelineService timelineService,
+                              PublicationClusterService clusterService,
+                              PublicationLocationIndex locationIndex,
+                              ContentVersions versions) {
         this.publicationRepository = publicationRepository;
         this.commentRepository = commentRepository;
         this.likeRepository = likeRepository;
         this.saveRepository = saveRepository;
-        this.notificationRepository = notificationRepository;
+        this.notificationService = notificationService;
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.timelineService = timelineService;
+        this.clusterService = clusterService;
+        this.locationIndex = locationIndex;
+        this.versions = versions;
     }
 
+    /**
+     * Saves the post, fans it out to timelines and counts it in the map clusters in one
+     * transaction: a failure leaves no post behind that is missing from either. The location
+     * index and cache versions follow on commit.
+     */
+    @Transactional
     public Publication create(Publication publication) {
-        return publicationRepository.save(publication);
+        Publication saved = publicationRepository.save(publication);
+        timelineService.fanOut(saved);
+        clusterService.add(saved);
+        locationIndex.addAfterCommit(saved.getId(), saved.getSpatialKey(), saved.getLatitude(), saved.getLongitude(),
+                saved.getCreatedAt().toEpochMilli());
+        versions.publicationChanged(saved.getUser().getId());
+        return saved;
+    }
+
+    /** Newest feed.list-max-results publications, for clients not yet on {@link #getFeed}. */
+    public List<PublicationView> getAll() {
+        return publicationRepository.findFeedFirstPage(PageRequest.of(0, maxListResults));
+    }
+
+    /**
+     * One page of the global feed, newest first, starting after {@code cursor} (null = first page).
+     *
+     * @throws IllegalArgumentException if the cursor token is malformed
+     */
+    public FeedPage<PublicationView> getFeed(String cursor, Integer limit) {
+        int size = pageSize(limit);
+        PageRequest page = PageRequest.of(0, size + 1);
+
+        List<PublicationView> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = publicationRepository.findFeedFirstPage(page);
+        } else {
+            FeedCursor after = FeedCursor.decode(cursor);
+            rows = publicationRepository.findFeedPageAfter(after.createdAt(), after.id(), page);
+        }
+
+        return FeedPage.ofViews(rows, size);
     }
 
-    public List<Publication> getAll() {
-        return publicationRepository.findAllByOrderByCreatedAtDesc();
+    /** Requested page size clamped to [1, feed.max-page-size]; null means feed.page-size. */
+    public int pageSize(Integer limit) {
+        return limit == null ? defaultPageSize : Math.max(1, Math.min(limit, maxPageSize));
     }
 
-    public List<Publication> getByUser(User user) {
-        return publicationRepository.findByUser(user);
+    public List<PublicationView> getByUser(User user) {
+        return publicationRepository.findViewsByUserId(user.getId());
+    }
+
+    /**
+     * Newest publications inside the bounding box, capped at {@code limit}
+     * (null or above area.max-results means area.max-results).
+     */
+    public List<PublicationView> getInArea(Double latMin, Double latMax, Double lngMin, Double lngMax, Integer limit) {
+        int max = limit == null ? maxAreaResults : Math.max(1, Math.min(limit, maxAreaResults));
+        if (!locationIndex.isLoaded()) {
+            List<HilbertCurve.Range> ranges = HilbertCurve.cover(latMin, latMax, lngMin, lngMax);
+            return publicationRepository.findInArea(ranges, latMin, latMax, lngMin, lngMax, max);
+        }
+
+        // The index picks the page; the database only hydrates those ids
+        long[] ids = locationIndex.query(latMin, latMax, lngMin, lngMax, max);
+        if (ids.length == 0) return List.of();
+        Map<Long, PublicationView> byId = publicationRepository.findViewsByIdIn(Arrays.stream(ids).boxed().toList())
+                .stream().collect(Collectors.toMap(PublicationView::id, Function.identity()));
+        List<PublicationView> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            PublicationView v = byId.get(id);
+            if (v != null) result.add(v);
+        }
+        return result;
     }
 
-    public List<Publication> getInArea(Double latMin, Double latMax, Double lngMin, Double lngMax) {
-        return publicationRepository.findByLatitudeBetweenAndLongitudeBetween(latMin, latMax, lngMin, lngMax);
+    /** Loads every publication location into the in-memory index, in id-ordered batches. */
+    public void reloadLocationIndex() {
+        PublicationLocationIndex.Builder builder = PublicationLocationIndex.builder();
+        long afterId = 0;
+        List<PublicationLocation> batch;
+        do {
+            batch = publicationRepository.findLocationsAfter(afterId, PageRequest.of(0, LOCATION_BATCH_SIZE));
+            for (PublicationLocation l : batch) {
+                builder.add(l.id(), l.spatialKey(), l.latitude(), l.longitude(), l.createdAt().toEpochMilli());
+                afterId = l.id();
+            }
+        } while (batch.size() == LOCATION_BATCH_SIZE);
+        locationIndex.install(builder);
     }
 
     public Publication getById(Long id) {
@@ -62,6 +178,7 @@ public class PublicationService {
         existing.setTitle(updated.getTitle());
         existing.setDescription(updated.getDescription());
         existing.setImageUrl(updated.getImageUrl());
+        versions.publicationChanged(user.getId());
         return publicationRepository.save(existing);
     }
 
@@ -76,8 +193,12 @@ public class PublicationService {
         commentRepository.deleteAllByPublicationIdIn(pubIds);
         likeRepository.deleteAllByPublicationIdIn(pubIds);
         saveRepository.deleteAllByPublicationIdIn(pubIds);
-        notificationRepository.deleteAllByPublicationId(id);
+        notificationService.deleteAllForPublication(id);
+        timelineEntryRepository.deleteAllByPublicationIdIn(pubIds);
+        clusterService.remove(existing);
+        locationIndex.removeAfterCommit(id);
         publicationRepository.delete(existing);
+        versions.publicationChanged(user.getId());
         return true;
     }
 }
@@ -0,0 +1,123 @@
+package com.scubex.service;
+
+import com.scubex.DTO.FeedCursor;
+import com.scubex.DTO.FeedPage;
+import com.scubex.model.Publication;
+import com.scubex.model.TimelineEntry;
+import com.scubex.model.User;
+import com.scubex.repository.PublicationRepository;
+import com.scubex.repository.TimelineEntryRepository;
+import com.scubex.repository.UserFollowRepository;
+import com.scubex.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Home timeline: publications from the accounts a user follows.
+ *
+ * Hybrid delivery. New posts are fanned out on write into timeline_entries, so a read is
+ * one keyset range scan per user. Authors with more than timeline.fanout.max-followers
+ * followers are not fanned out (one post would mean that many inserts); their posts are
+ * pulled at read time with the same keyset and merged in. Posts an author made before
+ * crossing the threshold stay in the timelines they were already delivered to.
+ *
+ * Both sides decide push versus pull on the stored users.followerCount, so a post is always
+ * either fanned out or pulled, even while the count has drifted from the follow rows.
+ */
+@Service
+public class TimelineService {
+
+    // Recent posts copied into a timeline when its owner starts following someone
+    static final int FOLLOW_BACKFILL = 20;
+
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final UserFollowRepository followRepository;
+    private final PublicationRepository publicationRepository;
+    private final UserRepository userRepository;
+
+    @Value("${timeline.fanout.max-followers:5000}")
+    private long maxFanOutFollowers;
+
+    public TimelineService(TimelineEntryRepository timelineEntryRepository,
+                           UserFollowRepository followRepository,
+                           PublicationRepository publicationRepository,
+                           UserRepository userRepository) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.followRepository = followRepository;
+        this.publicationRepository = publicationRepository;
+        this.userRepository = userRepository;
+    }
+
+    // ── Write side ──
+
+    /** Delivers a new publication to every follower's timeline, unless the author is pulled instead. */
+    @Transactional
+    public void fanOut(Publication publication) {
+        Long authorId = publication.getUser().getId();
+        if (isPulled(authorId)) return;
+        timelineEntryRepository.fanOut(authorId, publication.getId());
+    }
+
+    /** Backfills the followed account's latest posts so the timeline isn't empty until they post again. */
+    @Transactional
+    public void onFollow(User follower, User followed) {
+        if (isPulled(followed.getId())) return;
+        List<Publication> recent = publicationRepository.findByAuthorsFirstPage(
+                List.of(followed.getId()), PageRequest.of(0, FOLLOW_BACKFILL));
+        timelineEntryRepository.saveAll(recent.stream()
+                .map(p -> TimelineEntry.builder().user(follower).publication(p).createdAt(p.getCreatedAt()).build())
+                .toList());
+    }
+
+    @Transactional
+    public void onUnfollow(User follower, User followed) {
+        timelineEntryRepository.deleteByUserIdAndAuthorId(follower.getId(), followed.getId());
+    }
+
+    // Same test as findFollowedIdsWithMoreFollowersThan on the read side
+    private boolean isPulled(Long authorId) {
+        Long followers = userRepository.findFollowerCount(authorId);
+        return followers != null && followers > maxFanOutFollowers;
+    }
+
+    // ── Read side ──
+
+    /**
+     * One page of the user's home timeline, newest first. Uses the same cursor format as the
+     * global feed. Fanned-out entries and pulled posts are merged on (createdAt, id).
+     *
+     * @throws IllegalArgumentException if the cursor token is malformed
+     */
+    @Transactional(readOnly = true)
+    public FeedPage<Publication> getTimeline(User user, String cursor, int pageSize) {
+        FeedCursor after = (cursor == null || cursor.isBlank()) ? null : FeedCursor.decode(cursor);
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+
+        List<Publication> rows = new ArrayList<>(after == null
+                ? timelineEntryRepository.findTimelineFirstPage(user.getId(), page)
+                : timelineEntryRepository.findTimelinePageAfter(user.getId(), after.createdAt(), after.id(), page));
+
+        List<Long> pulled = followRepository.findFollowedIdsWithMoreFollowersThan(user.getId(), maxFanOutFollowers);
+        if (!pulled.isEmpty()) {
+            rows.addAll(after == null
+                    ? publicationRepository.findByAuthorsFirstPage(pulled, page)
+                    : publicationRepository.findByAuthorsPageAfter(pulled, after.createdAt(), after.id(), page));
+
+            // A post can be in both lists if its author crossed the threshold; keep one copy
+            Map<Long, Publication> unique = new LinkedHashMap<>();
+            rows.forEach(p -> unique.putIfAbsent(p.getId(), p));
+            rows = new ArrayList<>(unique.values());
+            rows.sort(Comparator.comparing(Publication::getCreatedAt).thenComparing(Publication::getId).reversed());
+            if (rows.size() > pageSize + 1) rows = rows.subList(0, pageSize + 1);
+        }
+        return FeedPage.ofPublications(rows, pageSize);
+    }
+}
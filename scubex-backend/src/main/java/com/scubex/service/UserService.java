@@ -1,5 +1,7 @@
 package com.scubex.service;
 
+import com.scubex.cache.ContentVersions;
+import com.scubex.cache.PublicationLocationIndex;
 import com.scubex.model.Publication;
 import com.scubex.model.User;
 import com.scubex.repository.*;
@@ -13,26 +15,44 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final NotificationRepository notificationRepository;
+    private final NotificationActorRepository notificationActorRepository;
+    private final NotificationOutboxRepository notificationOutboxRepository;
     private final UserFollowRepository userFollowRepository;
     private final PublicationRepository publicationRepository;
     private final CommentRepository commentRepository;
     private final PublicationLikeRepository publicationLikeRepository;
     private final PublicationSaveRepository publicationSaveRepository;
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final PublicationClusterService clusterService;
+    private final PublicationLocationIndex locationIndex;
+    private final ContentVersions versions;
 
     public UserService(UserRepository userRepository,
                        NotificationRepository notificationRepository,
+                       NotificationActorRepository notificationActorRepository,
+                       NotificationOutboxRepository notificationOutboxRepository,
                        UserFollowRepository userFollowRepository,
                        PublicationRepository publicationRepository,
                        CommentRepository commentRepository,
                        PublicationLikeRepository publicationLikeRepository,
-                       PublicationSaveRepository publicationSaveRepository) {
+                       PublicationSaveRepository publicationSaveRepository,
+                       TimelineEntryRepository timelineEntryRepository,
+                       PublicationClusterService clusterService,
+                       PublicationLocationIndex locationIndex,
+                       ContentVersions versions) {
         this.userRepository = userRepository;
         this.notificationRepository = notificationRepository;
+        this.notificationActorRepository = notificationActorRepository;
+        this.notificationOutboxRepository = notificationOutboxRepository;
         this.userFollowRepository = userFollowRepository;
         this.publicationRepository = publicationRepository;
         this.commentRepository = commentRepository;
         this.publicationLikeRepository = publicationLikeRepository;
         this.publicationSaveRepository = publicationSaveRepository;
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.clusterService = clusterService;
+        this.locationIndex = locationIndex;
+        this.versions = versions;
     }
 
     public User findOrCreate(String googleId, String email, String name, String pictureUrl) {
@@ -64,7 +84,10 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setCustomName(customName);
         user.setCustomPictureUrl(customPictureUrl);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // Display name and picture appear in every listing the user's posts and comments are in
+        versions.invalidateAll();
+        return saved;
     }
 
     @Transactional
@@ -73,12 +96,16 @@ public class UserService {
         if (user == null) return;
         Long userId = user.getId();
 
-        // 1. Delete notifications received by this user
+        // 1. Delete notifications received by this user, including those still in the outbox
+        notificationOutboxRepository.deleteAllByRecipientId(userId);
+        notificationActorRepository.deleteAllByRecipientId(userId);
         notificationRepository.deleteAllByRecipientId(userId);
 
-        // 2. Delete follow relationships (as follower and as followed)
+        // 2. Delete follow relationships (as follower and as followed) and the home timeline
+        userRepository.decrementFollowerCountsFollowedBy(userId);
         userFollowRepository.deleteAllByFollowerId(userId);
         userFollowRepository.deleteAllByFollowedId(userId);
+        timelineEntryRepository.deleteAllByUserId(userId);
 
         // 3. Collect user's publications to delete their interactions first
         List<Publication> pubs = publicationRepository.findByUser(user);
@@ -87,6 +114,7 @@ public class UserService {
             commentRepository.deleteAllByPublicationIdIn(pubIds);
             publicationLikeRepository.deleteAllByPublicationIdIn(pubIds);
             publicationSaveRepository.deleteAllByPublicationIdIn(pubIds);
+            timelineEntryRepository.deleteAllByPublicationIdIn(pubIds);
         }
 
         // 4. Delete user's own interactions on other users' publications
@@ -94,10 +122,14 @@ public class UserService {
         publicationLikeRepository.deleteAllByUserId(userId);
         publicationSaveRepository.deleteAllByUserId(userId);
 
-        // 5. Delete publications
+        // 5. Delete publications, then take them out of the map clusters (after the delete, so
+        //    no cluster picks another of these posts as its new representative)
         publicationRepository.deleteAll(pubs);
+        pubs.forEach(clusterService::remove);
+        pubs.forEach(p -> locationIndex.removeAfterCommit(p.getId()));
 
         // 6. Finally delete the user
         userRepository.delete(user);
+        versions.invalidateAll();
     }
 }
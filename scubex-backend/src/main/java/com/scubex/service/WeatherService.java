@@ -2,6 +2,8 @@ package com.scubex.service;
 
 import java.net.URI;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
@@ -9,18 +11,26 @@ import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import com.scubex.DTO.DailyForecastResponse;
+import com.scubex.DTO.DiveWindowResponse;
 import com.scubex.DTO.WeatherResponse;
+import com.scubex.cache.WeatherHotspotTracker;
+import com.scubex.cache.WeatherMemoryCache;
 import com.scubex.model.CachedWeather;
 import com.scubex.model.openmeteo.ForecastApiResponse;
 import com.scubex.model.openmeteo.MarineApiResponse;
 import com.scubex.repository.CachedWeatherRepository;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 @Service
 public class WeatherService {
 
@@ -30,29 +40,51 @@ public class WeatherService {
     @Autowired
     private CachedWeatherRepository cachedWeatherRepository;
 
+    @Autowired
+    private WeatherMemoryCache memoryCache;
+
+    @Autowired
+    private WeatherHotspotTracker hotspotTracker;
+
     @Value("${open-meteo.weather.url}")
     private String forecastApiUrl;
 
     @Value("${open-meteo.marine.url}")
     private String marineApiUrl;
 
-    private static double roundCoord(double value) {
-        return Math.round(value * 100.0) / 100.0;
-    }
-
     public WeatherResponse getWeather(double lat, double lng) {
-        double roundedLat = roundCoord(lat);
-        double roundedLng = roundCoord(lng);
+        long cellKey = WeatherMemoryCache.cellKey(lat, lng);
+        hotspotTracker.record(cellKey);
 
-        // Check cache first
+        // In-process cache first: hot dive sites never reach JDBC
+        WeatherResponse inMemory = memoryCache.get(cellKey);
+        if (inMemory != null) {
+            return inMemory;
+        }
+
+        // Then the DB cache (shared between instances / survives restarts), one row per cell
         Instant cutoff = Instant.now().minus(30, ChronoUnit.MINUTES);
-        Optional<CachedWeather> cached = cachedWeatherRepository
-                .findFirstByRoundedLatAndRoundedLngAndCreatedAtAfter(roundedLat, roundedLng, cutoff);
+        Optional<CachedWeather> cached = cachedWeatherRepository.findByCellKeyAndCreatedAtAfter(cellKey, cutoff);
 
         if (cached.isPresent()) {
-            return convertFromCache(cached.get());
+            WeatherResponse fromDb = convertFromCache(cached.get());
+            memoryCache.put(cellKey, fromDb, cached.get().getCreatedAt());
+            return fromDb;
         }
 
+        return fetchAndCache(lat, lng, cellKey);
+    }
+
+    /**
+     * Re-fetches current conditions for a cell centre, bypassing the caches.
+     * Used by the hotspot pre-fetcher so popular cells are renewed before they expire.
+     */
+    public WeatherResponse refreshWeather(long cellKey) {
+        return fetchAndCache(WeatherMemoryCache.cellLat(cellKey), WeatherMemoryCache.cellLng(cellKey), cellKey);
+    }
+
+    private WeatherResponse fetchAndCache(double lat, double lng, long cellKey) {
+        Instant fetchedAt = Instant.now();
         ForecastApiResponse.CurrentWeather atmosphere = callForecastApi(lat, lng);
         MarineApiResponse.CurrentMarine marine = callMarineApi(lat, lng);
 
@@ -61,8 +93,12 @@ public class WeatherService {
         // Evaluate diving condition
         response.setDivingCondition(evaluateDivingCondition(response));
 
-        // Save to cache
-        saveToCache(roundedLat, roundedLng, response);
+        // Save to cache (unless both upstream calls failed — don't pin an empty result for 30 min)
+        if (atmosphere != null || marine != null) {
+            memoryCache.put(cellKey, response, fetchedAt);
+            saveToCache(cellKey, WeatherMemoryCache.cellLat(cellKey), WeatherMemoryCache.cellLng(cellKey),
+                    response, fetchedAt);
+        }
 
         return response;
     }
@@ -153,63 +189,11 @@ public class WeatherService {
         return builder.build();
     }
 
-    /**
-     * Evaluate diving conditions based on weighted scoring.
-     * Returns "good", "moderate", or "bad".
-     *
-     * Critical overrides: extreme values in key factors force "bad" immediately.
-     * Weights: waves=3, current=3, visibility=2, wind=2, weatherCode=2, precipProb=1
-     * Each factor scores 0 (bad), 1 (moderate), or 2 (good).
-     * Weighted average >= 1.5 → good, >= 0.8 → moderate, else bad.
-     */
+    /** Scores current conditions with the shared {@link DivingScoreEngine}. */
     private String evaluateDivingCondition(WeatherResponse wr) {
-        // Critical overrides — extreme values in important factors = immediate "bad"
-        if (wr.getWaveHeight() != null && wr.getWaveHeight() > 2.5) return "bad";
-        if (wr.getOceanCurrentVelocity() != null && wr.getOceanCurrentVelocity() > 5) return "bad";
-        if (wr.getWindSpeed() != null && wr.getWindSpeed() > 40) return "bad";
-        if (wr.getWeatherCode() != null && (wr.getWeatherCode() == 95 || wr.getWeatherCode() == 96 || wr.getWeatherCode() == 99)) return "bad";
-        if (wr.getVisibility() != null && wr.getVisibility() < 1000) return "bad";
-
-        int score = 0;
-        int weight = 0;
-
-        // Waves (m): <0.5 good, 0.5-1.5 moderate, >1.5 bad — weight 3
-        if (wr.getWaveHeight() != null) {
-            weight += 3;
-            score += (wr.getWaveHeight() < 0.5 ? 2 : wr.getWaveHeight() < 1.5 ? 1 : 0) * 3;
-        }
-        // Current (km/h): <1 good, 1-3 moderate, >3 bad — weight 3
-        if (wr.getOceanCurrentVelocity() != null) {
-            weight += 3;
-            score += (wr.getOceanCurrentVelocity() < 1 ? 2 : wr.getOceanCurrentVelocity() < 3 ? 1 : 0) * 3;
-        }
-        // Visibility (m): >10000 good, 2000-10000 moderate, <2000 bad — weight 2
-        if (wr.getVisibility() != null) {
-            weight += 2;
-            score += (wr.getVisibility() > 10000 ? 2 : wr.getVisibility() > 2000 ? 1 : 0) * 2;
-        }
-        // Wind (km/h): <15 good, 15-30 moderate, >30 bad — weight 2
-        if (wr.getWindSpeed() != null) {
-            weight += 2;
-            score += (wr.getWindSpeed() < 15 ? 2 : wr.getWindSpeed() < 30 ? 1 : 0) * 2;
-        }
-        // Weather code: storms (95,96,99) bad, rain (>=61) moderate, else good — weight 2
-        if (wr.getWeatherCode() != null) {
-            weight += 2;
-            int wc = wr.getWeatherCode();
-            score += (wc == 95 || wc == 96 || wc == 99 ? 0 : wc >= 61 ? 1 : 2) * 2;
-        }
-        // Precipitation probability: <20 good, 20-60 moderate, >60 bad — weight 1
-        if (wr.getPrecipitationProbability() != null) {
-            weight += 1;
-            score += (wr.getPrecipitationProbability() < 20 ? 2 : wr.getPrecipitationProbability() < 60 ? 1 : 0);
-        }
-
-        if (weight == 0) return "moderate";
-        double avg = (double) score / weight;
-        if (avg >= 1.5) return "good";
-        if (avg >= 0.8) return "moderate";
-        return "bad";
+        return DivingScoreEngine.condition(DivingScoreEngine.scoreOne(
+                wr.getWaveHeight(), wr.getOceanCurrentVelocity(), wr.getVisibility(),
+                wr.getWindSpeed(), wr.getWeatherCode(), wr.getPrecipitationProbability()));
     }
 
     private WeatherResponse convertFromCache(CachedWeather cw) {
@@ -235,65 +219,119 @@ public class WeatherService {
                 .build();
     }
 
-    private void saveToCache(double roundedLat, double roundedLng, WeatherResponse wr) {
+    /**
+     * Upserts the single cached_weather row for this cell.
+     * createdAt guard: a row written by a later fetch is never overwritten with older data.
+     * Concurrent writers are resolved by the unique cellKey (insert race) and @Version
+     * (update race): the loser re-reads the row once and writes again, which the createdAt
+     * guard turns into a no-op when the winner's data is as fresh. The DB cache is a second
+     * level behind the memory cache, so any other failure is logged, not thrown.
+     */
+    private void saveToCache(long cellKey, double roundedLat, double roundedLng, WeatherResponse wr,
+            Instant fetchedAt) {
         try {
-            CachedWeather cw = CachedWeather.builder()
-                    .roundedLat(roundedLat)
-                    .roundedLng(roundedLng)
-                    .temperature(wr.getTemperature())
-                    .humidity(wr.getHumidity())
-                    .windSpeed(wr.getWindSpeed())
-                    .windDirection(wr.getWindDirection())
-                    .precipitation(wr.getPrecipitation())
-                    .precipitationProbability(wr.getPrecipitationProbability())
-                    .snowfall(wr.getSnowfall())
-                    .visibility(wr.getVisibility())
-                    .weatherCode(wr.getWeatherCode())
-                    .waveHeight(wr.getWaveHeight())
-                    .waveDirection(wr.getWaveDirection())
-                    .wavePeriod(wr.getWavePeriod())
-                    .seaSurfaceTemperature(wr.getSeaSurfaceTemperature())
-                    .oceanCurrentVelocity(wr.getOceanCurrentVelocity())
-                    .oceanCurrentDirection(wr.getOceanCurrentDirection())
-                    .swellWaveHeight(wr.getSwellWaveHeight())
-                    .seaLevelHeight(wr.getSeaLevelHeight())
-                    .divingCondition(wr.getDivingCondition())
-                    .build();
-
-            cachedWeatherRepository.save(cw);
-        } catch (Exception e) {
-            // ignore cache save errors
+            try {
+                writeCacheRow(cellKey, roundedLat, roundedLng, wr, fetchedAt);
+            } catch (DataIntegrityViolationException | OptimisticLockingFailureException conflict) {
+                writeCacheRow(cellKey, roundedLat, roundedLng, wr, fetchedAt);
+            }
+        } catch (RuntimeException e) {
+            log.warn("WeatherService: could not cache cell {} in cached_weather: {}", cellKey, e.toString());
         }
     }
 
+    private void writeCacheRow(long cellKey, double roundedLat, double roundedLng, WeatherResponse wr,
+            Instant fetchedAt) {
+        CachedWeather cw = cachedWeatherRepository.findByCellKey(cellKey)
+                .orElseGet(() -> CachedWeather.builder().cellKey(cellKey).build());
+        if (cw.getCreatedAt() != null && !cw.getCreatedAt().isBefore(fetchedAt)) {
+            return;
+        }
+
+        cw.setRoundedLat(roundedLat);
+        cw.setRoundedLng(roundedLng);
+        cw.setCreatedAt(fetchedAt);
+        cw.setTemperature(wr.getTemperature());
+        cw.setHumidity(wr.getHumidity());
+        cw.setWindSpeed(wr.getWindSpeed());
+        cw.setWindDirection(wr.getWindDirection());
+        cw.setPrecipitation(wr.getPrecipitation());
+        cw.setPrecipitationProbability(wr.getPrecipitationProbability());
+        cw.setSnowfall(wr.getSnowfall());
+        cw.setVisibility(wr.getVisibility());
+        cw.setWeatherCode(wr.getWeatherCode());
+        cw.setWaveHeight(wr.getWaveHeight());
+        cw.setWaveDirection(wr.getWaveDirection());
+        cw.setWavePeriod(wr.getWavePeriod());
+        cw.setSeaSurfaceTemperature(wr.getSeaSurfaceTemperature());
+        cw.setOceanCurrentVelocity(wr.getOceanCurrentVelocity());
+        cw.setOceanCurrentDirection(wr.getOceanCurrentDirection());
+        cw.setSwellWaveHeight(wr.getSwellWaveHeight());
+        cw.setSeaLevelHeight(wr.getSeaLevelHeight());
+        cw.setDivingCondition(wr.getDivingCondition());
+
+        cachedWeatherRepository.save(cw);
+    }
+
     // -------------------------------------------------------------------------
     // 7-day forecast (daily aggregates evaluated server-side)
     // -------------------------------------------------------------------------
 
     public List<DailyForecastResponse> getForecast(double lat, double lng) {
+        long cellKey = WeatherMemoryCache.cellKey(lat, lng);
+        hotspotTracker.record(cellKey);
+
+        List<DailyForecastResponse> cached = memoryCache.getForecast(cellKey);
+        if (cached != null) {
+            return cached;
+        }
+        return fetchAndCacheForecast(lat, lng, cellKey);
+    }
+
+    /** Re-fetches the 7-day forecast for a cell centre, bypassing the cache (hotspot pre-fetch). */
+    public List<DailyForecastResponse> refreshForecast(long cellKey) {
+        return fetchAndCacheForecast(WeatherMemoryCache.cellLat(cellKey), WeatherMemoryCache.cellLng(cellKey), cellKey);
+    }
+
+    private List<DailyForecastResponse> fetchAndCacheForecast(double lat, double lng, long cellKey) {
+        List<DailyForecastResponse> result = fetchForecast(lat, lng);
+        if (!result.isEmpty()) {
+            memoryCache.putForecast(cellKey, result);
+        }
+        return result;
+    }
+
+    private List<DailyForecastResponse> fetchForecast(double lat, double lng) {
         ForecastApiResponse.DailyForecast atmosphere = callForecastDailyApi(lat, lng);
         MarineApiResponse.DailyMarine marine = callMarineDailyApi(lat, lng);
 
         if (atmosphere == null || atmosphere.getTime() == null) return List.of();
 
-        List<DailyForecastResponse> result = new ArrayList<>();
-        for (int i = 0; i < atmosphere.getTime().size(); i++) {
-            Integer weatherCode = getOrNull(atmosphere.getWeatherCode(), i);
-            Double windSpeedMax = getOrNull(atmosphere.getWindSpeedMax(), i);
-            Double waveHeightMax = (marine != null) ? getOrNull(marine.getWaveHeightMax(), i) : null;
-            Double precipProbMax = getOrNull(atmosphere.getPrecipitationProbabilityMax(), i);
-            Double swellHeightMax = (marine != null) ? getOrNull(marine.getSwellWaveHeightMax(), i) : null;
+        // Daily maxima go through the same engine as a 7-row batch (no current/visibility columns)
+        int days = atmosphere.getTime().size();
+        DivingScoreEngine.Columns columns = DivingScoreEngine.Columns.allocate(days);
+        for (int i = 0; i < days; i++) {
+            columns.set(i,
+                    (marine != null) ? getOrNull(marine.getWaveHeightMax(), i) : null,
+                    null, null,
+                    getOrNull(atmosphere.getWindSpeedMax(), i),
+                    getOrNull(atmosphere.getWeatherCode(), i),
+                    getOrNull(atmosphere.getPrecipitationProbabilityMax(), i));
+        }
+        double[] scores = DivingScoreEngine.score(columns);
 
+        List<DailyForecastResponse> result = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
             result.add(DailyForecastResponse.builder()
                     .date(atmosphere.getTime().get(i))
-                    .weatherCode(weatherCode)
+                    .weatherCode(getOrNull(atmosphere.getWeatherCode(), i))
                     .tempMax(getOrNull(atmosphere.getTemperatureMax(), i))
                     .tempMin(getOrNull(atmosphere.getTemperatureMin(), i))
-                    .precipProbMax(precipProbMax)
-                    .windSpeedMax(windSpeedMax)
-                    .waveHeightMax(waveHeightMax)
-                    .swellHeightMax(swellHeightMax)
-                    .divingCondition(evaluateDailyCondition(weatherCode, windSpeedMax, waveHeightMax, precipProbMax))
+                    .precipProbMax(getOrNull(atmosphere.getPrecipitationProbabilityMax(), i))
+                    .windSpeedMax(getOrNull(atmosphere.getWindSpeedMax(), i))
+                    .waveHeightMax((marine != null) ? getOrNull(marine.getWaveHeightMax(), i) : null)
+                    .swellHeightMax((marine != null) ? getOrNull(marine.getSwellWaveHeightMax(), i) : null)
+                    .divingCondition(DivingScoreEngine.condition(scores[i]))
                     .build());
         }
         return result;
@@ -345,24 +383,118 @@ public class WeatherService {
         }
     }
 
-    private String evaluateDailyCondition(Integer weatherCode, Double windSpeedMax,
-            Double waveHeightMax, Double precipProbMax) {
-        if (weatherCode != null && (weatherCode == 95 || weatherCode == 96 || weatherCode == 99)) return "bad";
-        if (windSpeedMax != null && windSpeedMax > 40) return "bad";
-        if (waveHeightMax != null && waveHeightMax > 2.5) return "bad";
-
-        int score = 0, weight = 0;
-        if (waveHeightMax != null) { weight += 3; score += (waveHeightMax < 0.5 ? 2 : waveHeightMax < 1.5 ? 1 : 0) * 3; }
-        if (windSpeedMax != null) { weight += 2; score += (windSpeedMax < 15 ? 2 : windSpeedMax < 30 ? 1 : 0) * 2; }
-        if (precipProbMax != null) { weight += 1; score += (precipProbMax < 20 ? 2 : precipProbMax < 60 ? 1 : 0); }
-        if (weatherCode != null) {
-            weight += 2;
-            score += (weatherCode == 95 || weatherCode == 96 || weatherCode == 99 ? 0 : weatherCode >= 61 ? 1 : 2) * 2;
+    // -------------------------------------------------------------------------
+    // Dive windows (best contiguous hours over the next 7 days)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Top {@code topK} non-overlapping windows of {@code hours} consecutive hours, best first.
+     * The scored hourly series is cached per cell, so changing the window length or K
+     * never goes back to Open-Meteo.
+     */
+    public List<DiveWindowResponse> getDiveWindows(double lat, double lng, int hours, int topK) {
+        long cellKey = WeatherMemoryCache.cellKey(lat, lng);
+        hotspotTracker.record(cellKey);
+
+        WeatherMemoryCache.HourlySeries series = memoryCache.getHourly(cellKey);
+        if (series == null) {
+            series = fetchHourlySeries(lat, lng);
+            if (series == null) return List.of();
+            memoryCache.putHourly(cellKey, series);
+        }
+
+        // Hours already gone (local time at the site) can't be dived any more
+        LocalDateTime thisHour = LocalDateTime.now(ZoneOffset.ofTotalSeconds(series.utcOffsetSeconds()))
+                .truncatedTo(ChronoUnit.HOURS);
+        int from = 0;
+        while (from < series.time().size() && LocalDateTime.parse(series.time().get(from)).isBefore(thisHour)) {
+            from++;
+        }
+
+        List<DiveWindowResponse> result = new ArrayList<>();
+        for (DivingScoreEngine.Window w : DivingScoreEngine.bestWindows(series.scores(), from, hours, topK)) {
+            LocalDateTime start = LocalDateTime.parse(series.time().get(w.start()));
+            result.add(DiveWindowResponse.builder()
+                    .start(start.toString())
+                    .end(start.plusHours(hours).toString())
+                    .hours(hours)
+                    .score(Math.round(w.score() * 100) / 100.0)
+                    .divingCondition(DivingScoreEngine.condition(w.score()))
+                    .build());
+        }
+        return result;
+    }
+
+    private WeatherMemoryCache.HourlySeries fetchHourlySeries(double lat, double lng) {
+        ForecastApiResponse atmosphere = callForecastHourlyApi(lat, lng);
+        MarineApiResponse.HourlyMarine marine = callMarineHourlyApi(lat, lng);
+
+        if (atmosphere == null || atmosphere.getHourly() == null || atmosphere.getHourly().getTime() == null) {
+            return null;
+        }
+
+        // Both APIs are asked for the same local hours, so rows line up by index
+        ForecastApiResponse.HourlyForecast air = atmosphere.getHourly();
+        int n = air.getTime().size();
+        DivingScoreEngine.Columns columns = DivingScoreEngine.Columns.allocate(n);
+        for (int i = 0; i < n; i++) {
+            columns.set(i,
+                    (marine != null) ? getOrNull(marine.getWaveHeight(), i) : null,
+                    (marine != null) ? getOrNull(marine.getOceanCurrentVelocity(), i) : null,
+                    getOrNull(air.getVisibility(), i),
+                    getOrNull(air.getWindSpeed(), i),
+                    getOrNull(air.getWeatherCode(), i),
+                    getOrNull(air.getPrecipitationProbability(), i));
+        }
+
+        int offset = atmosphere.getUtcOffsetSeconds() != null ? atmosphere.getUtcOffsetSeconds() : 0;
+        return new WeatherMemoryCache.HourlySeries(List.copyOf(air.getTime()), offset, DivingScoreEngine.score(columns));
+    }
+
+    private ForecastApiResponse callForecastHourlyApi(double lat, double lng) {
+        try {
+            URI uri = UriComponentsBuilder.fromUriString(forecastApiUrl)
+                    .queryParam("latitude", lat)
+                    .queryParam("longitude", lng)
+                    .queryParam("hourly", "weather_code,wind_speed_10m,precipitation_probability,visibility")
+                    .queryParam("timezone", "auto")
+                    .queryParam("forecast_days", 7)
+                    .queryParam("wind_speed_unit", "kmh")
+                    .build()
+                    .encode()
+                    .toUri();
+
+            ResponseEntity<ForecastApiResponse> response = restTemplate.getForEntity(uri, ForecastApiResponse.class);
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                return response.getBody();
+            }
+            return null;
+        } catch (Exception e) {
+            return null;
         }
+    }
+
+    private MarineApiResponse.HourlyMarine callMarineHourlyApi(double lat, double lng) {
+        try {
+            URI uri = UriComponentsBuilder.fromUriString(marineApiUrl)
+                    .queryParam("latitude", lat)
+                    .queryParam("longitude", lng)
+                    .queryParam("hourly", "wave_height,ocean_current_velocity")
+                    .queryParam("timezone", "auto")
+                    .queryParam("forecast_days", 7)
+                    .queryParam("length_unit", "metric")
+                    .build()
+                    .encode()
+                    .toUri();
 
-        if (weight == 0) return "moderate";
-        double avg = (double) score / weight;
-        return avg >= 1.5 ? "good" : avg >= 0.8 ? "moderate" : "bad";
+            ResponseEntity<MarineApiResponse> response = restTemplate.getForEntity(uri, MarineApiResponse.class);
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                return response.getBody().getHourly();
+            }
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
     }
 
     private <T> T getOrNull(List<T> list, int index) {
@@ -0,0 +1,60 @@
+package com.scubex.benchmark;
+
+import com.scubex.service.DivingScoreEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark: scoring a 100x100 (10k-cell) heatmap grid with {@link DivingScoreEngine}.
+ *
+ * Not a unit test (surefire ignores it). Run after {@code mvn test-compile} with
+ * the test classpath, e.g. from the IDE via {@link #main(String[])}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DivingScoreBenchmark {
+
+    private static final int CELLS = 10_000;
+
+    private DivingScoreEngine.Columns grid;
+    private double[] scores;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        grid = DivingScoreEngine.Columns.allocate(CELLS);
+        for (int i = 0; i < CELLS; i++) {
+            grid.waveHeight()[i] = random.nextDouble(0, 3);
+            grid.currentVelocity()[i] = random.nextDouble(0, 6);
+            grid.visibility()[i] = random.nextDouble(500, 25000);
+            grid.windSpeed()[i] = random.nextDouble(0, 45);
+            grid.weatherCode()[i] = random.nextInt(100);
+            grid.precipProbability()[i] = random.nextDouble(0, 100);
+            // ~10% of cells without marine data, as inland cells would be
+            if (random.nextInt(10) == 0) {
+                grid.waveHeight()[i] = Double.NaN;
+                grid.currentVelocity()[i] = Double.NaN;
+            }
+        }
+        scores = new double[CELLS];
+    }
+
+    @Benchmark
+    public double[] scoreGrid() {
+        DivingScoreEngine.score(grid, scores);
+        return scores;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DivingScoreBenchmark.class.getSimpleName()).build()).run();
+    }
+}
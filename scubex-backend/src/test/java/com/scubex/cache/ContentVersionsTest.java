@@ -0,0 +1,86 @@
+package com.scubex.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentVersionsTest {
+
+    private final ContentVersions versions = new ContentVersions();
+
+    @Test
+    void publicationChange_movesListAndAuthorProfileTagsOnly() {
+        String list = versions.publicationsTag();
+        String author = versions.profileTag(1L, null);
+        String other = versions.profileTag(2L, null);
+        String comments = versions.commentsTag(10L);
+
+        versions.publicationChanged(1L);
+
+        assertThat(versions.publicationsTag()).isNotEqualTo(list);
+        assertThat(versions.profileTag(1L, null)).isNotEqualTo(author);
+        assertThat(versions.profileTag(2L, null)).isEqualTo(other);
+        assertThat(versions.commentsTag(10L)).isEqualTo(comments);
+    }
+
+    @Test
+    void counterChanges_moveAuthorProfileButNotListTag() {
+        String list = versions.publicationsTag();
+        String author = versions.profileTag(1L, null);
+        String comments = versions.commentsTag(10L);
+
+        versions.countersChanged(1L);
+        versions.commentsChanged(10L, 1L);
+
+        assertThat(versions.publicationsTag()).isEqualTo(list);
+        assertThat(versions.profileTag(1L, null)).isNotEqualTo(author);
+        assertThat(versions.commentsTag(10L)).isNotEqualTo(comments);
+    }
+
+    @Test
+    void profileTag_differsPerViewer_andFollowMovesBothUsers() {
+        assertThat(versions.profileTag(1L, 2L)).isNotEqualTo(versions.profileTag(1L, 3L));
+
+        String followed = versions.profileTag(1L, 2L);
+        String follower = versions.profileTag(2L, null);
+        versions.followChanged(2L, 1L);
+
+        assertThat(versions.profileTag(1L, 2L)).isNotEqualTo(followed);
+        assertThat(versions.profileTag(2L, null)).isNotEqualTo(follower);
+    }
+
+    @Test
+    void invalidateAll_movesEveryTag() {
+        String list = versions.publicationsTag();
+        String profile = versions.profileTag(1L, null);
+        String comments = versions.commentsTag(10L);
+
+        versions.invalidateAll();
+
+        assertThat(versions.publicationsTag()).isNotEqualTo(list);
+        assertThat(versions.profileTag(1L, null)).isNotEqualTo(profile);
+        assertThat(versions.commentsTag(10L)).isNotEqualTo(comments);
+    }
+
+    @Test
+    void insideTransaction_bumpIsDeferredUntilCommit() {
+        String before = versions.commentsTag(10L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            versions.commentsChanged(10L, 1L);
+            assertThat(versions.commentsTag(10L)).isEqualTo(before);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(versions.commentsTag(10L)).isNotEqualTo(before);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void newInstance_doesNotReuseTags() {
+        assertThat(new ContentVersions().publicationsTag()).isNotEqualTo(versions.publicationsTag());
+    }
+}
@@ -0,0 +1,136 @@
+package com.scubex.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LikeCounterBufferTest {
+
+    private final LikeCounterBuffer buffer = new LikeCounterBuffer();
+
+    @Test
+    void drain_returnsNetDeltasAndResets() {
+        buffer.add(1L, 1);
+        buffer.add(1L, 1);
+        buffer.add(2L, 1);
+        buffer.add(2L, -1);
+
+        assertThat(buffer.drain()).containsExactlyEntriesOf(Map.of(1L, 2L));
+        assertThat(buffer.pending(1L)).isZero();
+        assertThat(buffer.drain()).isEmpty();
+    }
+
+    @Test
+    void drain_prunesIdleAddersOnlyPastThreshold() {
+        for (long id = 0; id <= LikeCounterBuffer.PRUNE_THRESHOLD; id++) buffer.add(id, 1);
+        buffer.drain();
+        assertThat(buffer.size()).isEqualTo(LikeCounterBuffer.PRUNE_THRESHOLD + 1);
+
+        buffer.add(5L, 1);
+        assertThat(buffer.drain()).containsExactlyEntriesOf(Map.of(5L, 1L));
+        assertThat(buffer.size()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentLikes_areNotLostAcrossDrains() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < 10_000; i++) buffer.add(7L, 1);
+            });
+        }
+        long drained = 0;
+        while (!pool.isTerminated()) {
+            pool.shutdown();
+            drained += buffer.drain().getOrDefault(7L, 0L);
+        }
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+        drained += buffer.drain().getOrDefault(7L, 0L);
+
+        assertThat(drained).isEqualTo(80_000L);
+    }
+
+    @Test
+    void restore_putsFailedFlushBack() {
+        buffer.add(3L, 4);
+        Map<Long, Long> deltas = buffer.drain();
+
+        buffer.restore(deltas);
+
+        assertThat(buffer.pending(3L)).isEqualTo(4L);
+    }
+
+    @Test
+    void addAfterCommit_countsOnCommitOnly() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            buffer.addAfterCommit(1L, 1);
+            assertThat(buffer.pending(1L)).isZero();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(buffer.pending(1L)).isEqualTo(1L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            buffer.addAfterCommit(1L, 1);
+            // Rolled back: completion without afterCommit
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            assertThat(buffer.pending(1L)).isEqualTo(1L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void recountRange_resetsOnlyThatRangesDeltas() {
+        buffer.add(5L, 2);
+        buffer.add(15L, 3);
+
+        int repaired = buffer.recountRange(0, 10, () -> {
+            // Deltas are still there while the range is recounted
+            assertThat(buffer.pending(5L)).isEqualTo(2L);
+            return 1;
+        });
+
+        assertThat(repaired).isEqualTo(1);
+        assertThat(buffer.pending(5L)).isZero();
+        assertThat(buffer.pending(15L)).isEqualTo(3L);
+    }
+
+    @Test
+    void flush_waitsForRecountOfARange() throws Exception {
+        AtomicBoolean flushed = new AtomicBoolean();
+        CountDownLatch recounting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread recount = Thread.ofVirtual().start(() -> buffer.recountRange(0, 10, () -> {
+            recounting.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        }));
+        recounting.await();
+        Thread flush = Thread.ofVirtual().start(() -> buffer.outsideRecount(() -> flushed.set(true)));
+        flush.join(200);
+        assertThat(flushed).isFalse();
+
+        release.countDown();
+        flush.join(5000);
+        recount.join(5000);
+        assertThat(flushed).isTrue();
+    }
+}
@@ -0,0 +1,117 @@
+package com.scubex.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.scubex.geo.HilbertCurve;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublicationLocationIndexTest {
+
+    private final PublicationLocationIndex index = new PublicationLocationIndex();
+
+    private record Row(long id, double lat, double lng, long time) {}
+
+    private void add(Row r) {
+        index.add(r.id(), HilbertCurve.encode(r.lat(), r.lng()), r.lat(), r.lng(), r.time());
+    }
+
+    @Test
+    void query_returnsNewestInsideBoxFirstAndRespectsLimit() {
+        index.install(PublicationLocationIndex.builder()
+                .add(1, HilbertCurve.encode(36.7, -3.7), 36.7, -3.7, 100)
+                .add(2, HilbertCurve.encode(36.8, -3.9), 36.8, -3.9, 300)
+                .add(3, HilbertCurve.encode(41.0, 2.0), 41.0, 2.0, 500));
+        add(new Row(4, 36.75, -3.8, 200));
+
+        assertThat(index.query(36.0, 37.0, -4.0, -3.0, 10)).containsExactly(2, 4, 1);
+        assertThat(index.query(36.0, 37.0, -4.0, -3.0, 2)).containsExactly(2, 4);
+    }
+
+    @Test
+    void remove_hidesRowsFromBaseAndDelta() {
+        index.install(PublicationLocationIndex.builder()
+                .add(1, HilbertCurve.encode(36.7, -3.7), 36.7, -3.7, 100));
+        add(new Row(2, 36.71, -3.71, 200));
+
+        index.remove(1);
+        index.remove(2);
+
+        assertThat(index.query(36.0, 37.0, -4.0, -3.0, 10)).isEmpty();
+    }
+
+    @Test
+    void afterCommitChanges_applyOnCommitOnly() {
+        index.install(PublicationLocationIndex.builder()
+                .add(1, HilbertCurve.encode(36.7, -3.7), 36.7, -3.7, 100));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.removeAfterCommit(1);
+            index.addAfterCommit(2, HilbertCurve.encode(36.71, -3.71), 36.71, -3.71, 200);
+            assertThat(index.query(36.0, 37.0, -4.0, -3.0, 10)).containsExactly(1);
+            // Rolled back: completion without afterCommit
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            assertThat(index.query(36.0, 37.0, -4.0, -3.0, 10)).containsExactly(1);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.removeAfterCommit(1);
+            index.addAfterCommit(2, HilbertCurve.encode(36.71, -3.71), 36.71, -3.71, 200);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(index.query(36.0, 37.0, -4.0, -3.0, 10)).containsExactly(2);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void install_keepsChangesMadeWhileLoading() {
+        add(new Row(5, 36.7, -3.7, 900));   // created during the load
+        index.remove(1);                      // deleted during the load
+        assertThat(index.isLoaded()).isFalse();
+
+        index.install(PublicationLocationIndex.builder()
+                .add(1, HilbertCurve.encode(36.6, -3.6), 36.6, -3.6, 100)
+                .add(5, HilbertCurve.encode(36.7, -3.7), 36.7, -3.7, 900));
+
+        assertThat(index.isLoaded()).isTrue();
+        assertThat(index.query(36.0, 37.0, -4.0, -3.0, 10)).containsExactly(5);
+    }
+
+    @Test
+    void query_matchesBruteForceAcrossCompactions() {
+        Random random = new Random(7);
+        List<Row> live = new ArrayList<>();
+        index.install(PublicationLocationIndex.builder());
+        for (long id = 1; id <= 5_000; id++) {
+            Row r = new Row(id, 35 + random.nextDouble() * 8, -9 + random.nextDouble() * 12, random.nextInt(1_000_000));
+            add(r);
+            live.add(r);
+            if (random.nextInt(4) == 0) {
+                index.remove(live.remove(random.nextInt(live.size())).id());
+            }
+        }
+
+        double latMin = 36.0, latMax = 38.5, lngMin = -6.0, lngMax = -1.5;
+        long[] expected = live.stream()
+                .filter(r -> r.lat() >= latMin && r.lat() <= latMax && r.lng() >= lngMin && r.lng() <= lngMax)
+                .sorted(Comparator.comparingLong(Row::time).thenComparingLong(Row::id).reversed())
+                .limit(50)
+                .mapToLong(Row::id)
+                .toArray();
+
+        assertThat(index.query(latMin, latMax, lngMin, lngMax, 50)).containsExactly(expected);
+        assertThat(index.size()).isGreaterThanOrEqualTo(live.size());
+    }
+}
@@ -0,0 +1,69 @@
+package com.scubex.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UnreadNotificationCountersTest {
+
+    private final UnreadNotificationCounters counters = new UnreadNotificationCounters();
+
+    @Test
+    void get_loadsOnceThenServesFromMemory() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(counters.get(1L, () -> { loads.incrementAndGet(); return 5; })).isEqualTo(5);
+        assertThat(counters.get(1L, () -> { loads.incrementAndGet(); return 9; })).isEqualTo(5);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void get_loaderRunsOutsideTheMap_firstStoredValueWins() {
+        // Another reader stores the count while this loader is still querying
+        long value = counters.get(1L, () -> {
+            counters.get(1L, () -> 3);
+            return 9;
+        });
+
+        assertThat(value).isEqualTo(3);
+        assertThat(counters.get(1L, () -> -1)).isEqualTo(3);
+    }
+
+    @Test
+    void add_patchesCachedCounter_neverBelowZero() {
+        counters.get(1L, () -> 2);
+
+        counters.add(1L, 3);
+        assertThat(counters.get(1L, () -> -1)).isEqualTo(5);
+
+        counters.add(1L, -10);
+        assertThat(counters.get(1L, () -> -1)).isZero();
+    }
+
+    @Test
+    void add_forUncachedUser_leavesItToTheNextLoad() {
+        counters.add(1L, 3);
+
+        assertThat(counters.size()).isZero();
+        assertThat(counters.get(1L, () -> 7)).isEqualTo(7);
+    }
+
+    @Test
+    void insideTransaction_changeIsAppliedAfterCommit() {
+        counters.get(1L, () -> 2);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            counters.reset(1L);
+            assertThat(counters.get(1L, () -> -1)).isEqualTo(2);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(counters.get(1L, () -> -1)).isZero();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.scubex.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeatherHotspotTrackerTest {
+
+    private final WeatherHotspotTracker tracker = new WeatherHotspotTracker();
+
+    private void hit(long cellKey, int times) {
+        for (int i = 0; i < times; i++) tracker.record(cellKey);
+    }
+
+    @Test
+    void topCells_returnsHottestFirstAndRespectsMinHits() {
+        long medes = WeatherMemoryCache.cellKey(42.05, 3.22);
+        long caboDePalos = WeatherMemoryCache.cellKey(37.63, -0.69);
+        long tabarca = WeatherMemoryCache.cellKey(38.17, -0.48);
+        long quiet = WeatherMemoryCache.cellKey(40.0, 0.0);
+        hit(medes, 5);
+        hit(caboDePalos, 9);
+        hit(tabarca, 3);
+        hit(quiet, 1);
+
+        assertThat(tracker.topCells(2, 2)).containsExactly(caboDePalos, medes);
+        assertThat(tracker.topCells(10, 2)).containsExactly(caboDePalos, medes, tabarca);
+    }
+
+    @Test
+    void decay_halvesCountsAndForgetsColdCells() {
+        long hot = WeatherMemoryCache.cellKey(42.05, 3.22);
+        long cold = WeatherMemoryCache.cellKey(40.0, 0.0);
+        hit(hot, 8);
+        hit(cold, 1);
+
+        tracker.decay();
+
+        assertThat(tracker.hits(hot)).isEqualTo(4);
+        assertThat(tracker.hits(cold)).isZero();
+        assertThat(tracker.topCells(10, 1)).containsExactly(hot);
+    }
+}
@@ -0,0 +1,49 @@
+package com.scubex.cache;
+
+import com.scubex.DTO.WeatherResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeatherMemoryCacheTest {
+
+    private final WeatherMemoryCache cache = new WeatherMemoryCache();
+
+    @Test
+    void cellKey_roundTripsNegativeCoordinates() {
+        long key = WeatherMemoryCache.cellKey(-33.8712, -151.2049);
+
+        assertThat(WeatherMemoryCache.cellLat(key)).isEqualTo(-33.87);
+        assertThat(WeatherMemoryCache.cellLng(key)).isEqualTo(-151.2);
+    }
+
+    @Test
+    void cellKey_nearbyPointsShareCell() {
+        assertThat(WeatherMemoryCache.cellKey(42.0451, 3.2249))
+                .isEqualTo(WeatherMemoryCache.cellKey(42.0539, 3.2201));
+    }
+
+    @Test
+    void get_expiredEntry_returnsNull() {
+        long key = WeatherMemoryCache.cellKey(37.6, -0.7);
+        cache.put(key, new WeatherResponse(), Instant.now().minus(WeatherMemoryCache.TTL).minusSeconds(1));
+
+        assertThat(cache.get(key)).isNull();
+    }
+
+    @Test
+    void put_beyondBound_evictsOldest() {
+        Instant base = Instant.now().minusSeconds(600);
+        for (int i = 0; i < WeatherMemoryCache.MAX_ENTRIES; i++) {
+            cache.put(WeatherMemoryCache.pack(i, 0), new WeatherResponse(), base.plusMillis(i));
+        }
+
+        cache.put(WeatherMemoryCache.pack(-1, -1), new WeatherResponse());
+
+        assertThat(cache.size()).isEqualTo(WeatherMemoryCache.MAX_ENTRIES);
+        assertThat(cache.get(WeatherMemoryCache.pack(0, 0))).isNull();
+        assertThat(cache.get(WeatherMemoryCache.pack(-1, -1))).isNotNull();
+    }
+}
@@ -0,0 +1,44 @@
+package com.scubex.config;
+
+import org.junit.jupiter.api.Test;
+
+import static com.scubex.config.IdSequenceAlignment.ALLOCATION_SIZE;
+import static com.scubex.config.IdSequenceAlignment.restartValue;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for IdSequenceAlignment.restartValue.
+ * - a fresh sequence behind existing ids is restarted a full block past the last id
+ * - a sequence ahead by less than one block still collides and is restarted
+ * - a sequence one block or more ahead is left alone
+ * - after a restart, the block Hibernate derives from the next value starts past the last id
+ */
+class IdSequenceAlignmentTest {
+
+    @Test
+    void freshSequence_restartsOneBlockPastLastId() {
+        assertThat(restartValue(1000, 1)).hasValue(1000 + ALLOCATION_SIZE + 1);
+    }
+
+    @Test
+    void sequenceAheadByLessThanOneBlock_isRestarted() {
+        // Pooled block for 1010 is 961..1010, which overlaps ids up to 1000
+        assertThat(restartValue(1000, 1010)).hasValue(1051);
+    }
+
+    @Test
+    void sequenceAheadByOneBlock_isLeftAlone() {
+        assertThat(restartValue(1000, 1000 + ALLOCATION_SIZE)).isEmpty();
+        assertThat(restartValue(1000, 5000)).isEmpty();
+    }
+
+    @Test
+    void restartedSequence_handsOutOnlyNewIds() {
+        long maxId = 1234;
+        long next = restartValue(maxId, 1).getAsLong();
+        // pooled: next - ALLOCATION_SIZE + 1 .. next; pooled-lo: next .. next + ALLOCATION_SIZE - 1
+        assertThat(next - ALLOCATION_SIZE + 1).isGreaterThan(maxId);
+        // Next boot: the restarted value is not moved again
+        assertThat(restartValue(maxId, next)).isEmpty();
+    }
+}
@@ -1,6 +1,7 @@
 package com.scubex.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scubex.cache.ContentVersions;
 import com.scubex.model.Comment;
 import com.scubex.model.Publication;
 import com.scubex.model.User;
@@ -12,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -35,6 +37,7 @@ class InteractionControllerTest {
     @Mock private InteractionService interactionService;
     @Mock private PublicationService publicationService;
     @Mock private UserService userService;
+    @Spy private ContentVersions versions = new ContentVersions();
     @Mock private AuthHelper authHelper;
 
     @InjectMocks
@@ -87,6 +90,36 @@ class InteractionControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void like_put_isIdempotentAndReturnsLikedState() throws Exception {
+        User user = buildUser();
+        Publication pub = buildPublication(user);
+        when(authHelper.getUser(any())).thenReturn(user);
+        when(publicationService.getById(5L)).thenReturn(pub);
+        when(interactionService.like(pub, user)).thenReturn(false); // already liked
+        when(interactionService.getLikeCount(5L)).thenReturn(3L);
+
+        mockMvc.perform(put("/api/publications/5/like").principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.liked").value(true))
+                .andExpect(jsonPath("$.count").value(3));
+    }
+
+    @Test
+    void unlike_delete_returnsUnlikedState() throws Exception {
+        User user = buildUser();
+        Publication pub = buildPublication(user);
+        when(authHelper.getUser(any())).thenReturn(user);
+        when(publicationService.getById(5L)).thenReturn(pub);
+        when(interactionService.getLikeCount(5L)).thenReturn(2L);
+
+        mockMvc.perform(delete("/api/publications/5/like").principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.liked").value(false))
+                .andExpect(jsonPath("$.count").value(2));
+        verify(interactionService).unlike(pub, user);
+    }
+
     @Test
     void getLikeStatus_authenticated_returns200() throws Exception {
         User user = buildUser();
@@ -130,6 +163,19 @@ class InteractionControllerTest {
                 .andExpect(jsonPath("$.saved").value(true));
     }
 
+    @Test
+    void unsave_delete_returnsUnsavedState() throws Exception {
+        User user = buildUser();
+        Publication pub = buildPublication(user);
+        when(authHelper.getUser(any())).thenReturn(user);
+        when(publicationService.getById(5L)).thenReturn(pub);
+
+        mockMvc.perform(delete("/api/publications/5/save").principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.saved").value(false));
+        verify(interactionService).unsave(pub, user);
+    }
+
     @Test
     void getSaveStatus_unauthenticated_returns200WithSavedFalse() throws Exception {
         User user = buildUser();
@@ -1,12 +1,15 @@
 package com.scubex.controller;
 
+import com.scubex.DTO.FeedPage;
 import com.scubex.model.Notification;
 import com.scubex.model.User;
 import com.scubex.service.NotificationService;
+import com.scubex.service.NotificationStream;
 import com.scubex.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -15,10 +18,13 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.function.LongSupplier;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -29,6 +35,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class NotificationControllerTest {
 
     @Mock private NotificationService notificationService;
+    @Mock private NotificationStream notificationStream;
     @Mock private UserService userService;
     @Mock private AuthHelper authHelper;
 
@@ -56,6 +63,7 @@ class NotificationControllerTest {
                 .publicationTitle("Mi inmersión")
                 .commentSnippet("")
                 .createdAt(Instant.now())
+                .lastActivityAt(Instant.now())
                 .build();
     }
 
@@ -65,15 +73,28 @@ class NotificationControllerTest {
     }
 
     @Test
-    void getNotifications_authenticated_returns200WithList() throws Exception {
+    void getNotifications_authenticated_returns200WithPage() throws Exception {
         when(authHelper.getUser(any())).thenReturn(buildUser());
-        when(notificationService.getNotifications(any())).thenReturn(List.of(buildNotification()));
+        when(notificationService.getNotifications(any(), eq("abc"), eq(10)))
+                .thenReturn(new FeedPage<>(List.of(buildNotification()), "next"));
 
-        mockMvc.perform(get("/api/notifications").principal(principal))
+        mockMvc.perform(get("/api/notifications").param("cursor", "abc").param("limit", "10").principal(principal))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].type").value("LIKE"))
-                .andExpect(jsonPath("$[0].actorName").value("Carlos"))
-                .andExpect(jsonPath("$[0].publicationId").value(5));
+                .andExpect(jsonPath("$.items[0].type").value("LIKE"))
+                .andExpect(jsonPath("$.items[0].actorName").value("Carlos"))
+                .andExpect(jsonPath("$.items[0].publicationId").value(5))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.headCursor").isNotEmpty());
+    }
+
+    @Test
+    void getNotifications_invalidCursor_returns400() throws Exception {
+        when(authHelper.getUser(any())).thenReturn(buildUser());
+        when(notificationService.getNotifications(any(), eq("bad"), any()))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/notifications").param("cursor", "bad").principal(principal))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -86,6 +107,21 @@ class NotificationControllerTest {
                 .andExpect(jsonPath("$.count").value(3));
     }
 
+    @Test
+    void stream_authenticated_opensStreamWithUnreadCount() throws Exception {
+        when(authHelper.getUser(any())).thenReturn(buildUser());
+        when(notificationService.getUnreadCount(any())).thenReturn(3L);
+        ArgumentCaptor<LongSupplier> unreadCount = ArgumentCaptor.forClass(LongSupplier.class);
+        when(notificationStream.connect(eq(1L), unreadCount.capture())).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/notifications/stream").principal(principal))
+                .andExpect(request().asyncStarted());
+
+        // The count is left to the stream, which reads it once the connection is registered
+        verify(notificationService, never()).getUnreadCount(any());
+        assertThat(unreadCount.getValue().getAsLong()).isEqualTo(3L);
+    }
+
     @Test
     void markRead_authenticated_returns200() throws Exception {
         when(authHelper.getUser(any())).thenReturn(buildUser());
@@ -106,6 +142,17 @@ class NotificationControllerTest {
         verify(notificationService, times(1)).markAllRead(any());
     }
 
+    @Test
+    void markAllRead_upToCursor_marksOnlyUpToIt() throws Exception {
+        when(authHelper.getUser(any())).thenReturn(buildUser());
+
+        mockMvc.perform(post("/api/notifications/read-all").param("upTo", "abc").principal(principal))
+                .andExpect(status().isOk());
+
+        verify(notificationService).markReadUpTo(any(), eq("abc"));
+        verify(notificationService, never()).markAllRead(any());
+    }
+
     @Test
     void deleteNotification_authenticated_returns200() throws Exception {
         when(authHelper.getUser(any())).thenReturn(buildUser());
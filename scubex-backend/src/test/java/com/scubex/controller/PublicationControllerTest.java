@@ -1,16 +1,24 @@
 package com.scubex.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.scubex.DTO.FeedPage;
+import com.scubex.DTO.InteractionState;
+import com.scubex.DTO.MapCluster;
+import com.scubex.DTO.PublicationView;
+import com.scubex.cache.ContentVersions;
 import com.scubex.model.Publication;
 import com.scubex.model.User;
 import com.scubex.service.InteractionService;
+import com.scubex.service.PublicationClusterService;
 import com.scubex.service.PublicationService;
+import com.scubex.service.TimelineService;
 import com.scubex.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -20,6 +28,7 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -34,6 +43,9 @@ class PublicationControllerTest {
     @Mock private PublicationService publicationService;
     @Mock private UserService userService;
     @Mock private InteractionService interactionService;
+    @Mock private TimelineService timelineService;
+    @Mock private PublicationClusterService clusterService;
+    @Spy private ContentVersions versions = new ContentVersions();
     @Mock private AuthHelper authHelper;
 
     @InjectMocks
@@ -67,16 +79,130 @@ class PublicationControllerTest {
 
     @Test
     void getAll_returns200WithList() throws Exception {
-        User user = buildUser();
-        Publication pub = buildPublication(user);
-        when(publicationService.getAll()).thenReturn(List.of(pub));
-        when(interactionService.getLikeCount(1L)).thenReturn(5L);
-        when(interactionService.getCommentCount(1L)).thenReturn(2L);
+        Publication pub = buildPublication(buildUser());
+        pub.setCommentCount(2L);
+        List<PublicationView> views = List.of(PublicationView.of(pub, 3));
+        when(publicationService.getAll()).thenReturn(views);
+        when(interactionService.withPendingLikes(views)).thenReturn(List.of(views.get(0).withLikeCount(5)));
 
         mockMvc.perform(get("/api/publications"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].title").value("Buceo en Nerja"))
-                .andExpect(jsonPath("$[0].likeCount").value(5));
+                .andExpect(jsonPath("$[0].likeCount").value(5))
+                .andExpect(jsonPath("$[0].commentCount").value(2));
+    }
+
+    // ── GET /api/publications/feed ────────────────────────────────────
+
+    @Test
+    void getFeed_returnsItemsAndNextCursor() throws Exception {
+        List<PublicationView> views = List.of(PublicationView.of(buildPublication(buildUser()), 0));
+        when(publicationService.getFeed("abc", 10)).thenReturn(new FeedPage<>(views, "next-token"));
+        when(interactionService.withPendingLikes(views)).thenReturn(views);
+
+        mockMvc.perform(get("/api/publications/feed").param("cursor", "abc").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("next-token"));
+    }
+
+    @Test
+    void getFeed_lastPage_hasNullCursor() throws Exception {
+        when(publicationService.getFeed(null, null)).thenReturn(new FeedPage<>(List.of(), null));
+        when(interactionService.withPendingLikes(List.of())).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/publications/feed"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isEmpty())
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getFeed_invalidCursor_returns400() throws Exception {
+        when(publicationService.getFeed("bad", null)).thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/publications/feed").param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getFeed_sendsETag_andMatchingIfNoneMatchReturns304WithoutQuerying() throws Exception {
+        String etag = "\"" + versions.publicationsTag() + "\"";
+        when(publicationService.getFeed(null, null)).thenReturn(new FeedPage<>(List.of(), null));
+        when(interactionService.withPendingLikes(List.of())).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/publications/feed"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag));
+        mockMvc.perform(get("/api/publications/feed").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        verify(publicationService, times(1)).getFeed(null, null);
+    }
+
+    @Test
+    void getAll_staleETag_returns200() throws Exception {
+        String stale = "\"" + versions.publicationsTag() + "\"";
+        versions.publicationChanged(1L);
+        when(publicationService.getAll()).thenReturn(List.of());
+        when(interactionService.withPendingLikes(List.of())).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/publications").header("If-None-Match", stale))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + versions.publicationsTag() + "\""));
+    }
+
+    // ── GET /api/publications/interactions ────────────────────────────
+
+    @Test
+    void getInteractions_authenticated_returnsStatesForCaller() throws Exception {
+        User user = buildUser();
+        when(userService.findByGoogleId("gid-1")).thenReturn(user);
+        when(interactionService.getStates(List.of(3L, 1L), user))
+                .thenReturn(List.of(new InteractionState(3L, true, false, 4, 2)));
+
+        mockMvc.perform(get("/api/publications/interactions").param("ids", "3,1").principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(jsonPath("$[0].liked").value(true))
+                .andExpect(jsonPath("$[0].saved").value(false))
+                .andExpect(jsonPath("$[0].likeCount").value(4))
+                .andExpect(jsonPath("$[0].commentCount").value(2));
+    }
+
+    @Test
+    void getInteractions_tooManyIds_returns400() throws Exception {
+        String ids = String.join(",", Collections.nCopies(PublicationController.MAX_INTERACTION_IDS + 1, "1"));
+
+        mockMvc.perform(get("/api/publications/interactions").param("ids", ids))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(interactionService);
+    }
+
+    // ── GET /api/publications/following ───────────────────────────────
+
+    @Test
+    void getFollowing_authenticated_returnsTimelinePage() throws Exception {
+        User user = buildUser();
+        Publication pub = buildPublication(user);
+        when(authHelper.getUser(any())).thenReturn(user);
+        when(publicationService.pageSize(null)).thenReturn(20);
+        when(timelineService.getTimeline(user, null, 20)).thenReturn(new FeedPage<>(List.of(pub), "next"));
+
+        mockMvc.perform(get("/api/publications/following").principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].title").value("Buceo en Nerja"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void getFollowing_unauthenticated_returns401() throws Exception {
+        when(authHelper.getUser(null)).thenThrow(new ResponseStatusException(HttpStatus.UNAUTHORIZED));
+
+        mockMvc.perform(get("/api/publications/following"))
+                .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(timelineService);
     }
 
     // ── GET /api/publications/area ────────────────────────────────────
@@ -85,9 +211,9 @@ class PublicationControllerTest {
     void getInArea_returns200WithList() throws Exception {
         User user = buildUser();
         Publication pub = buildPublication(user);
-        when(publicationService.getInArea(35.0, 38.0, -5.0, -2.0)).thenReturn(List.of(pub));
-        when(interactionService.getLikeCount(1L)).thenReturn(0L);
-        when(interactionService.getCommentCount(1L)).thenReturn(0L);
+        List<PublicationView> views = List.of(PublicationView.of(pub, 0));
+        when(publicationService.getInArea(35.0, 38.0, -5.0, -2.0, null)).thenReturn(views);
+        when(interactionService.withPendingLikes(views)).thenReturn(views);
 
         mockMvc.perform(get("/api/publications/area")
                         .param("latMin", "35.0").param("latMax", "38.0")
@@ -96,6 +222,36 @@ class PublicationControllerTest {
                 .andExpect(jsonPath("$[0].id").value(1));
     }
 
+    // ── GET /api/publications/clusters ────────────────────────────────
+
+    @Test
+    void getClusters_returnsCountCentroidAndRepresentative() throws Exception {
+        PublicationView view = PublicationView.of(buildPublication(buildUser()), 0);
+        when(clusterService.getClusters(35.0, 44.0, -10.0, 5.0, 5))
+                .thenReturn(List.of(new MapCluster(12, 37.5, -3.25, view)));
+        when(interactionService.withPendingLikes(view)).thenReturn(view);
+
+        mockMvc.perform(get("/api/publications/clusters")
+                        .param("latMin", "35.0").param("latMax", "44.0")
+                        .param("lngMin", "-10.0").param("lngMax", "5.0")
+                        .param("zoom", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].count").value(12))
+                .andExpect(jsonPath("$[0].latitude").value(37.5))
+                .andExpect(jsonPath("$[0].publication.id").value(1));
+    }
+
+    @Test
+    void getClusters_invalidZoom_returns400() throws Exception {
+        mockMvc.perform(get("/api/publications/clusters")
+                        .param("latMin", "35.0").param("latMax", "44.0")
+                        .param("lngMin", "-10.0").param("lngMax", "5.0")
+                        .param("zoom", "30"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(clusterService);
+    }
+
     // ── GET /api/publications/{id} ────────────────────────────────────
 
     @Test
@@ -103,8 +259,6 @@ class PublicationControllerTest {
         User user = buildUser();
         Publication pub = buildPublication(user);
         when(publicationService.getById(1L)).thenReturn(pub);
-        when(interactionService.getLikeCount(1L)).thenReturn(0L);
-        when(interactionService.getCommentCount(1L)).thenReturn(0L);
 
         mockMvc.perform(get("/api/publications/1"))
                 .andExpect(status().isOk())
@@ -127,8 +281,6 @@ class PublicationControllerTest {
         Publication pub = buildPublication(user);
         when(authHelper.getUser(any())).thenReturn(user);
         when(publicationService.create(any())).thenReturn(pub);
-        when(interactionService.getLikeCount(1L)).thenReturn(0L);
-        when(interactionService.getCommentCount(1L)).thenReturn(0L);
 
         mockMvc.perform(post("/api/publications")
                         .principal(principal)
@@ -150,9 +302,9 @@ class PublicationControllerTest {
         User user = buildUser();
         Publication pub = buildPublication(user);
         when(authHelper.getUser(any())).thenReturn(user);
-        when(publicationService.getByUser(user)).thenReturn(List.of(pub));
-        when(interactionService.getLikeCount(1L)).thenReturn(0L);
-        when(interactionService.getCommentCount(1L)).thenReturn(0L);
+        List<PublicationView> views = List.of(PublicationView.of(pub, 0));
+        when(publicationService.getByUser(user)).thenReturn(views);
+        when(interactionService.withPendingLikes(views)).thenReturn(views);
 
         mockMvc.perform(get("/api/publications/mine").principal(principal))
                 .andExpect(status().isOk())
@@ -190,8 +342,6 @@ class PublicationControllerTest {
         Publication pub = buildPublication(user);
         when(authHelper.getUser(any())).thenReturn(user);
         when(publicationService.update(eq(1L), any(), eq(user))).thenReturn(pub);
-        when(interactionService.getLikeCount(1L)).thenReturn(0L);
-        when(interactionService.getCommentCount(1L)).thenReturn(0L);
 
         mockMvc.perform(put("/api/publications/1")
                         .principal(principal)
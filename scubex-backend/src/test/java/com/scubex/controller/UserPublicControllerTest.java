@@ -1,5 +1,7 @@
 package com.scubex.controller;
 
+import com.scubex.DTO.PublicationView;
+import com.scubex.cache.ContentVersions;
 import com.scubex.model.Publication;
 import com.scubex.model.PublicationSave;
 import com.scubex.model.User;
@@ -14,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -24,6 +27,7 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -38,6 +42,7 @@ class UserPublicControllerTest {
     @Mock private PublicationService publicationService;
     @Mock private FollowService followService;
     @Mock private InteractionService interactionService;
+    @Spy private ContentVersions versions = new ContentVersions();
     @Mock private AuthHelper authHelper;
 
     @InjectMocks
@@ -95,19 +100,20 @@ class UserPublicControllerTest {
         User me = buildUser(1L, "gid-1", "me@test.com", "Me");
         Publication pub = buildPub(target);
         when(userService.findByEmail("carlos@test.com")).thenReturn(target);
-        when(publicationService.getByUser(target)).thenReturn(List.of(pub));
+        List<PublicationView> views = List.of(PublicationView.of(pub, 0));
+        when(publicationService.getByUser(target)).thenReturn(views);
+        when(interactionService.withPendingLikes(views)).thenReturn(views);
         when(followService.getFollowerCount(2L)).thenReturn(10L);
         when(followService.getFollowingCount(2L)).thenReturn(5L);
         when(userService.findByGoogleId("gid-1")).thenReturn(me);
         when(followService.isFollowing(1L, 2L)).thenReturn(false);
-        when(interactionService.getLikeCount(1L)).thenReturn(0L);
-        when(interactionService.getCommentCount(1L)).thenReturn(0L);
 
         mockMvc.perform(get("/api/users/carlos@test.com").principal(principal))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.email").value("carlos@test.com"))
                 .andExpect(jsonPath("$.followerCount").value(10))
-                .andExpect(jsonPath("$.isFollowing").value(false));
+                .andExpect(jsonPath("$.isFollowing").value(false))
+                .andExpect(jsonPath("$.publications[0].author.email").value("carlos@test.com"));
     }
 
     @Test
@@ -118,6 +124,18 @@ class UserPublicControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getPublicProfile_matchingETag_returns304WithoutLoadingProfile() throws Exception {
+        User target = buildUser(2L, "gid-2", "carlos@test.com", "Carlos");
+        when(userService.findByEmail("carlos@test.com")).thenReturn(target);
+
+        mockMvc.perform(get("/api/users/carlos@test.com")
+                        .header("If-None-Match", "\"" + versions.profileTag(2L, null) + "\""))
+                .andExpect(status().isNotModified());
+
+        verifyNoInteractions(publicationService, followService);
+    }
+
     // ── POST /api/users/{email}/follow ────────────────────────────────
 
     @Test
@@ -179,8 +197,6 @@ class UserPublicControllerTest {
         PublicationSave save = PublicationSave.builder().user(me).publication(pub).build();
         when(authHelper.getUser(any())).thenReturn(me);
         when(interactionService.getSavedByUser(1L)).thenReturn(List.of(save));
-        when(interactionService.getLikeCount(1L)).thenReturn(0L);
-        when(interactionService.getCommentCount(1L)).thenReturn(0L);
 
         mockMvc.perform(get("/api/users/me/saved").principal(principal))
                 .andExpect(status().isOk())
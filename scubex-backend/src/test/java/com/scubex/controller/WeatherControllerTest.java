@@ -1,5 +1,6 @@
 package com.scubex.controller;
 
+import com.scubex.DTO.DiveWindowResponse;
 import com.scubex.DTO.WeatherResponse;
 import com.scubex.service.WeatherService;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +12,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.List;
+
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -23,6 +26,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * - Límites exactos de coordenadas válidas devuelven 200
  * - Parámetros válidos devuelven 200 con datos meteorológicos
  * - divingCondition se incluye en la respuesta
+ * - dive-windows: valores por defecto y rechazo de hours/top fuera de rango
  */
 @ExtendWith(MockitoExtension.class)
 class WeatherControllerTest {
@@ -139,4 +143,38 @@ class WeatherControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.divingCondition").value("bad"));
     }
+
+    // ── ventanas de buceo ─────────────────────────────────────────────
+
+    @Test
+    void getDiveWindows_defaults_returns200() throws Exception {
+        DiveWindowResponse window = DiveWindowResponse.builder()
+                .start("2026-07-01T09:00").end("2026-07-01T11:00").hours(2)
+                .score(1.8).divingCondition("good").build();
+        when(weatherService.getDiveWindows(36.7, -3.7, 2, 3)).thenReturn(List.of(window));
+
+        mockMvc.perform(get("/api/weather/dive-windows")
+                        .param("lat", "36.7")
+                        .param("lng", "-3.7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].start").value("2026-07-01T09:00"))
+                .andExpect(jsonPath("$[0].divingCondition").value("good"));
+    }
+
+    @Test
+    void getDiveWindows_hoursOutOfRange_returns400() throws Exception {
+        mockMvc.perform(get("/api/weather/dive-windows")
+                        .param("lat", "36.7")
+                        .param("lng", "-3.7")
+                        .param("hours", "13"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/weather/dive-windows")
+                        .param("lat", "36.7")
+                        .param("lng", "-3.7")
+                        .param("top", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(weatherService, never()).getDiveWindows(anyDouble(), anyDouble(), anyInt(), anyInt());
+    }
 }
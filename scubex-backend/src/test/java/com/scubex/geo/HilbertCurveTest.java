@@ -0,0 +1,72 @@
+package com.scubex.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for HilbertCurve.
+ * - encode is a bijection on the grid and neighbouring cells get nearby keys
+ * - cover contains the key of every point inside the bounding box
+ * - cover returns sorted, disjoint ranges and never more than MAX_RANGES
+ */
+class HilbertCurveTest {
+
+    @Test
+    void xy2d_isBijectiveOnSmallBlock() {
+        // The first 4^k keys fill exactly one aligned 2^k block
+        Set<Long> keys = new HashSet<>();
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 16; y++) {
+                keys.add(HilbertCurve.xy2d(x, y));
+            }
+        }
+        assertThat(keys).hasSize(256);
+        assertThat(keys).allMatch(k -> k >= 0 && k < 256);
+    }
+
+    @Test
+    void encode_adjacentCellsAlongCurveAreNeighbours() {
+        long a = HilbertCurve.encode(36.70, -3.70);
+        long b = HilbertCurve.encode(36.70001, -3.70001);
+        assertThat(a).isEqualTo(b); // same ~300 m cell
+        assertThat(HilbertCurve.encode(90.0, 180.0)).isLessThan(1L << (2 * HilbertCurve.ORDER));
+    }
+
+    @Test
+    void cover_containsEveryPointInsideTheBox() {
+        Random random = new Random(42);
+        double latMin = 36.0, latMax = 38.5, lngMin = -7.2, lngMax = -2.1;
+        List<HilbertCurve.Range> ranges = HilbertCurve.cover(latMin, latMax, lngMin, lngMax);
+
+        for (int i = 0; i < 5_000; i++) {
+            double lat = latMin + random.nextDouble() * (latMax - latMin);
+            double lng = lngMin + random.nextDouble() * (lngMax - lngMin);
+            long key = HilbertCurve.encode(lat, lng);
+            assertThat(ranges).anyMatch(r -> key >= r.start() && key <= r.end());
+        }
+    }
+
+    @Test
+    void cover_rangesAreSortedDisjointAndBounded() {
+        List<HilbertCurve.Range> ranges = HilbertCurve.cover(-10.0, 55.0, -30.0, 40.0);
+
+        assertThat(ranges).isNotEmpty().hasSizeLessThanOrEqualTo(HilbertCurve.MAX_RANGES);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertThat(ranges.get(i).start()).isGreaterThan(ranges.get(i - 1).end() + 1);
+        }
+    }
+
+    @Test
+    void cover_smallBoxStaysSmall() {
+        // A ~1 km viewport should not cover a noticeable share of the key space
+        List<HilbertCurve.Range> ranges = HilbertCurve.cover(36.740, 36.750, -3.880, -3.870);
+        long covered = ranges.stream().mapToLong(r -> r.end() - r.start() + 1).sum();
+        assertThat(covered).isLessThan(64);
+    }
+}
@@ -0,0 +1,80 @@
+package com.scubex.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DivingScoreEngineTest {
+
+    @Test
+    void idealConditions_areGood() {
+        double score = DivingScoreEngine.scoreOne(0.3, 0.5, 20000.0, 5.0, 0, 10.0);
+
+        assertThat(score).isEqualTo(2.0);
+        assertThat(DivingScoreEngine.condition(score)).isEqualTo("good");
+    }
+
+    @Test
+    void criticalOverrides_forceBad() {
+        assertThat(DivingScoreEngine.scoreOne(3.0, 0.5, 20000.0, 5.0, 0, 0.0)).isZero();
+        assertThat(DivingScoreEngine.scoreOne(0.3, 5.5, 20000.0, 5.0, 0, 0.0)).isZero();
+        assertThat(DivingScoreEngine.scoreOne(0.3, 0.5, 800.0, 5.0, 0, 0.0)).isZero();
+        assertThat(DivingScoreEngine.scoreOne(0.3, 0.5, 20000.0, 45.0, 0, 0.0)).isZero();
+        assertThat(DivingScoreEngine.scoreOne(0.3, 0.5, 20000.0, 5.0, 95, 0.0)).isZero();
+    }
+
+    @Test
+    void missingFactors_areLeftOutOfWeighting() {
+        // Only waves (moderate, weight 3) and wind (good, weight 2) known: (1*3 + 2*2) / 5 = 1.4
+        double score = DivingScoreEngine.scoreOne(1.0, null, null, 10.0, null, null);
+
+        assertThat(score).isEqualTo(1.4);
+        assertThat(DivingScoreEngine.condition(score)).isEqualTo("moderate");
+    }
+
+    @Test
+    void noData_isModerate() {
+        assertThat(DivingScoreEngine.condition(DivingScoreEngine.scoreOne(null, null, null, null, null, null)))
+                .isEqualTo("moderate");
+    }
+
+    @Test
+    void batch_matchesSinglePointScoring() {
+        DivingScoreEngine.Columns columns = DivingScoreEngine.Columns.allocate(3);
+        columns.set(0, 0.3, 0.5, 20000.0, 5.0, 0, 10.0);
+        columns.set(1, 1.0, null, null, 10.0, null, null);
+        columns.set(2, 2.0, 4.0, 1500.0, 35.0, 63, 80.0);
+
+        double[] scores = DivingScoreEngine.score(columns);
+
+        assertThat(scores[0]).isEqualTo(DivingScoreEngine.scoreOne(0.3, 0.5, 20000.0, 5.0, 0, 10.0));
+        assertThat(scores[1]).isEqualTo(1.4);
+        assertThat(DivingScoreEngine.condition(scores[2])).isEqualTo("bad");
+    }
+
+    @Test
+    void bestWindows_rankedAndNonOverlapping() {
+        double[] hourly = {1.0, 2.0, 2.0, 1.9, 1.0, 1.0, 2.0, 2.0};
+
+        List<DivingScoreEngine.Window> windows = DivingScoreEngine.bestWindows(hourly, 0, 2, 3);
+
+        // [1,2] and [6,7] both average 2.0 (earliest first); [2,3] overlaps the first, so next is [3,4]
+        assertThat(windows).extracting(DivingScoreEngine.Window::start).containsExactly(1, 6, 3);
+        assertThat(windows.get(0).score()).isEqualTo(2.0);
+        assertThat(windows.get(2).score()).isCloseTo(1.45, within(1e-9));
+    }
+
+    @Test
+    void bestWindows_skipBadHoursAndRowsBeforeFrom() {
+        double[] hourly = {2.0, 2.0, 2.0, 0.0, 2.0, 1.0, 1.0};
+
+        List<DivingScoreEngine.Window> windows = DivingScoreEngine.bestWindows(hourly, 1, 2, 5);
+
+        // Hour 0 is in the past and hour 3 is bad: only [1,2], [4,5] and [5,6] are candidates
+        assertThat(windows).extracting(DivingScoreEngine.Window::start).containsExactly(1, 4);
+        assertThat(DivingScoreEngine.bestWindows(hourly, 5, 3, 1)).isEmpty();
+    }
+}
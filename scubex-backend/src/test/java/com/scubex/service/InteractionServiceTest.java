@@ -1,15 +1,21 @@
 package com.scubex.service;
 
+import com.scubex.DTO.InteractionState;
+import com.scubex.cache.ContentVersions;
+import com.scubex.cache.LikeCounterBuffer;
 import com.scubex.model.*;
 import com.scubex.repository.CommentRepository;
 import com.scubex.repository.PublicationLikeRepository;
+import com.scubex.repository.PublicationRepository;
 import com.scubex.repository.PublicationSaveRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.Instant;
 import java.util.List;
@@ -25,7 +31,10 @@ class InteractionServiceTest {
     @Mock private PublicationLikeRepository likeRepository;
     @Mock private PublicationSaveRepository saveRepository;
     @Mock private CommentRepository commentRepository;
-    @Mock private NotificationService notificationService;
+    @Mock private PublicationRepository publicationRepository;
+    @Spy private LikeCounterBuffer likeCounter = new LikeCounterBuffer();
+    @Mock private ApplicationEventPublisher events;
+    @Mock private ContentVersions versions;
 
     @InjectMocks
     private InteractionService interactionService;
@@ -44,38 +53,73 @@ class InteractionServiceTest {
     // ── toggleLike ────────────────────────────────────────────────────
 
     @Test
-    void toggleLike_noExisting_likesAndNotifies() {
+    void toggleLike_notLiked_likesAndNotifies() {
         User u = user(1L);
         Publication p = pub(10L, user(2L));
-        when(likeRepository.findByPublicationIdAndUserId(10L, 1L)).thenReturn(Optional.empty());
-        when(likeRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
+        when(likeRepository.deleteByPublicationIdAndUserId(10L, 1L)).thenReturn(0);
+        when(likeRepository.insertIfAbsent(eq(10L), eq(1L), any())).thenReturn(1);
 
         boolean result = interactionService.toggleLike(p, u);
 
         assertThat(result).isTrue();
-        verify(likeRepository).save(any(PublicationLike.class));
-        verify(notificationService).notifyLike(u, p);
+        assertThat(likeCounter.pending(10L)).isEqualTo(1L);
+        verifyNoInteractions(publicationRepository); // count is write-behind
+        verify(events).publishEvent(NotificationEvent.like(u, p));
+        verify(versions).countersChanged(2L);
     }
 
     @Test
-    void toggleLike_existing_unlikesAndDoesNotNotify() {
+    void toggleLike_liked_unlikesAndDoesNotNotify() {
         User u = user(1L);
         Publication p = pub(10L, user(2L));
-        PublicationLike existing = PublicationLike.builder().publication(p).user(u).build();
-        when(likeRepository.findByPublicationIdAndUserId(10L, 1L)).thenReturn(Optional.of(existing));
+        when(likeRepository.deleteByPublicationIdAndUserId(10L, 1L)).thenReturn(1);
 
         boolean result = interactionService.toggleLike(p, u);
 
         assertThat(result).isFalse();
-        verify(likeRepository).delete(existing);
-        verify(notificationService, never()).notifyLike(any(), any());
+        verify(likeRepository, never()).insertIfAbsent(any(), any(), any());
+        assertThat(likeCounter.pending(10L)).isEqualTo(-1L);
+        verify(events, never()).publishEvent(any(Object.class));
     }
 
     @Test
-    void getLikeCount_returnsRepositoryValue() {
-        when(likeRepository.countByPublicationId(10L)).thenReturn(7L);
+    void like_alreadyLiked_isNoOp() {
+        User u = user(1L);
+        Publication p = pub(10L, user(2L));
+        when(likeRepository.insertIfAbsent(eq(10L), eq(1L), any())).thenReturn(0);
+
+        assertThat(interactionService.like(p, u)).isFalse();
+        assertThat(likeCounter.pending(10L)).isZero();
+        verifyNoInteractions(events, versions);
+    }
+
+    @Test
+    void unlike_notLiked_isNoOp() {
+        User u = user(1L);
+        Publication p = pub(10L, user(2L));
+        when(likeRepository.deleteByPublicationIdAndUserId(10L, 1L)).thenReturn(0);
+
+        assertThat(interactionService.unlike(p, u)).isFalse();
+        assertThat(likeCounter.pending(10L)).isZero();
+        verifyNoInteractions(versions);
+    }
+
+    @Test
+    void getLikeCount_readsDenormalisedCounter() {
+        when(publicationRepository.findLikeCountById(10L)).thenReturn(7L);
 
         assertThat(interactionService.getLikeCount(10L)).isEqualTo(7L);
+        verify(likeRepository, never()).countByPublicationId(any());
+    }
+
+    @Test
+    void getLikeCount_addsUnflushedDeltaToLoadedPublication() {
+        Publication p = pub(10L, user(2L));
+        p.setLikeCount(7L);
+        likeCounter.add(10L, 2);
+
+        assertThat(interactionService.getLikeCount(p)).isEqualTo(9L);
+        verifyNoInteractions(publicationRepository);
     }
 
     @Test
@@ -92,32 +136,48 @@ class InteractionServiceTest {
         assertThat(interactionService.hasUserLiked(10L, 1L)).isFalse();
     }
 
+    // ── getStates ─────────────────────────────────────────────────────
+
+    @Test
+    void getStates_oneQuery_requestOrder_withPendingLikes() {
+        when(publicationRepository.findInteractionStates(List.of(11L, 10L, 99L), 1L)).thenReturn(List.of(
+                new InteractionState(10L, true, false, 7, 1),
+                new InteractionState(11L, false, true, 0, 0)));
+        likeCounter.add(10L, 2);
+
+        List<InteractionState> result = interactionService.getStates(List.of(11L, 10L, 99L), user(1L));
+
+        assertThat(result).containsExactly(
+                new InteractionState(11L, false, true, 0, 0),
+                new InteractionState(10L, true, false, 9, 1));
+    }
+
+    @Test
+    void getStates_emptyIds_skipsQuery() {
+        assertThat(interactionService.getStates(List.of(), null)).isEmpty();
+        verifyNoInteractions(publicationRepository);
+    }
+
     // ── toggleSave ────────────────────────────────────────────────────
 
     @Test
-    void toggleSave_noExisting_saves() {
+    void toggleSave_notSaved_saves() {
         User u = user(1L);
         Publication p = pub(10L, user(2L));
-        when(saveRepository.findByPublicationIdAndUserId(10L, 1L)).thenReturn(Optional.empty());
-        when(saveRepository.save(any())).thenAnswer(inv -> inv.getArgument(0));
-
-        boolean result = interactionService.toggleSave(p, u);
+        when(saveRepository.deleteByPublicationIdAndUserId(10L, 1L)).thenReturn(0);
+        when(saveRepository.insertIfAbsent(eq(10L), eq(1L), any())).thenReturn(1);
 
-        assertThat(result).isTrue();
-        verify(saveRepository).save(any(PublicationSave.class));
+        assertThat(interactionService.toggleSave(p, u)).isTrue();
     }
 
     @Test
-    void toggleSave_existing_unsaves() {
+    void toggleSave_saved_unsaves() {
         User u = user(1L);
         Publication p = pub(10L, user(2L));
-        PublicationSave existing = PublicationSave.builder().publication(p).user(u).build();
-        when(saveRepository.findByPublicationIdAndUserId(10L, 1L)).thenReturn(Optional.of(existing));
-
-        boolean result = interactionService.toggleSave(p, u);
+        when(saveRepository.deleteByPublicationIdAndUserId(10L, 1L)).thenReturn(1);
 
-        assertThat(result).isFalse();
-        verify(saveRepository).delete(existing);
+        assertThat(interactionService.toggleSave(p, u)).isFalse();
+        verify(saveRepository, never()).insertIfAbsent(any(), any(), any());
     }
 
     @Test
@@ -154,7 +214,9 @@ class InteractionServiceTest {
 
         assertThat(result.getId()).isEqualTo(20L);
         verify(commentRepository).save(any(Comment.class));
-        verify(notificationService).notifyComment(u, p, "Qué bonito!");
+        verify(publicationRepository).addToCommentCount(10L, 1);
+        verify(events).publishEvent(NotificationEvent.comment(u, p, "Qué bonito!"));
+        verify(versions).commentsChanged(10L, 2L);
     }
 
     // ── getComments ───────────────────────────────────────────────────
@@ -173,8 +235,8 @@ class InteractionServiceTest {
     }
 
     @Test
-    void getCommentCount_returnsRepositoryValue() {
-        when(commentRepository.countByPublicationId(10L)).thenReturn(4L);
+    void getCommentCount_readsDenormalisedCounter() {
+        when(publicationRepository.findCommentCountById(10L)).thenReturn(4L);
 
         assertThat(interactionService.getCommentCount(10L)).isEqualTo(4L);
     }
@@ -193,6 +255,8 @@ class InteractionServiceTest {
 
         assertThat(result).isTrue();
         verify(commentRepository).delete(c);
+        verify(publicationRepository).addToCommentCount(10L, -1);
+        verify(versions).commentsChanged(10L, 2L);
     }
 
     @Test
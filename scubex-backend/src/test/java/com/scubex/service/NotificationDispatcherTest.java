@@ -0,0 +1,129 @@
+package com.scubex.service;
+
+import com.scubex.model.NotificationOutbox;
+import com.scubex.model.Publication;
+import com.scubex.model.User;
+import com.scubex.repository.NotificationOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests cover:
+ * - events are stored in the outbox, not written directly
+ * - a claimed batch is recorded and deleted together
+ * - a failing batch is retried row by row and only the bad row is counted and backed off
+ * - a partly failed batch does not count as full, so the writer does not spin on it
+ * - retry delay doubles per failure up to the cap
+ * - outbox rows map back to the same event
+ */
+@ExtendWith(MockitoExtension.class)
+class NotificationDispatcherTest {
+
+    @Mock private NotificationService notificationService;
+    @Mock private NotificationOutboxRepository outboxRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        // Writer thread not started: relayBatch() runs on the test thread
+        dispatcher = new NotificationDispatcher(notificationService, outboxRepository, transactionManager, 2, 5);
+    }
+
+    private NotificationEvent like(long actorId) {
+        User actor = User.builder().id(actorId).email("u" + actorId + "@test.com").name("U" + actorId).build();
+        User owner = User.builder().id(99L).email("owner@test.com").build();
+        return NotificationEvent.like(actor, Publication.builder().id(10L).title("Pub").user(owner).build());
+    }
+
+    private NotificationOutbox row(long id, NotificationEvent event) {
+        NotificationOutbox row = NotificationDispatcher.toOutbox(event);
+        row.setId(id);
+        return row;
+    }
+
+    @Test
+    void onEvent_storesOutboxRowWithoutWriting() {
+        dispatcher.onEvent(like(1L));
+
+        ArgumentCaptor<NotificationOutbox> saved = ArgumentCaptor.forClass(NotificationOutbox.class);
+        verify(outboxRepository).save(saved.capture());
+        assertThat(saved.getValue().getKind()).isEqualTo(NotificationOutbox.Kind.LIKE);
+        assertThat(saved.getValue().getRecipientId()).isEqualTo(99L);
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void relayBatch_recordsAndDeletesClaimedRows() {
+        NotificationEvent a = like(1L), b = like(2L);
+        List<NotificationOutbox> rows = List.of(row(1L, a), row(2L, b));
+        when(outboxRepository.claimBatch(eq(5), any(Instant.class), any(Pageable.class))).thenReturn(rows);
+
+        assertThat(dispatcher.relayBatch()).isEqualTo(2);
+
+        verify(notificationService).record(List.of(a, b));
+        verify(outboxRepository).deleteAllInBatch(rows);
+        assertThat(dispatcher.stats().relayed()).isEqualTo(2);
+    }
+
+    @Test
+    void failedBatch_isRetriedPerRow_andOnlyBadRowCountsAttempt() {
+        NotificationEvent good = like(1L), bad = like(2L);
+        NotificationOutbox goodRow = row(1L, good), badRow = row(2L, bad);
+        when(outboxRepository.claimBatch(eq(5), any(Instant.class), any(Pageable.class)))
+                .thenReturn(List.of(goodRow, badRow));
+        when(outboxRepository.claimByIds(List.of(1L))).thenReturn(List.of(goodRow));
+        when(outboxRepository.claimByIds(List.of(2L))).thenReturn(List.of(badRow));
+        when(notificationService.record(any())).thenAnswer(inv -> {
+            if (inv.<List<NotificationEvent>>getArgument(0).contains(bad)) throw new IllegalStateException("bad row");
+            return List.of();
+        });
+
+        Instant before = Instant.now();
+        // Only the good row went through: not a full batch, so the writer waits instead of re-claiming
+        assertThat(dispatcher.relayBatch()).isEqualTo(1);
+
+        verify(outboxRepository).deleteAllInBatch(List.of(goodRow));
+        ArgumentCaptor<Instant> next = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxRepository).recordFailure(eq(2L), next.capture());
+        assertThat(next.getValue()).isAfterOrEqualTo(before.plus(NotificationDispatcher.RETRY_BASE_DELAY));
+        assertThat(dispatcher.stats().relayed()).isEqualTo(1);
+        assertThat(dispatcher.stats().failed()).isEqualTo(1);
+    }
+
+    @Test
+    void retryDelay_doublesPerFailure_upToCap() {
+        assertThat(NotificationDispatcher.retryDelay(1)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(NotificationDispatcher.retryDelay(2)).isEqualTo(Duration.ofMinutes(1));
+        assertThat(NotificationDispatcher.retryDelay(4)).isEqualTo(Duration.ofMinutes(4));
+        assertThat(NotificationDispatcher.retryDelay(30)).isEqualTo(NotificationDispatcher.MAX_RETRY_DELAY);
+    }
+
+    @Test
+    void outboxRow_mapsBackToSameEvent() {
+        User actor = User.builder().id(1L).email("a@test.com").name("Ana").build();
+        User owner = User.builder().id(2L).email("o@test.com").build();
+        Publication pub = Publication.builder().id(10L).title("Pub").user(owner).build();
+
+        for (NotificationEvent event : List.of(NotificationEvent.follow(actor, owner),
+                NotificationEvent.like(actor, pub), NotificationEvent.comment(actor, pub, "hola @o"))) {
+            assertThat(NotificationDispatcher.toEvent(NotificationDispatcher.toOutbox(event))).isEqualTo(event);
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package com.scubex.service;
 
+import com.scubex.DTO.FeedCursor;
+import com.scubex.DTO.FeedPage;
+import com.scubex.cache.UnreadNotificationCounters;
 import com.scubex.model.Notification;
+import com.scubex.model.NotificationActor;
 import com.scubex.model.Publication;
 import com.scubex.model.User;
+import com.scubex.repository.NotificationActorRepository;
 import com.scubex.repository.NotificationRepository;
 import com.scubex.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,11 +33,23 @@ import static org.mockito.Mockito.*;
 class NotificationServiceTest {
 
     @Mock private NotificationRepository notificationRepository;
+    @Mock private NotificationActorRepository notificationActorRepository;
     @Mock private UserRepository userRepository;
+    @Mock private NotificationStream notificationStream;
+    @Spy private UnreadNotificationCounters unreadCounters = new UnreadNotificationCounters();
 
     @InjectMocks
     private NotificationService notificationService;
 
+    // Recipients are referenced by id; tests that check the recipient stub it explicitly
+    @BeforeEach
+    void referenceUsersById() {
+        lenient().when(userRepository.getReferenceById(any()))
+                .thenAnswer(inv -> user(inv.getArgument(0), "ref@test.com"));
+        ReflectionTestUtils.setField(notificationService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(notificationService, "maxPageSize", 3);
+    }
+
     // ── helpers ───────────────────────────────────────────────────────
 
     private User user(Long id, String email) {
@@ -38,129 +60,141 @@ class NotificationServiceTest {
         return Publication.builder().id(id).user(owner).title("Pub" + id).build();
     }
 
-    // ── notifyFollow ──────────────────────────────────────────────────
+    // ── record: follow ────────────────────────────────────────────────
 
     @Test
-    void notifyFollow_differentUsers_savesNotification() {
+    void recordFollow_differentUsers_savesNotification() {
         User follower = user(1L, "follower@test.com");
         User followed = user(2L, "followed@test.com");
-
-        notificationService.notifyFollow(follower, followed);
-
-        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
-        verify(notificationRepository).save(captor.capture());
-        Notification n = captor.getValue();
-        assertThat(n.getType()).isEqualTo(Notification.Type.FOLLOW);
-        assertThat(n.getRecipient()).isEqualTo(followed);
-        assertThat(n.getActorEmail()).isEqualTo("follower@test.com");
+        when(userRepository.getReferenceById(2L)).thenReturn(followed);
+
+        List<Notification> saved = notificationService.record(List.of(NotificationEvent.follow(follower, followed)));
+
+        verify(notificationRepository).saveAll(saved);
+        verify(notificationStream).notificationsCreated(saved);
+        verify(userRepository).addToUnreadNotificationCounts(List.of(2L), 1L);
+        assertThat(saved).singleElement().satisfies(n -> {
+            assertThat(n.getType()).isEqualTo(Notification.Type.FOLLOW);
+            assertThat(n.getRecipient()).isEqualTo(followed);
+            assertThat(n.getActorEmail()).isEqualTo("follower@test.com");
+        });
     }
 
     @Test
-    void notifyFollow_sameUser_doesNotSave() {
+    void recordFollow_sameUser_doesNotSave() {
         User u = user(1L, "self@test.com");
 
-        notificationService.notifyFollow(u, u);
+        notificationService.record(List.of(NotificationEvent.follow(u, u)));
 
-        verify(notificationRepository, never()).save(any());
+        verify(notificationRepository, never()).saveAll(any());
     }
 
     @Test
-    void notifyFollow_alreadyNotified_doesNotDuplicate() {
+    void recordFollow_alreadyNotified_doesNotDuplicate() {
         User follower = user(1L, "follower@test.com");
         User followed = user(2L, "followed@test.com");
         when(notificationRepository.existsByRecipientIdAndTypeAndActorEmail(
                 2L, Notification.Type.FOLLOW, "follower@test.com")).thenReturn(true);
 
-        notificationService.notifyFollow(follower, followed);
+        notificationService.record(List.of(NotificationEvent.follow(follower, followed)));
 
-        verify(notificationRepository, never()).save(any());
+        verify(notificationRepository, never()).saveAll(any());
     }
 
-    // ── notifyLike ────────────────────────────────────────────────────
+    // ── record: like ──────────────────────────────────────────────────
 
     @Test
-    void notifyLike_differentUsers_savesLikeNotification() {
+    void recordLike_differentUsers_savesLikeNotification() {
         User actor = user(1L, "actor@test.com");
         User owner = user(2L, "owner@test.com");
         Publication p = pub(10L, owner);
+        when(userRepository.getReferenceById(2L)).thenReturn(owner);
 
-        notificationService.notifyLike(actor, p);
+        List<Notification> saved = notificationService.record(List.of(NotificationEvent.like(actor, p)));
 
-        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
-        verify(notificationRepository).save(captor.capture());
-        Notification n = captor.getValue();
-        assertThat(n.getType()).isEqualTo(Notification.Type.LIKE);
-        assertThat(n.getPublicationId()).isEqualTo(10L);
-        assertThat(n.getRecipient()).isEqualTo(owner);
+        assertThat(saved).singleElement().satisfies(n -> {
+            assertThat(n.getType()).isEqualTo(Notification.Type.LIKE);
+            assertThat(n.getPublicationId()).isEqualTo(10L);
+            assertThat(n.getRecipient()).isEqualTo(owner);
+        });
     }
 
     @Test
-    void notifyLike_selfLike_doesNotSave() {
+    void recordLike_selfLike_doesNotSave() {
         User u = user(1L, "self@test.com");
         Publication p = pub(10L, u);
 
-        notificationService.notifyLike(u, p);
+        notificationService.record(List.of(NotificationEvent.like(u, p)));
 
-        verify(notificationRepository, never()).save(any());
+        verify(notificationRepository, never()).saveAll(any());
     }
 
     @Test
-    void notifyLike_alreadyNotified_doesNotDuplicate() {
+    void recordLike_alreadyNotified_doesNotDuplicate() {
         User actor = user(1L, "actor@test.com");
         User owner = user(2L, "owner@test.com");
         Publication p = pub(10L, owner);
         when(notificationRepository.existsByRecipientIdAndTypeAndActorEmailAndPublicationId(
                 2L, Notification.Type.LIKE, "actor@test.com", 10L)).thenReturn(true);
 
-        notificationService.notifyLike(actor, p);
+        notificationService.record(List.of(NotificationEvent.like(actor, p)));
 
-        verify(notificationRepository, never()).save(any());
+        verify(notificationRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void recordLike_sameLikeTwiceInBatch_savesOnce() {
+        User actor = user(1L, "actor@test.com");
+        Publication p = pub(10L, user(2L, "owner@test.com"));
+
+        List<Notification> saved = notificationService.record(
+                List.of(NotificationEvent.like(actor, p), NotificationEvent.like(actor, p)));
+
+        assertThat(saved).hasSize(1);
+        verify(notificationRepository, times(1)).existsByRecipientIdAndTypeAndActorEmailAndPublicationId(
+                2L, Notification.Type.LIKE, "actor@test.com", 10L);
     }
 
-    // ── notifyComment ─────────────────────────────────────────────────
+    // ── record: comment ───────────────────────────────────────────────
 
     @Test
-    void notifyComment_differentUsers_savesCommentNotification() {
+    void recordComment_differentUsers_savesCommentNotification() {
         User actor = user(1L, "actor@test.com");
         User owner = user(2L, "owner@test.com");
         Publication p = pub(10L, owner);
 
-        notificationService.notifyComment(actor, p, "Gran foto!");
+        List<Notification> saved = notificationService.record(List.of(NotificationEvent.comment(actor, p, "Gran foto!")));
 
-        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
-        verify(notificationRepository).save(captor.capture());
-        Notification n = captor.getValue();
-        assertThat(n.getType()).isEqualTo(Notification.Type.COMMENT);
-        assertThat(n.getCommentSnippet()).isEqualTo("Gran foto!");
+        assertThat(saved).singleElement().satisfies(n -> {
+            assertThat(n.getType()).isEqualTo(Notification.Type.COMMENT);
+            assertThat(n.getCommentSnippet()).isEqualTo("Gran foto!");
+        });
     }
 
     @Test
-    void notifyComment_selfComment_doesNotSaveOwnerNotification() {
+    void recordComment_selfComment_doesNotSaveOwnerNotification() {
         User u = user(1L, "self@test.com");
         Publication p = pub(10L, u);
 
-        notificationService.notifyComment(u, p, "Mi propio comentario");
+        notificationService.record(List.of(NotificationEvent.comment(u, p, "Mi propio comentario")));
 
         // No notification for owner since actor == owner, no mentions either
-        verify(notificationRepository, never()).save(any());
+        verify(notificationRepository, never()).saveAll(any());
     }
 
     @Test
-    void notifyComment_longText_snippetTruncatedAt150() {
+    void recordComment_longText_snippetTruncatedAt150() {
         User actor = user(1L, "actor@test.com");
         User owner = user(2L, "owner@test.com");
         Publication p = pub(10L, owner);
-        String longText = "a".repeat(200);
 
-        notificationService.notifyComment(actor, p, longText);
+        List<Notification> saved = notificationService.record(List.of(NotificationEvent.comment(actor, p, "a".repeat(200))));
 
-        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
-        verify(notificationRepository).save(captor.capture());
-        assertThat(captor.getValue().getCommentSnippet()).hasSize(151); // 150 + "…"
+        assertThat(saved.get(0).getCommentSnippet()).hasSize(151); // 150 + "…"
     }
 
     @Test
-    void notifyComment_withMention_savesMentionNotification() {
+    void recordComment_withMention_savesMentionNotification() {
         User actor = user(1L, "actor@test.com");
         User owner = user(2L, "owner@test.com");
         User mentioned = user(3L, "mentioned@test.com");
@@ -170,14 +204,16 @@ class NotificationServiceTest {
         when(userRepository.findByEmailIn(List.of("mentioned@test.com")))
                 .thenReturn(List.of(mentioned));
 
-        notificationService.notifyComment(actor, p, text);
+        List<Notification> saved = notificationService.record(List.of(NotificationEvent.comment(actor, p, text)));
 
-        // 2 saves: one COMMENT (owner), one MENTION (mentioned)
-        verify(notificationRepository, times(2)).save(any(Notification.class));
+        // One COMMENT (owner), one MENTION (mentioned), in a single saveAll
+        assertThat(saved).extracting(Notification::getType)
+                .containsExactly(Notification.Type.COMMENT, Notification.Type.MENTION);
+        verify(notificationRepository).saveAll(saved);
     }
 
     @Test
-    void notifyComment_mentionAlreadyNotified_doesNotDuplicate() {
+    void recordComment_mentionAlreadyNotified_doesNotDuplicate() {
         User actor = user(1L, "actor@test.com");
         // owner IS the mentioned user
         User owner = user(2L, "owner@test.com");
@@ -187,36 +223,191 @@ class NotificationServiceTest {
         when(userRepository.findByEmailIn(List.of("owner@test.com")))
                 .thenReturn(List.of(owner));
 
-        notificationService.notifyComment(actor, p, text);
+        List<Notification> saved = notificationService.record(List.of(NotificationEvent.comment(actor, p, text)));
+
+        // Only COMMENT for owner, no duplicate MENTION
+        assertThat(saved).hasSize(1);
+    }
+
+    @Test
+    void record_mentionsAcrossBatch_lookedUpInOneQuery() {
+        User actor = user(1L, "actor@test.com");
+        Publication p = pub(10L, user(2L, "owner@test.com"));
+        User a = user(3L, "a@test.com");
+        User b = user(4L, "b@test.com");
+        when(userRepository.findByEmailIn(List.of("a@test.com", "b@test.com"))).thenReturn(List.of(a, b));
+
+        List<Notification> saved = notificationService.record(List.of(
+                NotificationEvent.comment(actor, p, "@[A](a@test.com)"),
+                NotificationEvent.comment(actor, p, "@[B](b@test.com) @[A](a@test.com)")));
+
+        assertThat(saved).hasSize(5); // 2 COMMENT + 3 MENTION
+        verify(userRepository, times(1)).findByEmailIn(any());
+    }
+
+    // ── record: aggregation ───────────────────────────────────────────
+
+    @Test
+    void recordLikes_aggregating_noOpenAggregate_batchBecomesOneRow() {
+        ReflectionTestUtils.setField(notificationService, "aggregateWindowMinutes", 60);
+        User owner = user(2L, "owner@test.com");
+        Publication p = pub(10L, owner);
+
+        List<Notification> saved = notificationService.record(List.of(
+                NotificationEvent.like(user(1L, "a@test.com"), p),
+                NotificationEvent.like(user(3L, "b@test.com"), p),
+                NotificationEvent.like(user(4L, "c@test.com"), p)));
+
+        verify(notificationRepository).addToAggregate(eq(2L), eq(Notification.Type.LIKE), eq(10L), any(), eq(3),
+                eq("User4"), any(), eq("c@test.com"), eq("User3"), isNull(), any());
+        verify(notificationRepository, never()).existsByRecipientIdAndTypeAndActorEmailAndPublicationId(
+                any(), any(), any(), any());
+        assertThat(saved).singleElement().satisfies(n -> {
+            assertThat(n.getActorEmail()).isEqualTo("c@test.com");
+            assertThat(n.getPreviousActorName()).isEqualTo("User3");
+            assertThat(n.getActorCount()).isEqualTo(3);
+        });
+        ArgumentCaptor<List<NotificationActor>> actors = ArgumentCaptor.captor();
+        verify(notificationActorRepository).saveAll(actors.capture());
+        assertThat(actors.getValue()).extracting(NotificationActor::getActorEmail)
+                .containsExactly("a@test.com", "b@test.com", "c@test.com");
+        verify(userRepository).addToUnreadNotificationCounts(List.of(2L), 1L);
+    }
+
+    @Test
+    void recordLike_aggregating_openAggregate_updatedInPlace() {
+        ReflectionTestUtils.setField(notificationService, "aggregateWindowMinutes", 60);
+        Publication p = pub(10L, user(2L, "owner@test.com"));
+        when(notificationRepository.addToAggregate(eq(2L), eq(Notification.Type.LIKE), eq(10L), any(), eq(1),
+                any(), any(), eq("a@test.com"), eq(""), isNull(), any())).thenReturn(1);
+        when(notificationRepository.findAggregateIds(eq(2L), eq(Notification.Type.LIKE), eq(10L), any()))
+                .thenReturn(List.of(7L));
+
+        List<Notification> saved = notificationService.record(List.of(NotificationEvent.like(user(1L, "a@test.com"), p)));
+
+        // Already unread: no insert, no counter change, nothing to push to a disconnected owner
+        assertThat(saved).isEmpty();
+        verify(notificationRepository, never()).saveAll(any());
+        verify(userRepository, never()).addToUnreadNotificationCounts(any(), anyLong());
+        verify(notificationRepository, never()).findAllById(any());
+        // A new actor is stored and counted once
+        verify(notificationActorRepository).saveAll(argThat(actors -> actors.iterator().next().getActorEmail().equals("a@test.com")));
+        verify(notificationRepository).addToActorCount(7L, 1);
+    }
 
-        // Only 1 save: COMMENT for owner, no duplicate MENTION
-        verify(notificationRepository, times(1)).save(any(Notification.class));
+    @Test
+    void recordLike_aggregating_actorAlreadyInAggregate_isNotCountedAgain() {
+        // Like, unlike, like again: the second like finds its actor already folded in
+        ReflectionTestUtils.setField(notificationService, "aggregateWindowMinutes", 60);
+        Publication p = pub(10L, user(2L, "owner@test.com"));
+        when(notificationRepository.addToAggregate(eq(2L), eq(Notification.Type.LIKE), eq(10L), any(), eq(1),
+                any(), any(), eq("a@test.com"), any(), isNull(), any())).thenReturn(1);
+        when(notificationRepository.findAggregateIds(eq(2L), eq(Notification.Type.LIKE), eq(10L), any()))
+                .thenReturn(List.of(7L));
+        when(notificationActorRepository.findActorEmails(eq(7L), argThat(e -> e.contains("a@test.com"))))
+                .thenReturn(List.of("a@test.com"));
+
+        notificationService.record(List.of(NotificationEvent.like(user(1L, "a@test.com"), p)));
+
+        verify(notificationActorRepository, never()).saveAll(any());
+        verify(notificationRepository, never()).addToActorCount(any(), anyInt());
+    }
+
+    @Test
+    void recordComment_aggregating_ownerAggregatedMentionsStayIndividual() {
+        ReflectionTestUtils.setField(notificationService, "aggregateWindowMinutes", 60);
+        User owner = user(2L, "owner@test.com");
+        User mentioned = user(3L, "m@test.com");
+        when(userRepository.findByEmailIn(List.of("m@test.com"))).thenReturn(List.of(mentioned));
+        Notification open = Notification.builder().id(7L).recipient(owner).type(Notification.Type.COMMENT)
+                .actorName("User1").actorEmail("a@test.com").actorCount(5).createdAt(Instant.now()).build();
+        when(notificationRepository.addToAggregate(eq(2L), eq(Notification.Type.COMMENT), eq(10L), any(), eq(1),
+                any(), any(), any(), any(), eq("hola @[M](m@test.com)"), any())).thenReturn(1);
+        when(notificationStream.isConnected(2L)).thenReturn(true);
+        when(notificationRepository.findAggregateIds(eq(2L), eq(Notification.Type.COMMENT), eq(10L), any()))
+                .thenReturn(List.of(7L));
+        when(notificationActorRepository.findActorEmails(eq(7L), any())).thenReturn(List.of("a@test.com"));
+        when(notificationRepository.findAllById(List.of(7L))).thenReturn(List.of(open));
+
+        List<Notification> saved = notificationService.record(List.of(
+                NotificationEvent.comment(user(1L, "a@test.com"), pub(10L, owner), "hola @[M](m@test.com)")));
+
+        assertThat(saved).extracting(Notification::getType).containsExactly(Notification.Type.MENTION);
+        verify(notificationStream).notificationsUpdated(List.of(open));
     }
 
     // ── getNotifications ──────────────────────────────────────────────
 
+    private Notification at(Long id, User recipient, String lastActivityAt) {
+        return Notification.builder().id(id).recipient(recipient).type(Notification.Type.FOLLOW)
+                .actorName("").actorEmail("").createdAt(Instant.parse("2025-12-01T00:00:00Z"))
+                .lastActivityAt(Instant.parse(lastActivityAt)).build();
+    }
+
     @Test
-    void getNotifications_returnsOrderedList() {
+    void getNotifications_firstPage_returnsCursorOfLastItemWhenMoreExist() {
         User u = user(1L, "u@test.com");
-        Notification n = Notification.builder().id(1L).recipient(u)
-                .type(Notification.Type.FOLLOW).actorName("").actorEmail("").build();
-        when(notificationRepository.findByRecipientIdOrderByCreatedAtDesc(1L))
-                .thenReturn(List.of(n));
+        Notification a = at(3L, u, "2026-01-03T00:00:00Z"), b = at(2L, u, "2026-01-02T00:00:00Z"),
+                c = at(1L, u, "2026-01-01T00:00:00Z");
+        when(notificationRepository.findPageFirst(1L, PageRequest.of(0, 3))).thenReturn(List.of(a, b, c));
 
-        List<Notification> result = notificationService.getNotifications(u);
+        FeedPage<Notification> page = notificationService.getNotifications(u, null, null);
 
-        assertThat(result).hasSize(1).first().extracting(Notification::getType)
-                .isEqualTo(Notification.Type.FOLLOW);
+        assertThat(page.items()).containsExactly(a, b);
+        // Positioned by last activity, not creation
+        assertThat(FeedCursor.decode(page.nextCursor())).isEqualTo(new FeedCursor(b.getLastActivityAt(), 2L));
+    }
+
+    @Test
+    void getNotifications_withCursor_seeksAfterItAndClampsLimit() {
+        User u = user(1L, "u@test.com");
+        Instant t = Instant.parse("2026-01-02T00:00:00Z");
+        Notification last = at(1L, u, "2026-01-01T00:00:00Z");
+        when(notificationRepository.findPageAfter(1L, t, 2L, PageRequest.of(0, 4))).thenReturn(List.of(last));
+
+        FeedPage<Notification> page = notificationService.getNotifications(u, new FeedCursor(t, 2L).encode(), 50);
+
+        assertThat(page.items()).containsExactly(last);
+        assertThat(page.nextCursor()).isNull();
     }
 
     // ── getUnreadCount ────────────────────────────────────────────────
 
     @Test
-    void getUnreadCount_returnsCount() {
+    void getUnreadCount_readsStoredCounterOnce() {
         User u = user(1L, "u@test.com");
-        when(notificationRepository.countByRecipientIdAndReadFalse(1L)).thenReturn(3L);
+        when(userRepository.findUnreadNotificationCount(1L)).thenReturn(3L);
 
         assertThat(notificationService.getUnreadCount(u)).isEqualTo(3L);
+        assertThat(notificationService.getUnreadCount(u)).isEqualTo(3L);
+
+        verify(userRepository, times(1)).findUnreadNotificationCount(1L);
+        verify(notificationRepository, never()).countByRecipientIdAndReadFalse(any());
+    }
+
+    @Test
+    void getUnreadCount_notYetCounted_countsAndStores() {
+        User u = user(1L, "u@test.com");
+        when(userRepository.findUnreadNotificationCount(1L)).thenReturn(null);
+        when(notificationRepository.countByRecipientIdAndReadFalse(1L)).thenReturn(4L);
+
+        assertThat(notificationService.getUnreadCount(u)).isEqualTo(4L);
+
+        verify(userRepository).initUnreadNotificationCount(1L, 4L);
+    }
+
+    @Test
+    void getUnreadCount_followsChangesAfterLoad() {
+        User u = user(1L, "u@test.com");
+        Notification n = Notification.builder().id(5L).recipient(u)
+                .type(Notification.Type.LIKE).actorName("").actorEmail("").read(false).build();
+        when(userRepository.findUnreadNotificationCount(1L)).thenReturn(3L);
+        when(notificationRepository.findById(5L)).thenReturn(Optional.of(n));
+        notificationService.getUnreadCount(u);
+
+        notificationService.markRead(5L, u);
+
+        assertThat(notificationService.getUnreadCount(u)).isEqualTo(2L);
     }
 
     // ── markRead ─────────────────────────────────────────────────────
@@ -232,6 +423,21 @@ class NotificationServiceTest {
 
         assertThat(n.isRead()).isTrue();
         verify(notificationRepository).save(n);
+        verify(userRepository).addToUnreadNotificationCounts(List.of(1L), -1L);
+        verify(notificationStream).unreadChanged(1L, -1L);
+    }
+
+    @Test
+    void markRead_alreadyRead_doesNotSaveOrPush() {
+        User u = user(1L, "u@test.com");
+        Notification n = Notification.builder().id(5L).recipient(u)
+                .type(Notification.Type.LIKE).actorName("").actorEmail("").read(true).build();
+        when(notificationRepository.findById(5L)).thenReturn(Optional.of(n));
+
+        notificationService.markRead(5L, u);
+
+        verify(notificationRepository, never()).save(any());
+        verifyNoInteractions(notificationStream);
     }
 
     @Test
@@ -260,19 +466,51 @@ class NotificationServiceTest {
     // ── markAllRead ───────────────────────────────────────────────────
 
     @Test
-    void markAllRead_setsAllReadAndSaves() {
+    void markAllRead_singleUpdateAndCounterReset() {
         User u = user(1L, "u@test.com");
-        Notification n1 = Notification.builder().id(1L).recipient(u)
-                .type(Notification.Type.LIKE).actorName("").actorEmail("").read(false).build();
-        Notification n2 = Notification.builder().id(2L).recipient(u)
-                .type(Notification.Type.FOLLOW).actorName("").actorEmail("").read(false).build();
-        when(notificationRepository.findByRecipientIdAndReadFalse(1L)).thenReturn(List.of(n1, n2));
+        when(notificationRepository.markAllRead(1L)).thenReturn(2);
 
         notificationService.markAllRead(u);
 
-        assertThat(n1.isRead()).isTrue();
-        assertThat(n2.isRead()).isTrue();
-        verify(notificationRepository).saveAll(List.of(n1, n2));
+        verify(notificationRepository, never()).saveAll(any());
+        verify(userRepository).resetUnreadNotificationCount(1L);
+        verify(notificationStream).unreadChanged(1L, -2L);
+    }
+
+    @Test
+    void markReadUpTo_marksUpToCursorAndSubtractsMarked() {
+        User u = user(1L, "u@test.com");
+        Instant t = Instant.parse("2026-01-02T00:00:00Z");
+        when(notificationRepository.markReadUpTo(1L, t, 7L)).thenReturn(3);
+
+        notificationService.markReadUpTo(u, new FeedCursor(t, 7L).encode());
+
+        verify(userRepository).addToUnreadNotificationCounts(List.of(1L), -3L);
+        verify(notificationStream).unreadChanged(1L, -3L);
+    }
+
+    // ── deleteOlderThan ───────────────────────────────────────────────
+
+    @Test
+    void deleteOlderThan_subtractsUnreadPerRecipientThenDeletes() {
+        Instant cutoff = Instant.parse("2025-01-01T00:00:00Z");
+        NotificationRepository.UnreadByRecipient two = unread(1L, 2), alsoTwo = unread(2L, 2), one = unread(3L, 1);
+        when(notificationRepository.countUnreadByRecipientActiveBefore(cutoff)).thenReturn(List.of(two, alsoTwo, one));
+        when(notificationRepository.deleteByLastActivityAtBefore(cutoff)).thenReturn(9);
+
+        assertThat(notificationService.deleteOlderThan(cutoff)).isEqualTo(9);
+
+        verify(notificationActorRepository).deleteByLastActivityAtBefore(cutoff);
+        verify(userRepository).addToUnreadNotificationCounts(argThat(ids -> ids.containsAll(List.of(1L, 2L))), eq(-2L));
+        verify(userRepository).addToUnreadNotificationCounts(List.of(3L), -1L);
+        verify(notificationStream).unreadChanged(3L, -1L);
+    }
+
+    private NotificationRepository.UnreadByRecipient unread(Long recipientId, long count) {
+        return new NotificationRepository.UnreadByRecipient() {
+            public Long getRecipientId() { return recipientId; }
+            public long getCount() { return count; }
+        };
     }
 
     // ── deleteNotification ────────────────────────────────────────────
@@ -286,6 +524,7 @@ class NotificationServiceTest {
 
         notificationService.deleteNotification(7L, u);
 
+        verify(notificationActorRepository).deleteAllByNotificationId(7L);
         verify(notificationRepository).delete(n);
     }
 
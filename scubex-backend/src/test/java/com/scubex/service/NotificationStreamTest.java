@@ -0,0 +1,131 @@
+package com.scubex.service;
+
+import com.scubex.model.Notification;
+import com.scubex.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Tests cover:
+ * - a new stream starts with the unread count
+ * - new notifications and their delta reach connected recipients only
+ * - an updated aggregate is pushed again without a delta
+ * - pushes inside a transaction wait for the commit
+ * - heartbeats are sent on the sender, not the scheduler thread
+ */
+class NotificationStreamTest {
+
+    // Direct executor: pushes are written before the call returns
+    private final NotificationStream stream = new NotificationStream(Runnable::run);
+    private MockMvc mockMvc;
+
+    @RestController
+    class StreamEndpoint {
+        @GetMapping("/stream/{userId}")
+        SseEmitter open(@PathVariable long userId) {
+            return stream.connect(userId, () -> {
+                // Registered before the count is read, so nothing committed meanwhile is missed
+                assertThat(stream.isConnected(userId)).isTrue();
+                return 2;
+            });
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(new StreamEndpoint()).build();
+    }
+
+    private MvcResult open(long userId) throws Exception {
+        return mockMvc.perform(get("/stream/" + userId)).andExpect(request().asyncStarted()).andReturn();
+    }
+
+    private Notification notification(long id, long recipientId) {
+        return Notification.builder().id(id).recipient(User.builder().id(recipientId).build())
+                .type(Notification.Type.LIKE).actorName("Ana").actorEmail("ana@test.com")
+                .createdAt(Instant.parse("2026-01-01T00:00:00Z")).build();
+    }
+
+    @Test
+    void connect_sendsUnreadCountFirst() throws Exception {
+        MvcResult result = open(1L);
+
+        assertThat(result.getResponse().getContentAsString()).startsWith("event:unread-count\ndata:{\"count\":2}");
+        assertThat(stream.isConnected(1L)).isTrue();
+        assertThat(stream.connectedUsers()).isEqualTo(1);
+    }
+
+    @Test
+    void notificationsCreated_reachConnectedRecipientOnly() throws Exception {
+        MvcResult result = open(1L);
+
+        stream.notificationsCreated(List.of(notification(10L, 1L), notification(11L, 2L)));
+
+        String body = result.getResponse().getContentAsString();
+        assertThat(body).contains("event:notification\ndata:{\"id\":10,\"type\":\"LIKE\"");
+        assertThat(body).doesNotContain("\"id\":11");
+        assertThat(body).contains("event:unread-delta\ndata:{\"delta\":1}");
+    }
+
+    @Test
+    void notificationsUpdated_resendsWithoutDelta() throws Exception {
+        MvcResult result = open(1L);
+        Notification aggregate = notification(10L, 1L);
+        aggregate.setActorCount(24);
+        aggregate.setPreviousActorName("Luis");
+
+        stream.notificationsUpdated(List.of(aggregate));
+
+        String body = result.getResponse().getContentAsString();
+        assertThat(body).contains("event:notification\ndata:{\"id\":10,");
+        assertThat(body).contains("\"actorCount\":24,\"previousActorName\":\"Luis\"");
+        assertThat(body).doesNotContain("unread-delta");
+    }
+
+    @Test
+    void unreadChanged_insideTransaction_isSentAfterCommit() throws Exception {
+        MvcResult result = open(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            stream.unreadChanged(1L, -3);
+            assertThat(result.getResponse().getContentAsString()).doesNotContain("unread-delta");
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertThat(result.getResponse().getContentAsString()).contains("data:{\"delta\":-3}");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void heartbeat_isHandedToTheSender() throws Exception {
+        List<Runnable> queued = new ArrayList<>();
+        NotificationStream deferred = new NotificationStream(queued::add);
+        deferred.connect(1L, () -> 0);
+
+        deferred.heartbeat();
+
+        // Nothing written on the scheduler thread; the sender runs the ping
+        assertThat(queued).hasSize(1);
+        MvcResult result = open(1L);
+        stream.heartbeat();
+        assertThat(result.getResponse().getContentAsString()).contains(":ping");
+    }
+}
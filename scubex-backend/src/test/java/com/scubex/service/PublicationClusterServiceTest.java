@@ -0,0 +1,123 @@
+package com.scubex.service;
+
+import com.scubex.DTO.MapCluster;
+import com.scubex.DTO.PublicationView;
+import com.scubex.geo.HilbertCurve;
+import com.scubex.model.Publication;
+import com.scubex.model.PublicationCluster;
+import com.scubex.model.User;
+import com.scubex.repository.PublicationClusterRepository;
+import com.scubex.repository.PublicationRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests cover:
+ * - zoom to level mapping, coarsened for viewports wider than MAX_CELLS_PER_AXIS cells
+ * - add increments existing cells and inserts the missing ones
+ * - remove repairs the representative bottom-up when the deleted post was the newest
+ * - getClusters returns the centroid and the hydrated representative
+ */
+@ExtendWith(MockitoExtension.class)
+class PublicationClusterServiceTest {
+
+    @Mock private PublicationClusterRepository clusterRepository;
+    @Mock private PublicationRepository publicationRepository;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private PublicationClusterService clusterService;
+
+    private Publication pub(Long id, double lat, double lng) {
+        Publication p = Publication.builder().id(id).title("Pub" + id)
+                .user(User.builder().id(1L).email("u1@test.com").name("Ana").build()).latitude(lat).longitude(lng)
+                .createdAt(Instant.parse("2026-07-01T10:00:00Z")).build();
+        p.updateSpatialKey();
+        return p;
+    }
+
+    @Test
+    void levelFor_followsZoomAndCoarsensWideViewports() {
+        // ~0.5° box at zoom 10: 0.5/360 * 2^12 ≈ 6 cells per axis, level 12 is fine
+        assertThat(PublicationClusterService.levelFor(36.5, 37.0, -4.0, -3.5, 10)).isEqualTo(12);
+        // Whole world at zoom 10 would be 4096 cells per axis: drops to 32 per axis (level 5)
+        assertThat(PublicationClusterService.levelFor(-90, 90, -180, 180, 10)).isEqualTo(5);
+        assertThat(PublicationClusterService.levelFor(36.7, 36.7, -3.7, -3.7, 20))
+                .isEqualTo(PublicationClusterService.MAX_LEVEL);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void add_incrementsExistingCellsAndInsertsMissingOnes() {
+        Publication p = pub(7L, 36.7, -3.7);
+        List<Long> keys = PublicationClusterService.keysFor(p.getSpatialKey());
+        // Coarse levels already have posts, the finest three cells are new
+        List<Long> existing = keys.subList(0, keys.size() - 3);
+        when(clusterRepository.findExistingKeys(keys)).thenReturn(existing);
+
+        clusterService.add(p);
+
+        verify(clusterRepository).addPublication(Set.copyOf(existing), 36.7, -3.7, 7L);
+        ArgumentCaptor<List<PublicationCluster>> created = ArgumentCaptor.forClass(List.class);
+        verify(clusterRepository).saveAllAndFlush(created.capture());
+        assertThat(created.getValue()).hasSize(3)
+                .allMatch(c -> c.getPublicationCount() == 1 && c.getRepresentativeId() == 7L);
+    }
+
+    @Test
+    void remove_whenRepresentative_recomputesBottomUp() {
+        Publication p = pub(9L, 36.7, -3.7);
+        long spatialKey = p.getSpatialKey();
+        List<Long> keys = PublicationClusterService.keysFor(spatialKey);
+        int max = PublicationClusterService.MAX_LEVEL;
+        long finest = PublicationCluster.keyOf(max, spatialKey);
+        long parentCell = HilbertCurve.cellAt(spatialKey, max - 1);
+        long parent = PublicationCluster.keyOf(max - 1, parentCell);
+        when(clusterRepository.findKeysRepresentedBy(keys, 9L)).thenReturn(List.of(finest, parent));
+        when(publicationRepository.findNewestIdAtSpatialKey(spatialKey, 9L)).thenReturn(4L);
+        when(clusterRepository.findNewestRepresentativeBetween(
+                PublicationCluster.keyOf(max, parentCell * 4), PublicationCluster.keyOf(max, parentCell * 4 + 3)))
+                .thenReturn(5L);
+
+        clusterService.remove(p);
+
+        verify(clusterRepository).removePublication(keys, 36.7, -3.7);
+        verify(clusterRepository).deleteEmpty(keys);
+        verify(clusterRepository).setRepresentative(finest, 4L);
+        verify(clusterRepository).setRepresentative(parent, 5L);
+        verify(clusterRepository, times(2)).setRepresentative(anyLong(), anyLong());
+    }
+
+    @Test
+    void getClusters_returnsCentroidAndRepresentative() {
+        PublicationView newest = PublicationView.of(pub(3L, 36.8, -3.8), 0);
+        PublicationCluster cluster = PublicationCluster.builder()
+                .cellKey(PublicationCluster.keyOf(7, 1L)).publicationCount(2L)
+                .latitudeSum(73.4).longitudeSum(-7.4).representativeId(3L).build();
+        when(clusterRepository.findInCellRanges(anyInt(), anyList(), eq(PublicationClusterService.MAX_CLUSTERS)))
+                .thenReturn(List.of(cluster));
+        when(publicationRepository.findViewsByIdIn(List.of(3L))).thenReturn(List.of(newest));
+
+        List<MapCluster> result = clusterService.getClusters(35.0, 44.0, -10.0, 5.0, 5);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).count()).isEqualTo(2);
+        assertThat(result.get(0).latitude()).isCloseTo(36.7, within(1e-9));
+        assertThat(result.get(0).longitude()).isCloseTo(-3.7, within(1e-9));
+        assertThat(result.get(0).representative()).isSameAs(newest);
+    }
+}
@@ -1,13 +1,23 @@
 package com.scubex.service;
 
+import com.scubex.DTO.FeedCursor;
+import com.scubex.DTO.FeedPage;
+import com.scubex.DTO.PublicationView;
+import com.scubex.cache.ContentVersions;
+import com.scubex.cache.PublicationLocationIndex;
+import com.scubex.geo.HilbertCurve;
 import com.scubex.model.Publication;
 import com.scubex.model.User;
 import com.scubex.repository.PublicationRepository;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.Instant;
 import java.util.List;
@@ -20,9 +30,12 @@ import static org.mockito.Mockito.*;
 /**
  * Test suite para PublicationService.
  * Tests cover:
- * - getInArea devuelve solo publicaciones dentro del bounding box
+ * - getInArea devuelve solo publicaciones dentro del bounding box, con límite acotado
+ * - con el índice en memoria cargado, getInArea solo hidrata los ids que devuelve el índice
  * - update por propietario ajeno devuelve null sin persistir
  * - delete por propietario ajeno devuelve false sin llamar a delete
+ * - getFeed pagina por cursor (createdAt, id) y solo devuelve nextCursor si hay más
+ * - getAll (obsoleto) devuelve como mucho las feed.list-max-results más recientes
  */
 @ExtendWith(MockitoExtension.class)
 class PublicationServiceTest {
@@ -30,9 +43,23 @@ class PublicationServiceTest {
     @Mock
     private PublicationRepository publicationRepository;
 
+    @Spy
+    private PublicationLocationIndex locationIndex = new PublicationLocationIndex();
+
+    @Mock
+    private ContentVersions versions;
+
     @InjectMocks
     private PublicationService publicationService;
 
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(publicationService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(publicationService, "maxPageSize", 3);
+        ReflectionTestUtils.setField(publicationService, "maxAreaResults", 50);
+        ReflectionTestUtils.setField(publicationService, "maxListResults", 10);
+    }
+
     // ── helpers ─────────────────────────────────────────────────────
 
     private User buildUser(Long id) {
@@ -56,6 +83,10 @@ class PublicationServiceTest {
                 .build();
     }
 
+    private PublicationView view(Long id, User owner, double lat, double lng) {
+        return PublicationView.of(buildPublication(id, owner, lat, lng), 0);
+    }
+
     // ── tests ────────────────────────────────────────────────────────
 
     /**
@@ -69,21 +100,56 @@ class PublicationServiceTest {
         User owner = buildUser(1L);
 
         // Publicaciones que el repositorio retorna para el área dada
-        Publication inside1 = buildPublication(1L, owner, 36.5, -6.0);
-        Publication inside2 = buildPublication(2L, owner, 37.0, -5.5);
+        PublicationView inside1 = view(1L, owner, 36.5, -6.0);
+        PublicationView inside2 = view(2L, owner, 37.0, -5.5);
 
         // El repositorio ya filtra; devuelve solo las interiores
-        when(publicationRepository.findByLatitudeBetweenAndLongitudeBetween(
-                36.0, 38.0, -7.0, -5.0))
+        when(publicationRepository.findInArea(anyList(), eq(36.0), eq(38.0), eq(-7.0), eq(-5.0), eq(50)))
                 .thenReturn(List.of(inside1, inside2));
 
-        List<Publication> result = publicationService.getInArea(36.0, 38.0, -7.0, -5.0);
+        List<PublicationView> result = publicationService.getInArea(36.0, 38.0, -7.0, -5.0, null);
 
         assertEquals(2, result.size());
-        assertTrue(result.stream().anyMatch(p -> p.getId().equals(1L)));
-        assertTrue(result.stream().anyMatch(p -> p.getId().equals(2L)));
+        assertTrue(result.stream().anyMatch(p -> p.id().equals(1L)));
+        assertTrue(result.stream().anyMatch(p -> p.id().equals(2L)));
         verify(publicationRepository, times(1))
-                .findByLatitudeBetweenAndLongitudeBetween(36.0, 38.0, -7.0, -5.0);
+                .findInArea(anyList(), eq(36.0), eq(38.0), eq(-7.0), eq(-5.0), eq(50));
+    }
+
+    /**
+     * Test: getInArea_withLoadedIndex_hydratesOnlyIndexedIds
+     * El índice elige la página (más recientes primero); la BD solo carga esos ids
+     * y el orden del índice se conserva.
+     */
+    @Test
+    void getInArea_withLoadedIndex_hydratesOnlyIndexedIds() {
+        User owner = buildUser(1L);
+        PublicationView older = view(1L, owner, 36.5, -6.0);
+        PublicationView newer = view(2L, owner, 37.0, -5.5);
+        locationIndex.install(PublicationLocationIndex.builder()
+                .add(1L, HilbertCurve.encode(36.5, -6.0), 36.5, -6.0, 1_000L)
+                .add(2L, HilbertCurve.encode(37.0, -5.5), 37.0, -5.5, 2_000L)
+                .add(3L, HilbertCurve.encode(40.0, -5.5), 40.0, -5.5, 3_000L));
+        when(publicationRepository.findViewsByIdIn(List.of(2L, 1L))).thenReturn(List.of(older, newer));
+
+        List<PublicationView> result = publicationService.getInArea(36.0, 38.0, -7.0, -5.0, null);
+
+        assertEquals(List.of(newer, older), result);
+        verify(publicationRepository, never()).findInArea(anyList(), anyDouble(), anyDouble(), anyDouble(), anyDouble(), anyInt());
+    }
+
+    /**
+     * Test: getInArea_clampsLimitToMaxResults
+     * Un límite por encima de area.max-results se recorta al máximo configurado.
+     */
+    @Test
+    void getInArea_clampsLimitToMaxResults() {
+        when(publicationRepository.findInArea(anyList(), eq(36.0), eq(38.0), eq(-7.0), eq(-5.0), eq(50)))
+                .thenReturn(List.of());
+
+        publicationService.getInArea(36.0, 38.0, -7.0, -5.0, 10_000);
+
+        verify(publicationRepository).findInArea(anyList(), eq(36.0), eq(38.0), eq(-7.0), eq(-5.0), eq(50));
     }
 
     /**
@@ -128,4 +194,56 @@ class PublicationServiceTest {
         assertFalse(result, "delete por propietario ajeno debe devolver false");
         verify(publicationRepository, never()).delete(any(Publication.class));
     }
+
+    /**
+     * Test: getFeed_firstPage_returnsCursorOfLastItemWhenMoreExist
+     * Se pide una fila extra (limit + 1) para saber si hay otra página sin hacer COUNT.
+     */
+    @Test
+    void getFeed_firstPage_returnsCursorOfLastItemWhenMoreExist() {
+        User owner = buildUser(1L);
+        PublicationView p3 = view(3L, owner, 36.0, -4.0);
+        PublicationView p2 = view(2L, owner, 36.0, -4.0);
+        PublicationView p1 = view(1L, owner, 36.0, -4.0);
+        when(publicationRepository.findFeedFirstPage(PageRequest.of(0, 3))).thenReturn(List.of(p3, p2, p1));
+
+        FeedPage<PublicationView> page = publicationService.getFeed(null, null);
+
+        assertEquals(List.of(p3, p2), page.items());
+        FeedCursor next = FeedCursor.decode(page.nextCursor());
+        assertEquals(Instant.parse(p2.createdAt()), next.createdAt());
+        assertEquals(2L, next.id());
+    }
+
+    /**
+     * Test: getFeed_withCursor_seeksAfterItAndClampsLimit
+     * El cursor se decodifica a (createdAt, id); el límite pedido se recorta al máximo configurado.
+     * La última página no lleva nextCursor.
+     */
+    @Test
+    void getFeed_withCursor_seeksAfterItAndClampsLimit() {
+        Instant createdAt = Instant.parse("2026-07-01T10:00:00.123456Z");
+        String cursor = new FeedCursor(createdAt, 5L).encode();
+        PublicationView p4 = view(4L, buildUser(1L), 36.0, -4.0);
+        when(publicationRepository.findFeedPageAfter(createdAt, 5L, PageRequest.of(0, 4))).thenReturn(List.of(p4));
+
+        FeedPage<PublicationView> page = publicationService.getFeed(cursor, 500);
+
+        assertEquals(List.of(p4), page.items());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void getAll_isCappedToNewestPage() {
+        PublicationView p1 = view(1L, buildUser(1L), 36.0, -4.0);
+        when(publicationRepository.findFeedFirstPage(PageRequest.of(0, 10))).thenReturn(List.of(p1));
+
+        assertEquals(List.of(p1), publicationService.getAll());
+    }
+
+    @Test
+    void getFeed_malformedCursor_throwsIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> publicationService.getFeed("not-a-cursor", 10));
+        verifyNoInteractions(publicationRepository);
+    }
 }
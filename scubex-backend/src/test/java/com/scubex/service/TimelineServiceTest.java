@@ -0,0 +1,143 @@
+package com.scubex.service;
+
+import com.scubex.DTO.FeedCursor;
+import com.scubex.DTO.FeedPage;
+import com.scubex.model.Publication;
+import com.scubex.model.TimelineEntry;
+import com.scubex.model.User;
+import com.scubex.repository.PublicationRepository;
+import com.scubex.repository.TimelineEntryRepository;
+import com.scubex.repository.UserFollowRepository;
+import com.scubex.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests cover:
+ * - fan-out on write for normal authors, skipped for authors above the threshold
+ * - follow backfills recent posts, unfollow removes the author's entries
+ * - timeline read merges pulled posts from popular authors in keyset order, without duplicates
+ */
+@ExtendWith(MockitoExtension.class)
+class TimelineServiceTest {
+
+    @Mock private TimelineEntryRepository timelineEntryRepository;
+    @Mock private UserFollowRepository followRepository;
+    @Mock private PublicationRepository publicationRepository;
+    @Mock private UserRepository userRepository;
+
+    @InjectMocks
+    private TimelineService timelineService;
+
+    private final Instant t0 = Instant.parse("2026-07-01T10:00:00Z");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(timelineService, "maxFanOutFollowers", 100L);
+    }
+
+    private User user(Long id) {
+        return User.builder().id(id).googleId("gid-" + id).email("u" + id + "@test.com").name("User" + id).build();
+    }
+
+    private Publication pub(Long id, User author, int minutesAfterT0) {
+        return Publication.builder().id(id).user(author).title("Pub" + id)
+                .latitude(36.7).longitude(-3.7).createdAt(t0.plusSeconds(60L * minutesAfterT0)).build();
+    }
+
+    // ── write side ────────────────────────────────────────────────────
+
+    @Test
+    void fanOut_regularAuthor_insertsForAllFollowersInOneStatement() {
+        Publication p = pub(10L, user(1L), 0);
+        when(userRepository.findFollowerCount(1L)).thenReturn(40L);
+
+        timelineService.fanOut(p);
+
+        verify(timelineEntryRepository).fanOut(1L, 10L);
+    }
+
+    @Test
+    void fanOut_popularAuthor_isPulledInstead() {
+        when(userRepository.findFollowerCount(1L)).thenReturn(101L);
+
+        timelineService.fanOut(pub(10L, user(1L), 0));
+
+        verify(timelineEntryRepository, never()).fanOut(any(), any());
+    }
+
+    @Test
+    void onFollow_backfillsRecentPosts() {
+        User me = user(2L);
+        User author = user(1L);
+        Publication p = pub(10L, author, 0);
+        when(userRepository.findFollowerCount(1L)).thenReturn(1L);
+        when(publicationRepository.findByAuthorsFirstPage(List.of(1L), PageRequest.of(0, TimelineService.FOLLOW_BACKFILL)))
+                .thenReturn(List.of(p));
+
+        timelineService.onFollow(me, author);
+
+        verify(timelineEntryRepository).saveAll(argThat((List<TimelineEntry> entries) ->
+                entries.size() == 1 && entries.get(0).getUser() == me
+                        && entries.get(0).getCreatedAt().equals(p.getCreatedAt())));
+    }
+
+    @Test
+    void onUnfollow_removesAuthorsEntries() {
+        timelineService.onUnfollow(user(2L), user(1L));
+
+        verify(timelineEntryRepository).deleteByUserIdAndAuthorId(2L, 1L);
+    }
+
+    // ── read side ─────────────────────────────────────────────────────
+
+    @Test
+    void getTimeline_mergesPulledPostsInOrderWithoutDuplicates() {
+        User me = user(2L);
+        User regular = user(1L);
+        User popular = user(3L);
+        Publication r1 = pub(11L, regular, 30);
+        Publication r2 = pub(12L, regular, 10);
+        Publication shared = pub(20L, popular, 20); // fanned out before popular crossed the threshold
+        Publication p1 = pub(21L, popular, 40);
+        PageRequest page = PageRequest.of(0, 3);
+        when(timelineEntryRepository.findTimelineFirstPage(2L, page)).thenReturn(List.of(r1, shared, r2));
+        when(followRepository.findFollowedIdsWithMoreFollowersThan(2L, 100L)).thenReturn(List.of(3L));
+        when(publicationRepository.findByAuthorsFirstPage(List.of(3L), page)).thenReturn(List.of(p1, shared));
+
+        FeedPage<Publication> result = timelineService.getTimeline(me, null, 2);
+
+        assertThat(result.items()).containsExactly(p1, r1);
+        FeedCursor next = FeedCursor.decode(result.nextCursor());
+        assertThat(next.id()).isEqualTo(11L);
+    }
+
+    @Test
+    void getTimeline_withCursor_onlyFanOut_seeksAfterCursor() {
+        User me = user(2L);
+        Publication r = pub(11L, user(1L), 0);
+        String cursor = new FeedCursor(t0.plusSeconds(600), 15L).encode();
+        when(timelineEntryRepository.findTimelinePageAfter(2L, t0.plusSeconds(600), 15L, PageRequest.of(0, 6)))
+                .thenReturn(List.of(r));
+        when(followRepository.findFollowedIdsWithMoreFollowersThan(2L, 100L)).thenReturn(List.of());
+
+        FeedPage<Publication> result = timelineService.getTimeline(me, cursor, 5);
+
+        assertThat(result.items()).containsExactly(r);
+        assertThat(result.nextCursor()).isNull();
+        verifyNoInteractions(publicationRepository);
+    }
+}
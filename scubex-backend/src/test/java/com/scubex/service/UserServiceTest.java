@@ -1,5 +1,7 @@
 package com.scubex.service;
 
+import com.scubex.cache.ContentVersions;
+import com.scubex.cache.PublicationLocationIndex;
 import com.scubex.model.Publication;
 import com.scubex.model.User;
 import com.scubex.repository.*;
@@ -32,11 +34,17 @@ class UserServiceTest {
 
     @Mock private UserRepository userRepository;
     @Mock private NotificationRepository notificationRepository;
+    @Mock private NotificationActorRepository notificationActorRepository;
+    @Mock private NotificationOutboxRepository notificationOutboxRepository;
     @Mock private UserFollowRepository userFollowRepository;
     @Mock private PublicationRepository publicationRepository;
     @Mock private CommentRepository commentRepository;
     @Mock private PublicationLikeRepository publicationLikeRepository;
     @Mock private PublicationSaveRepository publicationSaveRepository;
+    @Mock private TimelineEntryRepository timelineEntryRepository;
+    @Mock private PublicationClusterService clusterService;
+    @Mock private PublicationLocationIndex locationIndex;
+    @Mock private ContentVersions versions;
 
     @InjectMocks
     private UserService userService;
@@ -178,16 +186,23 @@ class UserServiceTest {
 
         userService.deleteAccount("gid-del");
 
+        verify(notificationOutboxRepository).deleteAllByRecipientId(20L);
+        verify(notificationActorRepository).deleteAllByRecipientId(20L);
         verify(notificationRepository).deleteAllByRecipientId(20L);
         verify(userFollowRepository).deleteAllByFollowerId(20L);
         verify(userFollowRepository).deleteAllByFollowedId(20L);
         verify(commentRepository).deleteAllByPublicationIdIn(List.of(100L));
         verify(publicationLikeRepository).deleteAllByPublicationIdIn(List.of(100L));
         verify(publicationSaveRepository).deleteAllByPublicationIdIn(List.of(100L));
+        verify(timelineEntryRepository).deleteAllByUserId(20L);
+        verify(timelineEntryRepository).deleteAllByPublicationIdIn(List.of(100L));
         verify(commentRepository).deleteAllByUserId(20L);
         verify(publicationLikeRepository).deleteAllByUserId(20L);
         verify(publicationSaveRepository).deleteAllByUserId(20L);
         verify(publicationRepository).deleteAll(List.of(pub));
+        verify(clusterService).remove(pub);
+        verify(locationIndex).removeAfterCommit(100L);
+        verify(versions).invalidateAll();
         verify(userRepository).delete(user);
     }
 }
@@ -1,6 +1,10 @@
 package com.scubex.service;
 
 import com.scubex.DTO.WeatherResponse;
+import com.scubex.DTO.DailyForecastResponse;
+import com.scubex.DTO.DiveWindowResponse;
+import com.scubex.cache.WeatherHotspotTracker;
+import com.scubex.cache.WeatherMemoryCache;
 import com.scubex.model.CachedWeather;
 import com.scubex.model.openmeteo.ForecastApiResponse;
 import com.scubex.model.openmeteo.MarineApiResponse;
@@ -8,9 +12,12 @@ import com.scubex.repository.CachedWeatherRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -19,6 +26,10 @@ import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,6 +43,11 @@ import static org.mockito.Mockito.*;
  * - Critical override: wave height > 2.5 m forces divingCondition = "bad" immediately.
  * - No marine data: null marine response (continental area) does not throw and still computes condition.
  * - API fault tolerance: RestClientException in forecast API yields null atmospheric fields without propagating the error.
+ * - In-memory cache: a second request for the same 0.01° cell is served without touching the repository.
+ * - Upsert: a miss updates the existing row for the cell in place instead of appending a new one;
+ *   a concurrent insert is re-read once instead of silently swallowed.
+ * - Hotspots: requests are counted per cell, forecasts are cached, and refresh bypasses the cache.
+ * - Dive windows: hourly series is fetched and scored once per cell, past hours are skipped.
  */
 @ExtendWith(MockitoExtension.class)
 class WeatherServiceTest {
@@ -42,6 +58,12 @@ class WeatherServiceTest {
     @Mock
     private CachedWeatherRepository cachedWeatherRepository;
 
+    @Spy
+    private WeatherMemoryCache memoryCache = new WeatherMemoryCache();
+
+    @Spy
+    private WeatherHotspotTracker hotspotTracker = new WeatherHotspotTracker();
+
     @InjectMocks
     private WeatherService weatherService;
 
@@ -77,8 +99,8 @@ class WeatherServiceTest {
                 .divingCondition("good")
                 .build();
 
-        when(cachedWeatherRepository.findFirstByRoundedLatAndRoundedLngAndCreatedAtAfter(
-                eq(36.5), eq(-4.0), any(Instant.class)))
+        when(cachedWeatherRepository.findByCellKeyAndCreatedAtAfter(
+                eq(WeatherMemoryCache.cellKey(36.5, -4.0)), any(Instant.class)))
                 .thenReturn(Optional.of(cached));
 
         // When
@@ -104,8 +126,8 @@ class WeatherServiceTest {
     @Test
     void criticalOverride_waveHeightExceeds2_5m_returnsDivingConditionBad() {
         // Given: no cache
-        when(cachedWeatherRepository.findFirstByRoundedLatAndRoundedLngAndCreatedAtAfter(
-                any(), any(), any())).thenReturn(Optional.empty());
+        when(cachedWeatherRepository.findByCellKeyAndCreatedAtAfter(
+                any(), any())).thenReturn(Optional.empty());
 
         // Forecast API: ideal atmospheric conditions
         ForecastApiResponse forecastResponse = buildForecastResponse(20.0, 5.0, 20000.0, 0, 0.0);
@@ -136,8 +158,8 @@ class WeatherServiceTest {
     @Test
     void noMarineData_continentalArea_computesConditionFromAtmosphereOnly() {
         // Given: no cache
-        when(cachedWeatherRepository.findFirstByRoundedLatAndRoundedLngAndCreatedAtAfter(
-                any(), any(), any())).thenReturn(Optional.empty());
+        when(cachedWeatherRepository.findByCellKeyAndCreatedAtAfter(
+                any(), any())).thenReturn(Optional.empty());
 
         // Forecast API: good atmospheric conditions
         ForecastApiResponse forecastResponse = buildForecastResponse(18.0, 8.0, 15000.0, 1, 10.0);
@@ -177,8 +199,8 @@ class WeatherServiceTest {
     @Test
     void forecastApiFailure_returnsNullAtmosphericFieldsWithoutThrowing() {
         // Given: no cache
-        when(cachedWeatherRepository.findFirstByRoundedLatAndRoundedLngAndCreatedAtAfter(
-                any(), any(), any())).thenReturn(Optional.empty());
+        when(cachedWeatherRepository.findByCellKeyAndCreatedAtAfter(
+                any(), any())).thenReturn(Optional.empty());
 
         // Forecast API: throws RestClientException (e.g. network timeout)
         when(restTemplate.getForEntity(any(URI.class), eq(ForecastApiResponse.class)))
@@ -204,6 +226,159 @@ class WeatherServiceTest {
         assertEquals(0.2, result.getOceanCurrentVelocity());
     }
 
+    // ─────────────────────────────────────────────────────────────────────────
+    // Test 5: In-memory cache in front of the repository
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * In-memory cache: once a cell has been fetched, further requests inside the
+     * same 0.01° cell are answered from memory without any repository or HTTP call.
+     */
+    @Test
+    void memoryCacheHit_sameCell_skipsRepositoryAndApis() {
+        when(cachedWeatherRepository.findByCellKeyAndCreatedAtAfter(
+                any(), any())).thenReturn(Optional.empty());
+        when(restTemplate.getForEntity(any(URI.class), eq(ForecastApiResponse.class)))
+                .thenReturn(new ResponseEntity<>(buildForecastResponse(20.0, 5.0, 20000.0, 0, 0.0), HttpStatus.OK));
+        when(restTemplate.getForEntity(any(URI.class), eq(MarineApiResponse.class)))
+                .thenReturn(new ResponseEntity<>(buildMarineResponse(0.3, 0.2), HttpStatus.OK));
+
+        WeatherResponse first = weatherService.getWeather(36.501, -4.002);
+        WeatherResponse second = weatherService.getWeather(36.499, -3.998);
+
+        // Same data, but each caller gets its own copy
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        verify(cachedWeatherRepository, times(1))
+                .findByCellKeyAndCreatedAtAfter(any(), any());
+        verify(restTemplate, times(1)).getForEntity(any(URI.class), eq(ForecastApiResponse.class));
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Test 6: Upsert — one row per cell
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Upsert: when the cell already has an (expired) row, the fresh fetch is written
+     * into that same row rather than inserting a duplicate.
+     */
+    @Test
+    void cacheMiss_existingExpiredRow_isUpdatedInPlace() {
+        long cellKey = WeatherMemoryCache.cellKey(36.5, -4.0);
+        CachedWeather stale = CachedWeather.builder()
+                .id(7L).cellKey(cellKey).version(3L)
+                .roundedLat(36.5).roundedLng(-4.0)
+                .createdAt(Instant.now().minusSeconds(2 * 3600))
+                .temperature(10.0)
+                .build();
+        when(cachedWeatherRepository.findByCellKeyAndCreatedAtAfter(any(), any())).thenReturn(Optional.empty());
+        when(cachedWeatherRepository.findByCellKey(cellKey)).thenReturn(Optional.of(stale));
+        when(restTemplate.getForEntity(any(URI.class), eq(ForecastApiResponse.class)))
+                .thenReturn(new ResponseEntity<>(buildForecastResponse(21.0, 5.0, 20000.0, 0, 0.0), HttpStatus.OK));
+        when(restTemplate.getForEntity(any(URI.class), eq(MarineApiResponse.class)))
+                .thenReturn(new ResponseEntity<>(buildMarineResponse(0.3, 0.2), HttpStatus.OK));
+
+        weatherService.getWeather(36.5, -4.0);
+
+        ArgumentCaptor<CachedWeather> captor = ArgumentCaptor.forClass(CachedWeather.class);
+        verify(cachedWeatherRepository).save(captor.capture());
+        assertSame(stale, captor.getValue());
+        assertEquals(7L, captor.getValue().getId());
+        assertEquals(21.0, captor.getValue().getTemperature());
+        assertTrue(captor.getValue().getCreatedAt().isAfter(Instant.now().minusSeconds(60)));
+    }
+
+    /**
+     * Insert race: another request created the cell's row first. The duplicate-key failure
+     * is not swallowed blindly; the row is re-read once and, being as fresh, left alone.
+     */
+    @Test
+    void cacheMiss_concurrentInsert_rereadsOnceAndKeepsWinner() {
+        long cellKey = WeatherMemoryCache.cellKey(36.5, -4.0);
+        CachedWeather winner = CachedWeather.builder()
+                .id(8L).cellKey(cellKey).createdAt(Instant.now().plusSeconds(1)).build();
+        when(cachedWeatherRepository.findByCellKeyAndCreatedAtAfter(any(), any())).thenReturn(Optional.empty());
+        when(cachedWeatherRepository.findByCellKey(cellKey)).thenReturn(Optional.empty(), Optional.of(winner));
+        when(cachedWeatherRepository.save(any())).thenThrow(new DataIntegrityViolationException("uk_cell_key"));
+        when(restTemplate.getForEntity(any(URI.class), eq(ForecastApiResponse.class)))
+                .thenReturn(new ResponseEntity<>(buildForecastResponse(21.0, 5.0, 20000.0, 0, 0.0), HttpStatus.OK));
+        when(restTemplate.getForEntity(any(URI.class), eq(MarineApiResponse.class)))
+                .thenReturn(new ResponseEntity<>(buildMarineResponse(0.3, 0.2), HttpStatus.OK));
+
+        WeatherResponse result = assertDoesNotThrow(() -> weatherService.getWeather(36.5, -4.0));
+
+        assertEquals(21.0, result.getTemperature());
+        verify(cachedWeatherRepository, times(2)).findByCellKey(cellKey);
+        verify(cachedWeatherRepository, times(1)).save(any());
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Test 7: Hotspot tracking and forecast cache / refresh
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Forecast requests are counted for the cell and served from memory on repeat;
+     * refreshForecast goes back to Open-Meteo even though the cell is still cached.
+     */
+    @Test
+    void forecast_cachedPerCell_andRefreshBypassesCache() {
+        when(restTemplate.getForEntity(any(URI.class), eq(ForecastApiResponse.class)))
+                .thenReturn(new ResponseEntity<>(buildDailyForecastResponse(), HttpStatus.OK));
+        when(restTemplate.getForEntity(any(URI.class), eq(MarineApiResponse.class)))
+                .thenReturn(new ResponseEntity<>(new MarineApiResponse(), HttpStatus.OK));
+        long cellKey = WeatherMemoryCache.cellKey(42.04, 3.22);
+
+        List<DailyForecastResponse> first = weatherService.getForecast(42.04, 3.22);
+        List<DailyForecastResponse> second = weatherService.getForecast(42.041, 3.219);
+
+        assertEquals(1, first.size());
+        assertEquals(first, second);
+        assertEquals(2, hotspotTracker.hits(cellKey));
+        verify(restTemplate, times(1)).getForEntity(any(URI.class), eq(ForecastApiResponse.class));
+
+        weatherService.refreshForecast(cellKey);
+
+        verify(restTemplate, times(2)).getForEntity(any(URI.class), eq(ForecastApiResponse.class));
+        assertEquals(2, hotspotTracker.hits(cellKey)); // refreshes are not user traffic
+    }
+
+    // ─────────────────────────────────────────────────────────────────────────
+    // Test 8: Dive windows
+    // ─────────────────────────────────────────────────────────────────────────
+
+    /**
+     * The hourly series is fetched and scored once; a second call with another window
+     * length is answered from the cached scores. Hours before "now" are never offered.
+     */
+    @Test
+    void diveWindows_scoredOnceAndPastHoursSkipped() {
+        LocalDateTime thisHour = LocalDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.HOURS);
+        ForecastApiResponse.HourlyForecast air = new ForecastApiResponse.HourlyForecast();
+        air.setTime(List.of(thisHour.minusHours(1).toString(), thisHour.toString(),
+                thisHour.plusHours(1).toString(), thisHour.plusHours(2).toString(), thisHour.plusHours(3).toString()));
+        air.setWindSpeed(List.of(5.0, 5.0, 5.0, 50.0, 20.0));
+        ForecastApiResponse atmosphere = new ForecastApiResponse();
+        atmosphere.setHourly(air);
+        atmosphere.setUtcOffsetSeconds(0);
+
+        when(restTemplate.getForEntity(any(URI.class), eq(ForecastApiResponse.class)))
+                .thenReturn(new ResponseEntity<>(atmosphere, HttpStatus.OK));
+        when(restTemplate.getForEntity(any(URI.class), eq(MarineApiResponse.class)))
+                .thenReturn(new ResponseEntity<>(new MarineApiResponse(), HttpStatus.OK));
+
+        List<DiveWindowResponse> twoHours = weatherService.getDiveWindows(42.04, 3.22, 2, 3);
+        List<DiveWindowResponse> oneHour = weatherService.getDiveWindows(42.04, 3.22, 1, 3);
+
+        // Past hour excluded, storm-force wind at +2h excluded
+        assertEquals(1, twoHours.size());
+        assertEquals(thisHour.toString(), twoHours.get(0).getStart());
+        assertEquals(thisHour.plusHours(2).toString(), twoHours.get(0).getEnd());
+        assertEquals("good", twoHours.get(0).getDivingCondition());
+        assertEquals(3, oneHour.size());
+        assertEquals("moderate", oneHour.get(2).getDivingCondition());
+        verify(restTemplate, times(1)).getForEntity(any(URI.class), eq(ForecastApiResponse.class));
+    }
+
     // ─────────────────────────────────────────────────────────────────────────
     // Helpers
     // ─────────────────────────────────────────────────────────────────────────
@@ -222,6 +397,18 @@ class WeatherServiceTest {
         return response;
     }
 
+    private ForecastApiResponse buildDailyForecastResponse() {
+        ForecastApiResponse.DailyForecast daily = new ForecastApiResponse.DailyForecast();
+        daily.setTime(List.of("2026-07-01"));
+        daily.setWeatherCode(List.of(1));
+        daily.setWindSpeedMax(List.of(8.0));
+        daily.setPrecipitationProbabilityMax(List.of(5.0));
+
+        ForecastApiResponse response = new ForecastApiResponse();
+        response.setDaily(daily);
+        return response;
+    }
+
     private MarineApiResponse buildMarineResponse(double waveHeight, double oceanCurrentVelocity) {
         MarineApiResponse.CurrentMarine current = new MarineApiResponse.CurrentMarine();
         current.setWaveHeight(waveHeight);
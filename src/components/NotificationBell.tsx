@@ -5,7 +5,7 @@ import Spinner from './Spinner';
 import { useWaveTransition } from '../lib/transition';
 import {
   getNotifications,
-  getUnreadCount,
+  openNotificationStream,
   markNotificationRead,
   markAllNotificationsRead,
   deleteNotification,
@@ -23,11 +23,21 @@ function timeAgo(isoString: string): string {
   return `hace ${d}d`;
 }
 
+// "Ana", "Ana y Luis", "Ana, Luis y 22 más" for aggregated notifications
+function actorsText(n: NotificationData): string {
+  const count = n.actorCount ?? 1;
+  if (count <= 1) return n.actorName;
+  if (!n.previousActorName) return `${n.actorName} y ${count - 1} más`;
+  if (count === 2) return `${n.actorName} y ${n.previousActorName}`;
+  return `${n.actorName}, ${n.previousActorName} y ${count - 2} más`;
+}
+
 function notificationText(n: NotificationData): string {
+  const many = (n.actorCount ?? 1) > 1;
   switch (n.type) {
     case 'FOLLOW': return `${n.actorName} ha empezado a seguirte`;
-    case 'LIKE': return `${n.actorName} ha dado like a "${n.publicationTitle}"`;
-    case 'COMMENT': return `${n.actorName} comentó en "${n.publicationTitle}"`;
+    case 'LIKE': return `${actorsText(n)} ${many ? 'han' : 'ha'} dado like a "${n.publicationTitle}"`;
+    case 'COMMENT': return `${actorsText(n)} ${many ? 'comentaron' : 'comentó'} en "${n.publicationTitle}"`;
     case 'MENTION': return `${n.actorName} te mencionó en "${n.publicationTitle}"`;
   }
 }
@@ -83,7 +93,7 @@ function SwipeableNotification({
           {n.commentSnippet && (
             <p className="text-xs text-gray-400 mt-0.5 truncate">{n.commentSnippet}</p>
           )}
-          <p className="text-xs text-gray-400 mt-0.5">{timeAgo(n.createdAt)}</p>
+          <p className="text-xs text-gray-400 mt-0.5">{timeAgo(n.lastActivityAt ?? n.createdAt)}</p>
         </div>
         <div className="flex-shrink-0 flex items-center gap-1.5 mt-1">
           {!n.read && <span className="w-2 h-2 rounded-full bg-cyan-500" />}
@@ -110,45 +120,42 @@ export default function NotificationBell({ onFocusPublication }: Props) {
   const [notifications, setNotifications] = useState<NotificationData[]>([]);
   const [loading, setLoading] = useState(false);
 
+  // The unread badge is left to the stream: the server pushes the delta for reads and deletes
   const handleDismiss = useCallback((id: number) => {
-    setNotifications(prev => {
-      const n = prev.find(x => x.id === id);
-      if (n && !n.read) setUnread(u => Math.max(0, u - 1));
-      return prev.filter(x => x.id !== id);
-    });
+    setNotifications(prev => prev.filter(x => x.id !== id));
     deleteNotification(id).catch(() => {});
   }, []);
   const panelRef = useRef<HTMLDivElement>(null);
   const { startWaveTransition } = useWaveTransition();
 
-  const fetchCount = useCallback(async () => {
-    try {
-      const count = await getUnreadCount();
-      setUnread(count);
-    } catch { /* ignore */ }
-  }, []);
-
   const fetchAll = useCallback(async () => {
     setLoading(true);
     try {
-      const data = await getNotifications();
-      setNotifications(data);
-      setUnread(data.filter(n => !n.read).length);
+      // First page only; the badge keeps the server's unread count, which covers older pages too
+      const page = await getNotifications();
+      setNotifications(page.items);
     } catch { /* ignore */ }
     finally { setLoading(false); }
   }, []);
 
-  // Fetch count on mount, on tab focus, and every 3 minutes
-  useEffect(() => {
-    fetchCount();
-    const interval = window.setInterval(fetchCount, 3 * 60 * 1000);
-    const onVisible = () => { if (document.visibilityState === 'visible') fetchCount(); };
-    document.addEventListener('visibilitychange', onVisible);
-    return () => {
-      window.clearInterval(interval);
-      document.removeEventListener('visibilitychange', onVisible);
-    };
-  }, [fetchCount]);
+  // Live count and new notifications from the stream; it sends the full count on every (re)connect
+  useEffect(() => openNotificationStream(event => {
+    switch (event.type) {
+      case 'unread-count':
+        setUnread(event.count);
+        break;
+      case 'unread-delta':
+        setUnread(u => Math.max(0, u + event.delta));
+        break;
+      case 'notification': {
+        // An aggregate that gained actors comes again with the same id: the list is ordered by
+        // last activity, so it moves to the top like a new one
+        const n = event.notification;
+        setNotifications(prev => [n, ...prev.filter(x => x.id !== n.id)]);
+        break;
+      }
+    }
+  }), []);
 
   // Fetch full list when panel opens
   useEffect(() => {
@@ -171,7 +178,6 @@ export default function NotificationBell({ onFocusPublication }: Props) {
     if (!n.read) {
       await markNotificationRead(n.id);
       setNotifications(prev => prev.map(x => x.id === n.id ? { ...x, read: true } : x));
-      setUnread(prev => Math.max(0, prev - 1));
     }
     setOpen(false);
     if ((n.type === 'LIKE' || n.type === 'COMMENT' || n.type === 'MENTION') && n.publicationId) {
@@ -188,7 +194,6 @@ export default function NotificationBell({ onFocusPublication }: Props) {
   const handleMarkAllRead = async () => {
     await markAllNotificationsRead();
     setNotifications(prev => prev.map(n => ({ ...n, read: true })));
-    setUnread(0);
   };
 
   return (
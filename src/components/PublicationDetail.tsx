@@ -1,7 +1,7 @@
 import { useState, useEffect, useLayoutEffect, useCallback, useRef } from 'react';
 import { motion, AnimatePresence } from 'framer-motion';
 import type { PublicationData, CommentData } from '../lib/api';
-import { uploadImage, toggleLike, getLikeStatus, toggleSave, getSaveStatus, getComments, addComment, deleteComment, loginWithGoogle } from '../lib/api';
+import { uploadImage, toggleLike, toggleSave, getInteractions, getComments, addComment, deleteComment, loginWithGoogle } from '../lib/api';
 import { reverseGeocode } from '../lib/geocode';
 import { useUserStore } from '../lib/stores/index.tsx';
 import { GoogleLogin } from '@react-oauth/google';
@@ -99,13 +99,16 @@ export default function PublicationDetail({ publication, map, isOwner, onClose,
   const scrollContainerRef = useRef<HTMLDivElement>(null);
   const commentInputRef = useRef<HTMLInputElement>(null);
 
-  // Fetch like/save status when expanded
+  // Fetch like/save status and current counts when expanded (the list copy may be cached with older counts)
   useEffect(() => {
     if (!expanded) return;
-    getLikeStatus(publication.id).then(s => { setLiked(s.liked); setLikeCount(s.count); }).catch(() => {});
-    if (userStore.isLoggedIn) {
-      getSaveStatus(publication.id).then(s => setSaved(s.saved)).catch(() => {});
-    }
+    getInteractions([publication.id]).then(([s]) => {
+      if (!s) return;
+      setLiked(s.liked);
+      setSaved(s.saved);
+      setLikeCount(s.likeCount);
+      setCommentCount(s.commentCount);
+    }).catch(() => {});
   }, [expanded, publication.id, userStore.isLoggedIn]);
 
   // Reverse geocode when expanded (uses module-level cache to avoid repeated network requests)
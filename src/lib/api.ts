@@ -264,8 +264,18 @@ export async function uploadImage(file: File): Promise<string> {
   return `${API_BASE_URL}${data.imageUrl}`;
 }
 
-export async function getPublications(): Promise<PublicationData[]> {
-  const response = await fetch(`${API_BASE_URL}/api/publications`, {
+export interface PublicationPage {
+  items: PublicationData[];
+  nextCursor: string | null;
+}
+
+/** One page of the global feed, newest first; pass nextCursor back to get the next page. */
+export async function getFeed(cursor?: string, limit?: number): Promise<PublicationPage> {
+  const params = new URLSearchParams();
+  if (cursor) params.set('cursor', cursor);
+  if (limit) params.set('limit', limit.toString());
+  const qs = params.toString() ? `?${params}` : '';
+  const response = await fetch(`${API_BASE_URL}/api/publications/feed${qs}`, {
     method: 'GET',
     headers: { 'Content-Type': 'application/json' },
   });
@@ -273,6 +283,15 @@ export async function getPublications(): Promise<PublicationData[]> {
   return response.json();
 }
 
+export async function getPublication(id: number): Promise<PublicationData> {
+  const response = await fetch(`${API_BASE_URL}/api/publications/${id}`, {
+    method: 'GET',
+    headers: { 'Content-Type': 'application/json' },
+  });
+  if (!response.ok) throw new Error(`Fetch publication failed: ${response.status}`);
+  return response.json();
+}
+
 export async function getPublicationsInArea(latMin: number, latMax: number, lngMin: number, lngMax: number): Promise<PublicationData[]> {
   const params = new URLSearchParams({
     latMin: latMin.toString(),
@@ -337,15 +356,6 @@ export async function toggleLike(pubId: number): Promise<LikeStatus> {
   return response.json();
 }
 
-export async function getLikeStatus(pubId: number): Promise<LikeStatus> {
-  const response = await fetch(`${API_BASE_URL}/api/publications/${pubId}/like`, {
-    method: 'GET',
-    headers: { 'Content-Type': 'application/json', ...getAuthHeaders() },
-  });
-  if (!response.ok) throw new Error(`Get like status failed: ${response.status}`);
-  return response.json();
-}
-
 // Save/Unsave
 export async function toggleSave(pubId: number): Promise<SaveStatus> {
   const response = await fetch(`${API_BASE_URL}/api/publications/${pubId}/save`, {
@@ -356,12 +366,24 @@ export async function toggleSave(pubId: number): Promise<SaveStatus> {
   return response.json();
 }
 
-export async function getSaveStatus(pubId: number): Promise<SaveStatus> {
-  const response = await fetch(`${API_BASE_URL}/api/publications/${pubId}/save`, {
+export interface InteractionState {
+  id: number;
+  liked: boolean;
+  saved: boolean;
+  likeCount: number;
+  commentCount: number;
+}
+
+/**
+ * Current like and comment counts, plus the caller's liked/saved flags, for up to a page of posts.
+ * Publication lists can be served from cache with older counts, so read the live ones here.
+ */
+export async function getInteractions(pubIds: number[]): Promise<InteractionState[]> {
+  const response = await fetch(`${API_BASE_URL}/api/publications/interactions?ids=${pubIds.join(',')}`, {
     method: 'GET',
     headers: { 'Content-Type': 'application/json', ...getAuthHeaders() },
   });
-  if (!response.ok) throw new Error(`Get save status failed: ${response.status}`);
+  if (!response.ok) throw new Error(`Get interactions failed: ${response.status}`);
   return response.json();
 }
 
@@ -550,10 +572,22 @@ export interface NotificationData {
   publicationId: number | null;
   publicationTitle: string;
   commentSnippet: string;
+  /** Actors an aggregated LIKE / COMMENT stands for; actor* fields are the latest one */
+  actorCount: number;
+  previousActorName: string;
+  /** When the latest actor came in; equals createdAt unless the notification is an aggregate. The list is ordered by it */
+  lastActivityAt: string;
 }
 
-export async function getNotifications(): Promise<NotificationData[]> {
-  const res = await fetch(`${API_BASE_URL}/api/notifications`, {
+export interface NotificationPage {
+  items: NotificationData[];
+  nextCursor: string | null;
+}
+
+/** One page of notifications, newest first; pass nextCursor back to get the next page. */
+export async function getNotifications(cursor?: string): Promise<NotificationPage> {
+  const qs = cursor ? `?cursor=${encodeURIComponent(cursor)}` : '';
+  const res = await fetch(`${API_BASE_URL}/api/notifications${qs}`, {
     headers: { ...getAuthHeaders() },
   });
   if (!res.ok) throw new Error('Failed to fetch notifications');
@@ -569,6 +603,76 @@ export async function getUnreadCount(): Promise<number> {
   return data.count ?? 0;
 }
 
+export type NotificationStreamEvent =
+  | { type: 'unread-count'; count: number }
+  | { type: 'unread-delta'; delta: number }
+  | { type: 'notification'; notification: NotificationData };
+
+const STREAM_RETRY_MS = 5000;
+
+/**
+ * Listens to the notification stream (Server-Sent Events). Read with fetch instead of
+ * EventSource, which cannot send the Authorization header. Reconnects when the stream ends
+ * or fails; each new connection starts with an 'unread-count' event. Returns a function
+ * that closes it.
+ */
+export function openNotificationStream(onEvent: (event: NotificationStreamEvent) => void): () => void {
+  const controller = new AbortController();
+  const { signal } = controller;
+
+  const dispatch = (block: string) => {
+    let name = 'message';
+    const data: string[] = [];
+    for (const line of block.split('\n')) {
+      if (line.startsWith(':')) continue; // comment (heartbeat)
+      const sep = line.indexOf(':');
+      const field = sep < 0 ? line : line.slice(0, sep);
+      const value = sep < 0 ? '' : line.slice(sep + 1).replace(/^ /, '');
+      if (field === 'event') name = value;
+      else if (field === 'data') data.push(value);
+    }
+    if (data.length === 0) return;
+    const payload = JSON.parse(data.join('\n'));
+    if (name === 'unread-count') onEvent({ type: 'unread-count', count: payload.count ?? 0 });
+    else if (name === 'unread-delta') onEvent({ type: 'unread-delta', delta: payload.delta ?? 0 });
+    else if (name === 'notification') onEvent({ type: 'notification', notification: payload });
+  };
+
+  const listen = async () => {
+    const res = await fetch(`${API_BASE_URL}/api/notifications/stream`, {
+      headers: { Accept: 'text/event-stream', ...getAuthHeaders() },
+      signal,
+    });
+    if (res.status === 401 || res.status === 403) return false;
+    if (!res.ok || !res.body) throw new Error('Failed to open notification stream');
+    const reader = res.body.pipeThrough(new TextDecoderStream()).getReader();
+    let buffer = '';
+    for (;;) {
+      const { value, done } = await reader.read();
+      if (done) return true;
+      buffer += value.replace(/\r\n?/g, '\n');
+      let end;
+      while ((end = buffer.indexOf('\n\n')) >= 0) {
+        dispatch(buffer.slice(0, end));
+        buffer = buffer.slice(end + 2);
+      }
+    }
+  };
+
+  (async () => {
+    while (!signal.aborted) {
+      try {
+        // Not signed in (or session expired): nothing to listen to
+        if (!(await listen())) return;
+      } catch { /* dropped: retry below */ }
+      if (signal.aborted) return;
+      await new Promise(resolve => setTimeout(resolve, STREAM_RETRY_MS));
+    }
+  })();
+
+  return () => controller.abort();
+}
+
 export async function markNotificationRead(id: number): Promise<void> {
   await fetch(`${API_BASE_URL}/api/notifications/${id}/read`, {
     method: 'POST',
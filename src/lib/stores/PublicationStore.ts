@@ -1,23 +1,37 @@
 import { makeAutoObservable, runInAction } from 'mobx';
-import { getPublications, createPublication, deletePublication, updatePublication, type PublicationData } from '../api';
+import { getFeed, getPublication, createPublication, deletePublication, updatePublication, type PublicationData } from '../api';
+
+// Feed pages of the server's maximum size; the map keeps at most FEED_MAX_PAGES of them
+const FEED_PAGE_SIZE = 100;
+const FEED_MAX_PAGES = 5;
 
 class PublicationStore {
   publications: PublicationData[] = [];
+  nextCursor: string | null = null;
+  pagesLoaded = 0;
   isLoading = false;
+  isLoadingMore = false;
   error: string | null = null;
 
   constructor() {
     makeAutoObservable(this);
   }
 
+  get hasMore() {
+    return this.nextCursor !== null && this.pagesLoaded < FEED_MAX_PAGES;
+  }
+
+  /** Loads the first page of the feed, replacing what was loaded. */
   async fetchPublications() {
     this.isLoading = true;
     this.error = null;
 
     try {
-      const data = await getPublications();
+      const page = await getFeed(undefined, FEED_PAGE_SIZE);
       runInAction(() => {
-        this.publications = data;
+        this.publications = page.items;
+        this.nextCursor = page.nextCursor;
+        this.pagesLoaded = 1;
         this.isLoading = false;
       });
     } catch (error) {
@@ -28,6 +42,43 @@ class PublicationStore {
     }
   }
 
+  /** Appends the next (older) page of the feed, if there is one and the cap isn't reached. */
+  async fetchMore() {
+    if (!this.hasMore || this.isLoading || this.isLoadingMore) return;
+    this.isLoadingMore = true;
+
+    try {
+      const page = await getFeed(this.nextCursor ?? undefined, FEED_PAGE_SIZE);
+      runInAction(() => {
+        const known = new Set(this.publications.map(p => p.id));
+        this.publications = [...this.publications, ...page.items.filter(p => !known.has(p.id))];
+        this.nextCursor = page.nextCursor;
+        this.pagesLoaded += 1;
+        this.isLoadingMore = false;
+      });
+    } catch (error) {
+      runInAction(() => {
+        this.error = error instanceof Error ? error.message : 'Error fetching publications';
+        this.isLoadingMore = false;
+      });
+    }
+  }
+
+  /** Returns the publication, fetching it on its own if it isn't in the loaded pages. */
+  async ensurePublication(id: number): Promise<PublicationData | null> {
+    const loaded = this.publications.find(p => p.id === id);
+    if (loaded) return loaded;
+    try {
+      const pub = await getPublication(id);
+      runInAction(() => {
+        if (!this.publications.some(p => p.id === id)) this.publications = [...this.publications, pub];
+      });
+      return pub;
+    } catch {
+      return null;
+    }
+  }
+
   async addPublication(data: {
     title: string;
     description?: string;
@@ -46,9 +46,16 @@ const MapPage = observer(() => {
   const focusedPubIdRef = useRef<number | null>(null);
   const [searchParams] = useSearchParams();
 
-  // Load publications on mount
+  // Load the newest page on mount, then the next few pages of the feed in the background
   useEffect(() => {
-    publicationStore.fetchPublications();
+    let cancelled = false;
+    (async () => {
+      await publicationStore.fetchPublications();
+      while (!cancelled && publicationStore.hasMore && !publicationStore.error) {
+        await publicationStore.fetchMore();
+      }
+    })();
+    return () => { cancelled = true; };
   }, [publicationStore]);
 
   // Focus on a publication when navigated from profile OR via ?pub= URL param
@@ -58,11 +65,10 @@ const MapPage = observer(() => {
     if (!pubId) return;
     // Already handled this id — don't fly again
     if (focusedPubIdRef.current === pubId) return;
-    // Wait for publications to load, then fly to the target
-    const tryFocus = () => {
-      const pub = publicationStore.publications.find(p => p.id === pubId);
+    // The target may be older than the loaded feed pages: fetch it on its own if needed
+    focusedPubIdRef.current = pubId;
+    publicationStore.ensurePublication(pubId).then(pub => {
       if (pub) {
-        focusedPubIdRef.current = pubId;
         setSelectedPublication(pub);
         setPublishCoords(null);
         const map = mapRef.current?.getMap();
@@ -75,13 +81,9 @@ const MapPage = observer(() => {
             duration: 800,
           });
         }
-      } else {
-        // Publications might not be loaded yet, retry shortly
-        setTimeout(tryFocus, 300);
       }
-    };
-    tryFocus();
-  }, [location.state, searchParams, publicationStore.publications]);
+    });
+  }, [location.state, searchParams, publicationStore]);
 
   const handleViewportChange = useCallback((bbox: number[]) => {
     const map = mapRef.current?.getMap();
@@ -213,16 +215,9 @@ const MapPage = observer(() => {
         {userStore.isLoggedIn && (
           <div className="flex items-center gap-8">
             <NotificationBell
-              onFocusPublication={(id) => {
-                const pub = publicationStore.publications.find(p => p.id === id);
-                if (pub) {
-                  handlePublicationClick(pub);
-                } else {
-                  // not loaded yet — use focusPublication state nav
-                  focusedPubIdRef.current = null;
-                  window.history.replaceState({ focusPublication: id }, '');
-                  window.dispatchEvent(new PopStateEvent('popstate', { state: { focusPublication: id } }));
-                }
+              onFocusPublication={async (id) => {
+                const pub = await publicationStore.ensurePublication(id);
+                if (pub) handlePublicationClick(pub);
               }}
             />
             <a